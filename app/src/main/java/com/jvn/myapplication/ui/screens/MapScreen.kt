@@ -1,5 +1,6 @@
 package com.jvn.myapplication.ui.screens
 
+import algorithms.GAConfig
 import androidx.compose.animation.*
 import androidx.compose.animation.core.tween
 import androidx.compose.foundation.background
@@ -52,9 +53,11 @@ fun MapScreen() {
         }
     }
 
-    var populationSize by remember { mutableStateOf(100) }
-    var crossoverRate by remember { mutableStateOf(0.8f) }
-    var mutationRate by remember { mutableStateOf(0.1f) }
+    // privzete vrednosti drsnikov iz uglašenih nastavitev (ga_defaults.properties)
+    val defaults = remember { AssetReader.readGAConfigFromAssets(context) }
+    var populationSize by remember { mutableStateOf(defaults.popSize.coerceIn(50, 300)) }
+    var crossoverRate by remember { mutableStateOf(defaults.crossoverRate.toFloat()) }
+    var mutationRate by remember { mutableStateOf(defaults.mutationRate.toFloat()) }
     var optimizationType by remember { mutableStateOf(OptimizationType.DISTANCE) }
 
     LaunchedEffect(Unit) {
@@ -237,17 +240,27 @@ fun MapScreen() {
                         item {
                                 Button(
                                     onClick = {
+                                    if (uiState.isLoading) {
+                                        viewModel.stopCalculation()
+                                    } else {
                                     viewModel.calculateRoute(
                                         selectedLocationIds = selectedLocationIds.toList(),
                                         startLocationId = startLocationId,
                                         optimizationType = optimizationType,
-                                        populationSize = populationSize,
-                                        crossoverRate = crossoverRate.toDouble(),
-                                        mutationRate = mutationRate.toDouble()
+                                        gaConfig = GAConfig(
+                                            populationSize,
+                                            crossoverRate.toDouble(),
+                                            mutationRate.toDouble(),
+                                            defaults.adaptive
+                                        ).apply {
+                                            crossover = defaults.crossover
+                                            mutation = defaults.mutation
+                                        }
                                     )
+                                    }
                                     },
                                     modifier = Modifier.fillMaxWidth(),
-                                    enabled = !uiState.isLoading && selectedLocationIds.isNotEmpty(),
+                                    enabled = uiState.isLoading || selectedLocationIds.isNotEmpty(),
                                     colors = ButtonDefaults.buttonColors(containerColor = airbnbRed)
                                 ) {
                                     if (uiState.isLoading) {
@@ -257,7 +270,11 @@ fun MapScreen() {
                                             strokeWidth = 2.dp
                                         )
                                         Spacer(modifier = Modifier.width(8.dp))
-                                        Text("Calculating...")
+                                        val best = uiState.bestDistanceSoFar
+                                        Text(
+                                            if (best != null) String.format("Stop (best: %.0f)", best)
+                                            else "Calculating..."
+                                        )
                                     } else {
                                         Text("Calculate Route")
                                     }
@@ -574,8 +591,8 @@ fun GAParametersCard(
                 Slider(
                     value = populationSize.toFloat(),
                     onValueChange = { onPopulationSizeChange(it.toInt()) },
-                    valueRange = 50f..200f,
-                    steps = 14,
+                    valueRange = 50f..300f,
+                    steps = 24,
                     colors = SliderDefaults.colors(
                         thumbColor = airbnbRed,
                         activeTrackColor = airbnbRed,
@@ -624,7 +641,7 @@ fun GAParametersCard(
                     verticalAlignment = Alignment.CenterVertically
                 ) {
                     Text(
-                        text = "Mutation Rate",
+                        text = "Initial Mutation Rate",
                         style = MaterialTheme.typography.bodyMedium,
                         fontWeight = FontWeight.Medium,
                         color = textDark
@@ -4,22 +4,34 @@ import android.content.Context
 import android.util.Log
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
-import algorithms.GA
+import algorithms.GAConfig
+import algorithms.IncrementalSolver
+import algorithms.RunControl
+import algorithms.StagnationResponse
 import com.google.android.gms.maps.model.LatLng
 import com.google.maps.android.PolyUtil
 import com.jvn.myapplication.BuildConfig
 import com.jvn.myapplication.data.api.NetworkModule
 import com.jvn.myapplication.data.model.Location
 import com.jvn.myapplication.utils.AssetReader
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.ensureActive
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import problems.TSP
 import java.io.InputStream
 
+private const val MAX_SOLVE_MILLIS = 15_000L
+private const val PROGRESS_INTERVAL_MILLIS = 250L
+// največ toliko dodanih ali odstranjenih postaj še popravimo prejšnjo pot namesto novega izračuna
+private const val MAX_INCREMENTAL_CHANGES = 3
+
 class MapViewModel(private val context: Context) : ViewModel() {
 
     private val _uiState = MutableStateFlow(MapUiState())
@@ -27,27 +39,54 @@ class MapViewModel(private val context: Context) : ViewModel() {
     
     private var allLocations: List<Location> = emptyList()
 
+    // nadzor in korutina trenutnega izračuna, da ga lahko prekinemo
+    private var runControl: RunControl? = null
+    private var calculationJob: Job? = null
+
+    // zadnja izračunana pot (realni ID-ji) in nastavitve, s katerimi je nastala, za hitro popravilo
+    // ob majhni spremembi izbire
+    private var lastRoute: List<Int> = emptyList()
+    private var lastSettings: RouteSettings? = null
+
     fun calculateRoute(
         selectedLocationIds: List<Int>,
         startLocationId: Int?,
         optimizationType: OptimizationType,
-        populationSize: Int,
-        crossoverRate: Double,
-        mutationRate: Double
+        gaConfig: GAConfig
     ) {
         if (selectedLocationIds.isEmpty()) {
-            _uiState.value = _uiState.value.copy(
-                errorMessage = "Please select at least one location"
-            )
+            _uiState.update { it.copy(errorMessage = "Please select at least one location") }
             return
         }
 
-        viewModelScope.launch {
-            _uiState.value = _uiState.value.copy(
-                isLoading = true,
-                errorMessage = null,
-                result = null
-            )
+        cancelCalculation()
+        val control = RunControl()
+        control.setTimeLimit(MAX_SOLVE_MILLIS)
+        control.setProgressListener({ best, _, _ ->
+            // klic prihaja iz niti rešilca: atomarna posodobitev ne povozi sprememb glavne niti
+            if (!control.isCancelled) {
+                _uiState.update { it.copy(bestDistanceSoFar = best.distance) }
+            }
+        }, PROGRESS_INTERVAL_MILLIS)
+        runControl = control
+        // prejšnjo pot beremo na glavni niti, kjer jo tudi pišemo
+        val previousRoute = lastRoute
+        val settings = RouteSettings(
+            optimizationType, startLocationId, gaConfig.popSize, gaConfig.crossoverRate, gaConfig.mutationRate,
+            gaConfig.adaptive, gaConfig.crossover, gaConfig.mutation
+        )
+        // popravimo le ob spremembi izbire postaj; ob enaki izbiri ali drugih nastavitvah GA teče znova
+        val incremental = settings == lastSettings && previousRoute.isNotEmpty()
+
+        calculationJob = viewModelScope.launch {
+            _uiState.update {
+                it.copy(
+                    isLoading = true,
+                    errorMessage = null,
+                    result = null,
+                    bestDistanceSoFar = null
+                )
+            }
 
             try {
                 val result = withContext(Dispatchers.IO) {
@@ -62,16 +101,39 @@ class MapViewModel(private val context: Context) : ViewModel() {
                     
                     val inputStream: InputStream = context.assets.open(fileName)
                     
-                    val masterProblem = TSP(inputStream, 0)
+                    val downloadedProblem = TSP(inputStream, 0)
                     inputStream.close()
-                    
+
+                    // lokacije iz CSV, ki še nimajo vrstice v matriki, dobijo približne razdalje
+                    val masterProblem = if (allLocations.size > downloadedProblem.numberOfCities) {
+                        downloadedProblem.withApproximatedCities(
+                            allLocations.map { it.id }.toIntArray(),
+                            allLocations.map { it.latitude }.toDoubleArray(),
+                            allLocations.map { it.longitude }.toDoubleArray()
+                        )
+                    } else {
+                        downloadedProblem
+                    }
+
                     val selectedIds = selectedLocationIds.map { it.toInt() }
                     val subProblem = masterProblem.generateSubproblem(selectedIds)
                     
-                    val ga = GA(populationSize, crossoverRate, mutationRate)
-                    val tour = ga.execute(subProblem)
+                    val changes = (selectedIds - previousRoute).size + (previousRoute - selectedIds).size
+                    val tour = if (incremental && changes in 1..MAX_INCREMENTAL_CHANGES) {
+                        val solver = IncrementalSolver()
+                        solver.setPreviousRoute(previousRoute)
+                        solver.setRunControl(control)
+                        solver.execute(subProblem)
+                    } else {
+                        // operatorji in prilagajanje iz uglašenih nastavitev, velikost in verjetnosti z drsnikov
+                        val ga = gaConfig.createSolver()
+                        ga.setStagnationResponse(StagnationResponse.HYPERMUTATION, 50)
+                        ga.setRunControl(control)
+                        ga.execute(subProblem)
+                    }
                     
-                    var route = tour.path.map { it.realId }.toList()
+                    val solvedRoute = tour.path.map { it.realId }.toList()
+                    var route = solvedRoute
                     
                     if (startLocationId != null && route.contains(startLocationId)) {
                         val startIndex = route.indexOf(startLocationId)
@@ -84,7 +146,7 @@ class MapViewModel(private val context: Context) : ViewModel() {
                     
                     val directionsResult = getDirections(routeLocations)
                     
-                    TSPResult(
+                    solvedRoute to TSPResult(
                         route = route,
                         routeLocations = routeLocations,
                         distance = tour.distance,
@@ -96,26 +158,52 @@ class MapViewModel(private val context: Context) : ViewModel() {
                     )
                 }
 
-                _uiState.value = _uiState.value.copy(
-                    isLoading = false,
-                    result = result
-                )
+                // prekinjen ali zamenjan izračun ne sme objaviti zastarele poti
+                ensureActive()
+                lastRoute = result.first
+                lastSettings = settings
+                _uiState.update { it.copy(isLoading = false, result = result.second) }
+            } catch (e: CancellationException) {
+                throw e
             } catch (e: Exception) {
                 e.printStackTrace()
-                _uiState.value = _uiState.value.copy(
-                    isLoading = false,
-                    errorMessage = "Error calculating route: ${e.message}"
-                )
+                ensureActive()
+                _uiState.update {
+                    it.copy(
+                        isLoading = false,
+                        errorMessage = "Error calculating route: ${e.message}"
+                    )
+                }
             }
         }
     }
 
+    /**
+     * Stops the running optimization and discards its result.
+     */
+    fun stopCalculation() {
+        cancelCalculation()
+        _uiState.update { it.copy(isLoading = false, bestDistanceSoFar = null) }
+    }
+
+    private fun cancelCalculation() {
+        runControl?.cancel()
+        calculationJob?.cancel()
+        runControl = null
+        calculationJob = null
+    }
+
+    override fun onCleared() {
+        cancelCalculation()
+        super.onCleared()
+    }
+
     fun clearError() {
-        _uiState.value = _uiState.value.copy(errorMessage = null)
+        _uiState.update { it.copy(errorMessage = null) }
     }
 
     fun clearResult() {
-        _uiState.value = _uiState.value.copy(result = null)
+        _uiState.update { it.copy(result = null) }
     }
     
     private suspend fun getDirections(locations: List<Location>): DirectionsResult? {
@@ -199,6 +287,18 @@ class MapViewModel(private val context: Context) : ViewModel() {
     }
 }
 
+// nastavitve izračuna razen izbire postaj
+private data class RouteSettings(
+    val optimizationType: OptimizationType,
+    val startLocationId: Int?,
+    val populationSize: Int,
+    val crossoverRate: Double,
+    val mutationRate: Double,
+    val adaptive: Boolean,
+    val crossover: String,
+    val mutation: String
+)
+
 data class DirectionsResult(
     val polylinePoints: String,
     val totalDistanceKm: Double,
@@ -208,7 +308,8 @@ data class DirectionsResult(
 data class MapUiState(
     val isLoading: Boolean = false,
     val errorMessage: String? = null,
-    val result: TSPResult? = null
+    val result: TSPResult? = null,
+    val bestDistanceSoFar: Double? = null
 )
 
 data class TSPResult(
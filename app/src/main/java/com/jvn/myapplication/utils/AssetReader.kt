@@ -1,5 +1,6 @@
 package com.jvn.myapplication.utils
 
+import algorithms.GAConfig
 import android.content.Context
 import com.jvn.myapplication.data.model.Location
 import java.io.BufferedReader
@@ -29,6 +30,18 @@ object AssetReader {
         return locations
     }
     
+    /**
+     * Reads the tuned GA defaults (written by TSPParameterTuning); falls back to the built-in defaults.
+     */
+    fun readGAConfigFromAssets(context: Context): GAConfig {
+        return try {
+            context.assets.open("ga_defaults.properties").use { GAConfig.load(it) }
+        } catch (e: Exception) {
+            e.printStackTrace()
+            GAConfig()
+        }
+    }
+
     private fun parseLocationLine(line: String): Location? {
         return try {
             val parts = line.split(";")
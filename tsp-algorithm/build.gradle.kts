@@ -1,7 +1,18 @@
 plugins {
     id("java-library")
+    alias(libs.plugins.jmh)
 }
 java {
     sourceCompatibility = JavaVersion.VERSION_11
     targetCompatibility = JavaVersion.VERSION_11
 }
+
+// mikrobenchmarki: ./gradlew :tsp-algorithm:jmh (rezultati v build/results/jmh)
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    profilers.add("gc")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+}
@@ -0,0 +1,62 @@
+package algorithms;
+
+import Utility.RandomUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import problems.TSP;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One generation of the default GA (PMX, swap mutation, tournament selection, population 100).
+ * Every invocation restores the same random initial population and runs {@value #GENERATIONS}
+ * generations from it, the score being the time per generation. Later in a run the population
+ * converges and is restarted when its diversity collapses, which changes the cost of a generation,
+ * so only the early, diverse phase of a run is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GABenchmark {
+
+    static final int GENERATIONS = 50;
+
+    @Param({"bays29.tsp", "eil101.tsp", "a280.tsp", "pr1002.tsp", "dca1389.tsp",
+            "direct4me_distance.tsp", "direct4me_time.tsp"})
+    public String instance;
+
+    private TSP problem;
+    private GA ga;
+
+    @Setup(Level.Trial)
+    public void loadProblem() {
+        problem = new TSP(instance, Integer.MAX_VALUE);
+        ga = new GA(100, 0.8, 0.1);
+    }
+
+    // vsak klic začne iz iste naključne populacije; ponastavitev ni del merjenega časa
+    @Setup(Level.Invocation)
+    public void restorePopulation() {
+        RandomUtils.setSeed(1);
+        problem.setNumberOfEvaluations(0);
+        ga.initialize(problem);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GENERATIONS)
+    public int generations() {
+        int changed = 0;
+        for (int g = 0; g < GENERATIONS; g++) {
+            changed += ga.nextGeneration();
+        }
+        return changed;
+    }
+}
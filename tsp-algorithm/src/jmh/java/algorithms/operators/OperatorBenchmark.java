@@ -0,0 +1,71 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import problems.TSP;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The default GA operators (PMX, swap mutation, tournament selection) in isolation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OperatorBenchmark {
+
+    @Param({"bays29.tsp", "eil101.tsp", "a280.tsp", "pr1002.tsp", "dca1389.tsp",
+            "direct4me_distance.tsp", "direct4me_time.tsp"})
+    public String instance;
+
+    private final PMX pmx = new PMX();
+    private final SwapMutation swapMutation = new SwapMutation();
+    private final TournamentSelection tournamentSelection = new TournamentSelection(3);
+
+    private TSP.Tour parent1, parent2, child1, child2, mutant;
+
+    @Setup
+    public void setup() {
+        RandomUtils.setSeed(1);
+        TSP problem = new TSP(instance, Integer.MAX_VALUE);
+        pmx.init(problem);
+        swapMutation.init(problem);
+
+        TSP.Tour[] population = new TSP.Tour[100];
+        for (int i = 0; i < population.length; i++) {
+            population[i] = problem.generateTour();
+            problem.evaluate(population[i]);
+        }
+        tournamentSelection.prepare(population, population.length);
+
+        parent1 = population[0];
+        parent2 = population[1];
+        child1 = new TSP.Tour(problem.getNumberOfCities());
+        child2 = new TSP.Tour(problem.getNumberOfCities());
+        mutant = problem.generateTour();
+    }
+
+    @Benchmark
+    public TSP.Tour pmx() {
+        pmx.cross(parent1, parent2, child1, child2);
+        return child1;
+    }
+
+    @Benchmark
+    public TSP.Tour swapMutation() {
+        swapMutation.mutate(mutant);
+        return mutant;
+    }
+
+    @Benchmark
+    public int tournamentSelection() {
+        return tournamentSelection.select();
+    }
+}
@@ -0,0 +1,74 @@
+package problems;
+
+import Utility.RandomUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing, evaluation, tour generation and sub-problem extraction on every bundled instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TSPBenchmark {
+
+    @Param({"bays29.tsp", "eil101.tsp", "a280.tsp", "pr1002.tsp", "dca1389.tsp",
+            "direct4me_distance.tsp", "direct4me_time.tsp"})
+    public String instance;
+
+    private byte[] file;
+    private TSP problem;
+    private TSP.Tour tour;
+    private List<Integer> selection;
+
+    @Setup
+    public void setup() throws IOException {
+        RandomUtils.setSeed(1);
+        try (InputStream in = TSP.class.getClassLoader().getResourceAsStream(instance)) {
+            file = in.readAllBytes();
+        }
+        problem = new TSP(instance, Integer.MAX_VALUE);
+        tour = problem.generateTour();
+
+        // 20 naključnih mest, kot jih izbere uporabnik v aplikaciji
+        selection = new ArrayList<>();
+        while (selection.size() < Math.min(20, problem.getNumberOfCities())) {
+            int realId = problem.getCity(RandomUtils.nextInt(problem.getNumberOfCities())).realId;
+            if (!selection.contains(realId)) selection.add(realId);
+        }
+    }
+
+    @Benchmark
+    public TSP parse() {
+        return new TSP(new ByteArrayInputStream(file), 0);
+    }
+
+    @Benchmark
+    public double evaluate() {
+        problem.evaluate(tour);
+        return tour.getDistance();
+    }
+
+    @Benchmark
+    public TSP.Tour generateTour() {
+        return problem.generateTour();
+    }
+
+    @Benchmark
+    public TSP generateSubproblem() {
+        return problem.generateSubproblem(selection);
+    }
+}
@@ -0,0 +1,59 @@
+import algorithms.GAConfig;
+import benchmark.SolverComparison;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Regression gate: runs a baseline and a candidate GA configuration on the same instances and seeds
+ * and exits with status 1 if the candidate is significantly worse in quality or speed.
+ * <p>
+ * Arguments as {@code key=value}: {@code baseline} and {@code candidate} (properties files as written
+ * by {@link GAConfig#store}; the baseline defaults to the default GA, the candidate to the adaptive GA),
+ * {@code instances} (comma separated), {@code runs}, {@code threads}, {@code seed}, {@code evals}
+ * (evaluations per city), {@code alpha}, {@code speedTolerance}.
+ */
+public class TSPCompare {
+
+    public static void main(String[] args) throws Exception {
+        Locale.setDefault(Locale.US);
+
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+
+        GAConfig baseline = options.containsKey("baseline") ? load(options.get("baseline")) : new GAConfig();
+        GAConfig candidate = options.containsKey("candidate") ? load(options.get("candidate"))
+                : new GAConfig(100, 0.8, 0.1, true);
+        List<String> instances = Arrays.asList(options.getOrDefault("instances", "bays29.tsp,eil101.tsp,a280.tsp").split(","));
+
+        SolverComparison comparison = new SolverComparison(baseline::createSolver, candidate::createSolver);
+        comparison.setRuns(Integer.parseInt(options.getOrDefault("runs", "20")));
+        comparison.setSeed(Long.parseLong(options.getOrDefault("seed", "123")));
+        comparison.setEvaluationsPerCity(Integer.parseInt(options.getOrDefault("evals", "1000")));
+        comparison.setAlpha(Double.parseDouble(options.getOrDefault("alpha", "0.05")));
+        comparison.setSpeedTolerance(Double.parseDouble(options.getOrDefault("speedTolerance", "1.05")));
+        if (options.containsKey("threads")) comparison.setThreads(Integer.parseInt(options.get("threads")));
+
+        System.out.println("Baseline:  " + baseline);
+        System.out.println("Candidate: " + candidate);
+        SolverComparison.Report report = comparison.compare(instances);
+        report.print(System.out);
+        if (report.isRegression()) {
+            System.exit(1);
+        }
+    }
+
+    private static GAConfig load(String path) throws Exception {
+        try (InputStream in = new FileInputStream(path)) {
+            return GAConfig.load(in);
+        }
+    }
+}
@@ -1,92 +1,84 @@
-import Utility.RandomUtils;
-import algorithms.GA;
-import problems.TSP;
-
+import algorithms.GAConfig;
+import tuning.ParameterSpace;
+import tuning.RaceTuner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
-
+import java.util.Map;
+
+/**
+ * Tunes the GA parameters on the direct4me instances with racing and writes the winner to
+ * {@code ga_defaults.properties}, which the app reads from its assets as slider defaults.
+ * <p>
+ * Optional arguments as {@code key=value}: {@code mode} ({@code grid} races the fixed grid below,
+ * {@code sample} runs iterated racing in a continuous space), {@code iterations}, {@code candidates},
+ * {@code evals} (evaluations per city), {@code threads}, {@code seed}, {@code adaptive}, {@code out}.
+ */
 public class TSPParameterTuning {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         Locale.setDefault(Locale.US);
-        RandomUtils.setSeedFromTime();
 
-        String[] realProblems = {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        boolean adaptive = Boolean.parseBoolean(options.getOrDefault("adaptive", "false"));
+
+        List<String> realProblems = Arrays.asList(
                 "direct4me_distance.tsp",
                 "direct4me_time.tsp"
-        };
+        );
 
-        int[] populations = {100, 300};
-        double[] crossovers = {0.8, 0.9};
-        double[] mutations = {0.05, 0.1, 0.2};
+        RaceTuner tuner = new RaceTuner(realProblems);
+        tuner.setEvaluationsPerCity(Integer.parseInt(options.getOrDefault("evals", "10000")));
+        tuner.setSeed(Long.parseLong(options.getOrDefault("seed", String.valueOf(System.currentTimeMillis()))));
+        if (options.containsKey("threads")) tuner.setThreads(Integer.parseInt(options.get("threads")));
 
         System.out.println("Začenjam optimizacijo parametrov...");
 
-        for (String fileName : realProblems) {
-                System.out.println("==================================================");
-                System.out.println("OBDELUJEM DATOTEKO: " + fileName);
-                System.out.println("==================================================");
-
-                TSP infoTsp = new TSP(fileName, 0);
-                int d = infoTsp.getNumberOfCities();
-                int maxFes = 10000 * d;
-
-                double globalBestScore = Double.MAX_VALUE;
-                String globalBestParams = "";
-                TSP.Tour globalBestTour = null;
-
-                for (int popSize : populations) {
-                    for (double cr : crossovers) {
-                        for (double pm : mutations) {
-
-                            double sumScore = 0;
-                            double bestInBatch = Double.MAX_VALUE;
-                            int runs = 10;
-
-                            System.out.printf("Testiram: Pop=%d, Cr=%.2f, Pm=%.2f ... ", popSize, cr, pm);
-
-                            for (int i = 0; i < runs; i++) {
-                                TSP tsp = new TSP(fileName, maxFes);
-                                GA ga = new GA(popSize, cr, pm);
-                                TSP.Tour result = ga.execute(tsp);
-
-                                double score = result.getDistance();
-                                sumScore += score;
-
-                                if (score < bestInBatch) {
-                                    bestInBatch = score;
-                                }
-
-                                if (score < globalBestScore) {
-                                    globalBestScore = score;
-                                    globalBestTour = result;
-                                    globalBestParams = String.format("Pop=%d, Cr=%.2f, Pm=%.2f", popSize, cr, pm);
-                                }
-                            }
-
-                            double avgScore = sumScore / runs;
-                            System.out.printf("-> Best: %.2f | Avg: %.2f%n", bestInBatch, avgScore);
-                        }
+        GAConfig winner;
+        if (options.getOrDefault("mode", "grid").equals("sample")) {
+            ParameterSpace space = new ParameterSpace(30, 500, 0.5, 1.0, 0.01, 0.5, adaptive);
+            winner = tuner.tune(space,
+                    Integer.parseInt(options.getOrDefault("iterations", "3")),
+                    Integer.parseInt(options.getOrDefault("candidates", "12")));
+        } else {
+            int[] populations = {100, 300};
+            double[] crossovers = {0.8, 0.9};
+            double[] mutations = {0.05, 0.1, 0.2};
+
+            List<GAConfig> grid = new ArrayList<>();
+            for (int popSize : populations) {
+                for (double cr : crossovers) {
+                    for (double pm : mutations) {
+                        grid.add(new GAConfig(popSize, cr, pm, adaptive));
                     }
                 }
+            }
+            List<GAConfig> survivors = tuner.race(grid);
+            System.out.println("Preživeli: " + survivors);
+            winner = survivors.get(0);
+        }
 
-                System.out.println("\n--------------------------------------------------");
-                System.out.println("ZMAGOVALEC ZA " + fileName + ":");
-                System.out.println("  Parametri: " + globalBestParams);
-
-                String enota = fileName.contains("time") ? "sekund" : "metrov";
-                System.out.printf("  Rezultat:  %.4f %s%n", globalBestScore, enota);
-
-                System.out.println("\nNAJBOLJŠA POT (Real ID-ji):");
-                if (globalBestTour != null) {
-                    StringBuilder sb = new StringBuilder();
-                    for (TSP.City c : globalBestTour.getPath()) {
-                        sb.append(c.realId).append(" ");
-                    }
-                    sb.append(globalBestTour.getPath()[0].realId);
+        System.out.println("\n--------------------------------------------------");
+        System.out.println("ZMAGOVALEC: " + winner);
 
-                    System.out.println(sb.toString());
-                }
-                System.out.println("--------------------------------------------------\n");
+        File output = new File(options.getOrDefault("out", "tsp-algorithm/results/ga_defaults.properties"));
+        if (output.getParentFile() != null) output.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(output)) {
+            // ukaz v glavi datoteke, da je nastavitve mogoče ponoviti
+            winner.store(out, "GA defaults tuned on " + realProblems + " with: TSPParameterTuning " + String.join(" ", args));
         }
+        System.out.println("Shranjeno v: " + output.getPath()
+                + " (kopiraj v app/src/main/assets za privzete nastavitve aplikacije)");
+        System.out.println("--------------------------------------------------");
     }
-}
\ No newline at end of file
+}
@@ -1,27 +1,52 @@
-import Utility.RandomUtils;
 import algorithms.GA;
-import problems.TSP;
+import benchmark.BenchmarkRunner;
+import benchmark.InstanceSummary;
+import benchmark.ResultWriter;
+import benchmark.RunResult;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
-
+import java.util.Map;
+
+/**
+ * Runs the benchmark suite (30 seeds × 5 instances by default) in parallel and writes the scores
+ * per instance plus CSV/JSON summaries.
+ * <p>
+ * Optional arguments as {@code key=value}: {@code instances} (comma separated), {@code runs},
+ * {@code threads}, {@code seed}, {@code pop}, {@code cr}, {@code pm}, {@code adaptive}, {@code evals}
+ * (evaluations per city, default 1000), {@code target} (gap to the optimum that counts as reached,
+ * e.g. {@code 0.05}), {@code telemetry} (directory for per-run convergence traces and metrics),
+ * {@code checkpoint} (directory for per-run checkpoints, written every minute; an interrupted suite
+ * started again with the same arguments resumes its unfinished runs) and {@code jfr} ({@code true}
+ * emits flight recorder events, e.g. with {@code -XX:StartFlightRecording=filename=dca1389.jfr,settings=profile}).
+ */
 public class TSPTest {
 
     private static final String TEAM_NAME = "AirBox";
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         Locale.setDefault(Locale.US);
 
-        String[] problemFiles = {
-                "bays29.tsp",
-                "eil101.tsp",
-                "a280.tsp",
-                "pr1002.tsp",
-                "dca1389.tsp"
-        };
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        int popSize = Integer.parseInt(options.getOrDefault("pop", "100"));
+        double cr = Double.parseDouble(options.getOrDefault("cr", "0.8"));
+        double pm = Double.parseDouble(options.getOrDefault("pm", "0.1"));
+        boolean adaptive = Boolean.parseBoolean(options.getOrDefault("adaptive", "false"));
+
+        List<String> problemFiles = Arrays.asList(options.getOrDefault("instances",
+                "bays29.tsp,eil101.tsp,a280.tsp,pr1002.tsp,dca1389.tsp").split(","));
 
         String resultsPath = "tsp-algorithm/results";
 
@@ -40,52 +65,56 @@ public class TSPTest {
             }
         }
 
-        try {
-            RandomUtils.setSeedFromTime();
-            System.out.println("Seed: " + RandomUtils.getSeed());
-
-            for (String fileName : problemFiles) {
-                System.out.println("--------------------------------------------------");
-                System.out.println("Processing: " + fileName);
-
-                TSP infoTsp = new TSP(fileName, 0);
-                int d = infoTsp.getNumberOfCities();
-                int maxFes = 1000 * d;
-
-                System.out.println("  Cities (d): " + d);
-                System.out.println("  MaxFes: " + maxFes);
-
-                String cleanName = fileName.replace(".tsp", "");
-
-                String outputFileName = resultsPath + "/" + TEAM_NAME + "_" + cleanName + ".txt";
-
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFileName))) {
-
-                    for (int i = 0; i < 30; i++) {
-                        TSP tsp = new TSP(fileName, maxFes);
-                        GA ga = new GA(100, 0.8, 0.1);
-
-                        TSP.Tour best = ga.execute(tsp);
-
-                        double score = best.getDistance();
-
-                        writer.write(String.format(Locale.US, "%.20f", score));
-                        writer.newLine();
-
-                        System.out.printf("    Run %2d: %.4f%n", (i + 1), score);
-                    }
-
-                    System.out.println("  -> Saved to: " + outputFileName);
-
-                } catch (IOException e) {
-                    System.err.println("Error writing file: " + outputFileName);
-                    e.printStackTrace();
+        BenchmarkRunner runner = new BenchmarkRunner(() -> {
+            GA ga = new GA(popSize, cr, pm);
+            ga.setAdaptive(adaptive);
+            return ga;
+        });
+        runner.setRuns(Integer.parseInt(options.getOrDefault("runs", "30")));
+        runner.setSeed(Long.parseLong(options.getOrDefault("seed", String.valueOf(System.currentTimeMillis()))));
+        if (options.containsKey("threads")) runner.setThreads(Integer.parseInt(options.get("threads")));
+        if (options.containsKey("evals")) runner.setEvaluationsPerCity(Integer.parseInt(options.get("evals")));
+        if (options.containsKey("target")) runner.setTargetGap(Double.parseDouble(options.get("target")));
+        if (options.containsKey("telemetry")) runner.setTelemetryDirectory(Paths.get(options.get("telemetry")));
+        if (options.containsKey("checkpoint")) {
+            runner.setCheckpointDirectory(Paths.get(options.get("checkpoint")), 60_000);
+        }
+        runner.setJfrEvents(Boolean.parseBoolean(options.getOrDefault("jfr", "false")));
+
+        long start = System.nanoTime();
+        List<RunResult> results = runner.run(problemFiles);
+        System.out.printf("Suite finished in %.1f s%n", (System.nanoTime() - start) / 1e9);
+
+        // rezultati po instancah v obliki za oddajo (ena vrstica na zagon)
+        for (String fileName : problemFiles) {
+            String cleanName = fileName.replace(".tsp", "");
+            Path output = Paths.get(resultsPath, TEAM_NAME + "_" + cleanName + ".txt");
+            try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+                for (RunResult r : results) {
+                    if (!r.instance.equals(fileName)) continue;
+                    writer.write(String.format(Locale.US, "%.20f", r.distance));
+                    writer.newLine();
                 }
+            } catch (IOException e) {
+                System.err.println("Error writing file: " + output);
+                e.printStackTrace();
             }
-            System.out.println("DONE!");
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        List<InstanceSummary> summaries = BenchmarkRunner.summarize(results);
+        ResultWriter.writeRunsCsv(Paths.get(resultsPath, TEAM_NAME + "_runs.csv"), results);
+        ResultWriter.writeSummaryCsv(Paths.get(resultsPath, TEAM_NAME + "_summary.csv"), summaries);
+        ResultWriter.writeSummaryJson(Paths.get(resultsPath, TEAM_NAME + "_summary.json"), summaries);
+
+        System.out.println("--------------------------------------------------");
+        System.out.printf("%-12s %12s %12s %10s %8s %10s %12s %6s%n",
+                "instance", "mean", "ci95 +-", "stdev", "gap %", "wall ms", "evals/s", "hits");
+        for (InstanceSummary s : summaries) {
+            System.out.printf("%-12s %12.2f %12.2f %10.2f %8.2f %10.0f %12.0f %3d/%d%n",
+                    s.instance, s.mean, s.confidenceHalfWidth, s.standardDeviation, 100 * s.meanGap,
+                    s.meanWallMillis, s.meanEvaluationsPerSecond, s.targetHits, s.runs);
         }
+        System.out.println("  -> Saved to: " + resultsPath);
+        System.out.println("DONE!");
     }
-}
\ No newline at end of file
+}
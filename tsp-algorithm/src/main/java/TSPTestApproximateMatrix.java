@@ -0,0 +1,178 @@
+import Utility.RandomUtils;
+import algorithms.GA;
+import problems.DistanceMatrix;
+import problems.HaversineMatrix;
+import problems.TSP;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Pretends that some direct4me locations are only in {@code direct4me_locations.csv}, without rows in
+ * the matrices, and routes through them with {@link TSP#withApproximatedCities}. Checks that the
+ * downloaded cells are kept exactly, reports the fitted detour factors and the error of the
+ * approximated cells, and compares tours solved on the approximate matrix with tours solved on the
+ * real one, both measured on the real matrix. Exits with status 1 if a downloaded cell changed.
+ * <p>
+ * Optional arguments as {@code key=value}: {@code missing} (locations without rows), {@code selected}
+ * (locations of the routed sub-problems), {@code runs}, {@code seed}.
+ */
+public class TSPTestApproximateMatrix {
+
+    public static void main(String[] args) throws IOException {
+        Locale.setDefault(Locale.US);
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        int missing = Integer.parseInt(options.getOrDefault("missing", "10"));
+        int selected = Integer.parseInt(options.getOrDefault("selected", "20"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "10"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        List<double[]> locations = readLocations();
+        int n = locations.size();
+        int[] ids = new int[n];
+        double[] latitudes = new double[n], longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = (int) locations.get(i)[0];
+            latitudes[i] = locations.get(i)[1];
+            longitudes[i] = locations.get(i)[2];
+        }
+        List<Integer> shuffled = new ArrayList<>();
+        for (int id : ids) shuffled.add(id);
+        Collections.shuffle(shuffled, new Random(seed));
+        Set<Integer> absent = new HashSet<>(shuffled.subList(0, missing));
+
+        boolean passed = true;
+        for (String instance : new String[]{"direct4me_distance.tsp", "direct4me_time.tsp"}) {
+            TSP real = new TSP(instance, 0);
+            List<Integer> knownIds = new ArrayList<>();
+            for (int id : ids) if (!absent.contains(id)) knownIds.add(id);
+            TSP approximate = real.generateSubproblem(knownIds).withApproximatedCities(ids, latitudes, longitudes);
+            DistanceMatrix exact = real.getDistanceMatrix(), partial = approximate.getDistanceMatrix();
+
+            double fullFactor = HaversineMatrix.fit(exact, latitudes, longitudes);
+            boolean kept = true;
+            double errors = 0;
+            int approximated = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    long value = exact.getLong(i, j), estimate = partial.getLong(i, j);
+                    if (!absent.contains(ids[i]) && !absent.contains(ids[j])) {
+                        kept &= value == estimate;
+                    } else if (i != j && value > 0) {
+                        errors += Math.abs(estimate - value) / (double) value;
+                        approximated++;
+                    }
+                }
+            }
+            passed &= kept;
+            System.out.printf("%s: factor %.4f (all cells: %.4f), %d approximated cells off by %.1f%% on average, downloaded cells %s%n",
+                    instance, fittedFactor(real, knownIds, latitudes, longitudes, ids, absent), fullFactor, approximated,
+                    100 * errors / approximated, kept ? "kept" : "CHANGED");
+
+            // podproblemi z vsaj eno manjkajočo lokacijo; obe turi merimo na pravi matriki
+            Random random = new Random(seed);
+            double gapSum = 0;
+            for (int run = 0; run < runs; run++) {
+                List<Integer> absentPool = new ArrayList<>(shuffled.subList(0, missing));
+                List<Integer> knownPool = new ArrayList<>(shuffled.subList(missing, n));
+                Collections.shuffle(absentPool, random);
+                Collections.shuffle(knownPool, random);
+                int fromAbsent = Math.min(missing, 1 + run % 3);
+                List<Integer> selection = new ArrayList<>(absentPool.subList(0, fromAbsent));
+                selection.addAll(knownPool.subList(0, selected - fromAbsent));
+                Collections.shuffle(selection, random);
+                TSP realSub = real.generateSubproblem(selection), approximateSub = approximate.generateSubproblem(selection);
+                RandomUtils.setSeed(seed + run);
+                TSP.Tour onReal = new GA(100, 0.8, 0.1).execute(realSub);
+                RandomUtils.setSeed(seed + run);
+                TSP.Tour onApproximate = new GA(100, 0.8, 0.1).execute(approximateSub);
+                DistanceMatrix truth = realSub.getDistanceMatrix();
+                long realLength = truth.routeLength(realSub.getStart(), onReal.getPath());
+                long approximateLength = truth.routeLength(realSub.getStart(), onApproximate.getPath());
+                gapSum += 100.0 * (approximateLength - realLength) / realLength;
+            }
+            System.out.printf("  %d sub-problems of %d locations: tours solved on the approximate matrix are %.2f%% longer on average%n",
+                    runs, selected, gapSum / runs);
+        }
+
+        rowSpeed(seed);
+        System.out.println(passed ? "OK" : "FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static double fittedFactor(TSP real, List<Integer> knownIds, double[] latitudes, double[] longitudes,
+                                       int[] ids, Set<Integer> absent) {
+        int known = knownIds.size();
+        double[] lat = new double[known], lon = new double[known];
+        for (int i = 0, k = 0; i < ids.length; i++) {
+            if (absent.contains(ids[i])) continue;
+            lat[k] = latitudes[i];
+            lon[k++] = longitudes[i];
+        }
+        return HaversineMatrix.fit(real.generateSubproblem(knownIds).getDistanceMatrix(), lat, lon);
+    }
+
+    // vrstica naenkrat proti celici za celico
+    private static void rowSpeed(long seed) {
+        int n = 5000;
+        Random random = new Random(seed);
+        double[] lat = new double[n], lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 45.4 + 1.5 * random.nextDouble();
+            lon[i] = 13.4 + 3.0 * random.nextDouble();
+        }
+        HaversineMatrix matrix = new HaversineMatrix(lat, lon, 1.3);
+        double[] row = new double[n];
+        double sum = 0;
+        long cells = 0, rows = 0;
+        for (int repeat = 0; repeat < 3; repeat++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) sum += matrix.getLong(i, j);
+            }
+            cells = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                matrix.row(i, row);
+                for (int j = 0; j < n; j++) sum += row[j];
+            }
+            rows = System.nanoTime() - start;
+        }
+        System.out.printf("%dx%d approximate values: %.1f ns per cell with getLong, %.1f ns with row (checksum %.0f)%n",
+                n, n, cells / (double) n / n, rows / (double) n / n, sum);
+    }
+
+    private static List<double[]> readLocations() throws IOException {
+        List<double[]> locations = new ArrayList<>();
+        try (InputStream in = TSP.class.getClassLoader().getResourceAsStream("direct4me_locations.csv");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(";");
+                if (parts.length < 4) continue;
+                locations.add(new double[]{Integer.parseInt(parts[0].trim()), Double.parseDouble(parts[2].trim()),
+                        Double.parseDouble(parts[3].trim())});
+            }
+        }
+        return locations;
+    }
+}
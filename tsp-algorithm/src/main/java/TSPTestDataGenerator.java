@@ -0,0 +1,245 @@
+import Utility.DataGenerator;
+import Utility.MatrixDownloader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@link DataGenerator#generate} against a local stub of the Geocoding and Distance Matrix APIs
+ * that answers with haversine distances after a fixed latency, occasionally with OVER_QUERY_LIMIT.
+ * Checks that the pipelined download writes the same files as a sequential one with the old request
+ * shape (one origin, 25 destinations), that a rerun is served from the cache, and that a download
+ * interrupted by a server outage resumes from its checkpoint. Finally {@link DataGenerator#update}
+ * adds two addresses to files built without them (and drops one) and must write the same files as
+ * the full build while asking only for the new rows and columns. Exits with status 1 on a failure.
+ * <p>
+ * Optional arguments as {@code key=value}: {@code cities}, {@code latency} (ms per response),
+ * {@code concurrency}.
+ */
+public class TSPTestDataGenerator {
+
+    private static final AtomicInteger geocodes = new AtomicInteger(), matrices = new AtomicInteger();
+    private static final AtomicInteger elements = new AtomicInteger();
+    private static volatile int failAfter = Integer.MAX_VALUE;
+    private static int latency;
+
+    public static void main(String[] args) throws Exception {
+        Locale.setDefault(Locale.US);
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        int cities = Integer.parseInt(options.getOrDefault("cities", "127"));
+        latency = Integer.parseInt(options.getOrDefault("latency", "20"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+
+        List<String> addresses = new ArrayList<>();
+        for (int i = 1; i <= cities; i++) addresses.add("Testna ulica " + i + ", 1000 Ljubljana");
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        server.setExecutor(executor);
+        server.createContext("/geocode/json", TSPTestDataGenerator::geocode);
+        server.createContext("/distancematrix/json", TSPTestDataGenerator::matrix);
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        Path directory = Files.createTempDirectory("datagenerator");
+
+        boolean passed = true;
+        try {
+            // zaporedno, kot stara koda: en izvor in 25 ciljev na zahtevo
+            MatrixDownloader sequential = downloader(base, 1, directory.resolve("cache-sequential"), null);
+            sequential.setMaxElements(25);
+            sequential.setRateLimits(1e6, 1e6);
+            Path reference = directory.resolve("reference");
+            double seconds = run(sequential, addresses, reference);
+            System.out.printf("sequential, 1x25 blocks: %d requests in %.1f s (the old code also slept 100 ms per request: ~%.0f s)%n",
+                    sequential.getRequests(), seconds, seconds + 0.1 * sequential.getRequests());
+
+            MatrixDownloader pipelined = downloader(base, concurrency, directory.resolve("cache"), directory.resolve("checkpoint"));
+            Path output = directory.resolve("pipelined");
+            seconds = run(pipelined, addresses, output);
+            boolean same = sameFiles(reference, output);
+            passed &= same;
+            System.out.printf("pipelined, %d in flight: %d requests in %.1f s, files %s%n", concurrency,
+                    pipelined.getRequests(), seconds, same ? "identical" : "DIFFERENT");
+
+            MatrixDownloader cached = downloader(base, concurrency, directory.resolve("cache"), directory.resolve("checkpoint"));
+            seconds = run(cached, addresses, output);
+            same = sameFiles(reference, output);
+            passed &= same && cached.getRequests() == 0;
+            System.out.printf("rerun from cache: %d requests, %d cache hits in %.1f s, files %s%n",
+                    cached.getRequests(), cached.getCacheHits(), seconds, same ? "identical" : "DIFFERENT");
+
+            // izpad strežnika sredi matrike, nato nadaljevanje iz kontrolne točke s praznim predpomnilnikom
+            failAfter = geocodes.get() + matrices.get() + cities + 40;
+            MatrixDownloader interrupted = downloader(base, concurrency, directory.resolve("cache-1"), directory.resolve("resume"));
+            try {
+                run(interrupted, addresses, directory.resolve("resumed"));
+                System.out.println("interrupted run did not fail");
+                passed = false;
+            } catch (IOException e) {
+                System.out.println("interrupted run failed as expected: " + e.getMessage());
+            }
+            failAfter = Integer.MAX_VALUE;
+            int before = matrices.get();
+            MatrixDownloader resumed = downloader(base, concurrency, directory.resolve("cache-2"), directory.resolve("resume"));
+            seconds = run(resumed, addresses, directory.resolve("resumed"));
+            int resumedRequests = matrices.get() - before;
+            same = sameFiles(reference, directory.resolve("resumed"));
+            int fullRequests = pipelined.getRequests() - cities;
+            passed &= same && resumedRequests < fullRequests;
+            System.out.printf("resumed: %d of %d matrix requests in %.1f s, files %s%n", resumedRequests,
+                    fullRequests, seconds, same ? "identical" : "DIFFERENT");
+            // posodobitev: dva nova naslova (vmes in na koncu), en odstranjen
+            List<String> older = new ArrayList<>(addresses);
+            older.remove(cities - 1);
+            older.remove(cities / 3);
+            older.add(5, "Stara ulica 1, 1000 Ljubljana");
+            Path incremental = directory.resolve("incremental");
+            run(downloader(base, concurrency, directory.resolve("cache-old"), null), older, incremental);
+            int geocodesBefore = geocodes.get(), elementsBefore = elements.get();
+            MatrixDownloader updater = downloader(base, concurrency, directory.resolve("cache-update"), null);
+            long start = System.nanoTime();
+            DataGenerator.update(updater, addresses, incremental.resolve("distance.tsp").toString(),
+                    incremental.resolve("time.tsp").toString(), incremental.resolve("locations.csv").toString());
+            seconds = (System.nanoTime() - start) / 1e9;
+            int updateElements = elements.get() - elementsBefore, expected = 2 * (2 * cities - 2);
+            same = sameFiles(reference, incremental);
+            passed &= same && updateElements == expected && geocodes.get() - geocodesBefore == 2;
+            System.out.printf("update with 2 new addresses: %d geocodes, %d requests, %d matrix elements (2(2n - 2) = %d, full: %d) in %.1f s, files %s%n",
+                    geocodes.get() - geocodesBefore, updater.getRequests(), updateElements, expected, cities * cities,
+                    seconds, same ? "identical" : "DIFFERENT");
+            System.out.println("stub served " + geocodes.get() + " geocodes and " + matrices.get() + " matrix requests in total");
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        System.out.println(passed ? "OK" : "FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static MatrixDownloader downloader(String base, int concurrency, Path cache, Path checkpoint) {
+        MatrixDownloader downloader = new MatrixDownloader(base, "test-key");
+        downloader.setConcurrency(concurrency);
+        downloader.setCacheDirectory(cache);
+        downloader.setCheckpoint(checkpoint);
+        return downloader;
+    }
+
+    private static double run(MatrixDownloader downloader, List<String> addresses, Path output) throws Exception {
+        Files.createDirectories(output);
+        long start = System.nanoTime();
+        DataGenerator.generate(downloader, addresses, output.resolve("distance.tsp").toString(),
+                output.resolve("time.tsp").toString(), output.resolve("locations.csv").toString());
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static boolean sameFiles(Path a, Path b) throws IOException {
+        for (String name : new String[]{"distance.tsp", "time.tsp", "locations.csv"}) {
+            if (!Arrays.equals(Files.readAllBytes(a.resolve(name)), Files.readAllBytes(b.resolve(name)))) return false;
+        }
+        return true;
+    }
+
+    // --- stub strežnik ---
+
+    private static void geocode(HttpExchange exchange) throws IOException {
+        int request = geocodes.incrementAndGet() + matrices.get();
+        if (request > failAfter) {
+            respond(exchange, 503, "unavailable");
+            return;
+        }
+        String address = query(exchange).get("address");
+        int hash = address.hashCode() & 0x7FFFFFFF;
+        double lat = 45.45 + (hash % 10007) / 10007.0 * 1.3;
+        double lng = 13.7 + (hash / 10007 % 10007) / 10007.0 * 2.8;
+        respond(exchange, 200, String.format("{\"results\":[{\"geometry\":{\"bounds\":{\"northeast\":{\"lat\":%.7f,\"lng\":%.7f}},"
+                + "\"location\":{\"lat\":%.7f,\"lng\":%.7f}}}],\"status\":\"OK\"}", lat + 0.01, lng + 0.01, lat, lng));
+    }
+
+    private static void matrix(HttpExchange exchange) throws IOException {
+        int request = matrices.incrementAndGet();
+        if (request + geocodes.get() > failAfter) {
+            respond(exchange, 503, "unavailable");
+            return;
+        }
+        if (request % 50 == 0) {
+            respond(exchange, 200, "{\"rows\":[],\"status\":\"OVER_QUERY_LIMIT\"}");
+            return;
+        }
+        Map<String, String> query = query(exchange);
+        String[] origins = query.get("origins").split("\\|"), destinations = query.get("destinations").split("\\|");
+        if (origins.length > 25 || destinations.length > 25 || origins.length * destinations.length > 100) {
+            respond(exchange, 200, "{\"rows\":[],\"status\":\"MAX_ELEMENTS_EXCEEDED\"}");
+            return;
+        }
+        elements.addAndGet(origins.length * destinations.length);
+        StringBuilder json = new StringBuilder("{\"rows\":[");
+        for (int i = 0; i < origins.length; i++) {
+            json.append(i > 0 ? "," : "").append("{\"elements\":[");
+            for (int j = 0; j < destinations.length; j++) {
+                long meters = Math.round(1.3 * haversine(origins[i], destinations[j]));
+                json.append(j > 0 ? "," : "").append("{\"distance\":{\"text\":\"\",\"value\":").append(meters)
+                        .append("},\"duration\":{\"text\":\"\",\"value\":").append(meters / 14)
+                        .append("},\"status\":\"OK\"}");
+            }
+            json.append("]}");
+        }
+        json.append("],\"status\":\"OK\"}");
+        respond(exchange, 200, json.toString());
+    }
+
+    private static double haversine(String from, String to) {
+        String[] a = from.split(","), b = to.split(",");
+        double lat1 = Math.toRadians(Double.parseDouble(a[0])), lat2 = Math.toRadians(Double.parseDouble(b[0]));
+        double dLat = lat2 - lat1, dLon = Math.toRadians(Double.parseDouble(b[1]) - Double.parseDouble(a[1]));
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * 6371000 * Math.asin(Math.sqrt(h));
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String pair : exchange.getRequestURI().getQuery().split("&")) {
+            String[] parts = pair.split("=", 2);
+            if (parts.length == 2) parameters.put(parts[0], parts[1]);
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
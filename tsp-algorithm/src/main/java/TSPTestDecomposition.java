@@ -0,0 +1,94 @@
+import Utility.RandomUtils;
+import algorithms.GA;
+import algorithms.IncrementalSolver;
+import algorithms.Solver;
+import algorithms.decomposition.DecompositionSolver;
+import benchmark.BenchmarkRunner;
+import problems.TSP;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Checks the decomposition solver: quality against the known optima of pr1002 and dca1389, and
+ * wall time and tour length on large synthetic instances with one thread and with all cores.
+ * <p>
+ * Optional arguments as {@code key=value}: {@code sizes} (comma separated synthetic instance sizes,
+ * default {@code 20000}), {@code cluster} (cities per cluster), {@code partitioning}
+ * ({@code KMEANS} or {@code GRID}), {@code solver} ({@code ils} or {@code ga}), {@code evals}
+ * (evaluations per city for the GA), {@code seed}.
+ */
+public class TSPTestDecomposition {
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        int clusterSize = Integer.parseInt(options.getOrDefault("cluster", "200"));
+        DecompositionSolver.Partitioning partitioning =
+                DecompositionSolver.Partitioning.valueOf(options.getOrDefault("partitioning", "KMEANS"));
+        int evaluationsPerCity = Integer.parseInt(options.getOrDefault("evals", "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "123"));
+        Supplier<Solver> clusterSolver = options.getOrDefault("solver", "ils").equals("ga") ? () -> {
+            GA ga = new GA(100, 0.8, 0.1);
+            ga.setAdaptive(true);
+            return ga;
+        } : IncrementalSolver::new;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-20s %8s %8s %14s %10s %10s%n", "instance", "cities", "threads", "length", "gap %", "wall ms");
+        for (String instance : new String[]{"pr1002.tsp", "dca1389.tsp"}) {
+            TSP info = new TSP(instance, 0);
+            double optimum = BenchmarkRunner.KNOWN_OPTIMA.get(instance);
+            TSP problem = new TSP(instance, evaluationsPerCity * info.getNumberOfCities());
+            run(instance, problem, clusterSolver, clusterSize, partitioning, cores, seed, optimum);
+        }
+
+        for (String size : options.getOrDefault("sizes", "20000").split(",")) {
+            int n = Integer.parseInt(size.trim());
+            // enakomerno naključne točke na kvadratu; pričakovana optimalna dolžina ~ 0.7124 * sqrt(n * A)
+            Random random = new Random(seed);
+            double side = 1_000_000;
+            double[] xs = new double[n], ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = random.nextDouble() * side;
+                ys[i] = random.nextDouble() * side;
+            }
+            double estimate = 0.7124 * Math.sqrt(n * side * side);
+            String name = "uniform" + n;
+            for (int threads : cores > 1 ? new int[]{1, cores} : new int[]{1}) {
+                TSP problem = TSP.euclidean(name, xs, ys, evaluationsPerCity * n);
+                run(name + " (est.)", problem, clusterSolver, clusterSize, partitioning, threads, seed, estimate);
+            }
+        }
+    }
+
+    private static void run(String name, TSP problem, Supplier<Solver> clusterSolver, int clusterSize,
+                            DecompositionSolver.Partitioning partitioning, int threads, long seed, double reference) {
+        RandomUtils.setSeed(seed);
+        DecompositionSolver solver = new DecompositionSolver(clusterSolver);
+        solver.setClusterSize(clusterSize);
+        solver.setPartitioning(partitioning);
+        solver.setParallelism(threads);
+        long start = System.nanoTime();
+        TSP.Tour tour = solver.execute(problem);
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        checkPermutation(tour, problem.getNumberOfCities());
+        System.out.printf("%-20s %8d %8d %14.2f %10.2f %10d%n", name, problem.getNumberOfCities(), threads,
+                tour.getDistance(), 100 * (tour.getDistance() - reference) / reference, millis);
+    }
+
+    private static void checkPermutation(TSP.Tour tour, int n) {
+        boolean[] seen = new boolean[n];
+        for (TSP.City city : tour.getPath()) {
+            if (seen[city.index - 1]) throw new IllegalStateException("City " + city.index + " visited twice");
+            seen[city.index - 1] = true;
+        }
+    }
+}
@@ -80,7 +80,7 @@ public class TSPTestDirect4me {
                         
                         StringBuilder sb = new StringBuilder();
                         for (TSP.City city : bestGlobalTour.getPath()) {
-                            sb.append(city.index).append("\n"); 
+                            sb.append(city.realId).append("\n");
                         }
                         writer.write(sb.toString());
                         writer.write("-1");
@@ -0,0 +1,111 @@
+import Utility.RandomUtils;
+import problems.TSP;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks the rule by which GA rejects duplicate offspring ({@link TSP.Tour#isDuplicateOf}, directed on
+ * asymmetric instances) against {@link TSP#evaluate}: every rotation and the reverse of random tours
+ * is compared with the tour, and two tours the rule calls duplicates must have the same length. On
+ * symmetric instances the reverse must still count as a duplicate. Also checks that the edge hash
+ * kept up to date by {@code swap} and {@code reverse} equals a freshly computed one. Exits with
+ * status 1 on the first violation.
+ * <p>
+ * Optional arguments as {@code key=value}: {@code tours}, {@code moves} (swaps and reversals per
+ * tour), {@code seed}.
+ */
+public class TSPTestDuplicates {
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        int tours = Integer.parseInt(options.getOrDefault("tours", "20"));
+        int moves = Integer.parseInt(options.getOrDefault("moves", "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        boolean passed = true;
+        for (String instance : new String[]{"bays29.tsp", "eil101.tsp", "direct4me_time.tsp"}) {
+            passed &= check(instance, tours, moves, seed);
+        }
+        System.out.println(passed ? "OK" : "FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(String instance, int tours, int moves, long seed) {
+        RandomUtils.setSeed(seed);
+        Random random = new Random(seed);
+        TSP problem = new TSP(instance, 0);
+        int n = problem.getNumberOfCities();
+        boolean directed = !problem.isSymmetric();
+        int differentRotations = 0;
+        for (int t = 0; t < tours; t++) {
+            TSP.Tour tour = problem.generateTour();
+            problem.evaluate(tour);
+
+            // zasuki: enaka množica robov, drugačen rez pri začetnem mestu
+            for (int shift = 1; shift < n; shift++) {
+                TSP.Tour rotated = copy(tour, shift, false);
+                problem.evaluate(rotated);
+                boolean same = sameLength(rotated, tour);
+                if (!same) differentRotations++;
+                if (rotated.isDuplicateOf(tour, directed) && !same) {
+                    System.out.printf("%s: rotation by %d is a duplicate but has length %.1f instead of %.1f%n",
+                            instance, shift, rotated.getDistance(), tour.getDistance());
+                    return false;
+                }
+            }
+
+            TSP.Tour reversed = copy(tour, 0, true);
+            problem.evaluate(reversed);
+            boolean duplicate = reversed.isDuplicateOf(tour, directed);
+            if (duplicate && !sameLength(reversed, tour) || !directed && !duplicate) {
+                System.out.printf("%s: reverse %s a duplicate with length %.1f instead of %.1f%n", instance,
+                        duplicate ? "is" : "is not", reversed.getDistance(), tour.getDistance());
+                return false;
+            }
+
+            // hash, posodobljen ob premikih, se mora ujemati s sveže izračunanim
+            TSP.Tour moved = copy(tour, 0, false);
+            moved.getHash();
+            for (int m = 0; m < moves; m++) {
+                int i = random.nextInt(n), j = random.nextInt(n);
+                if (random.nextBoolean()) moved.swap(i, j);
+                else moved.reverse(Math.min(i, j), Math.max(i, j));
+                if (moved.getHash() != copy(moved, 0, false).getHash()) {
+                    System.out.printf("%s: hash after move %d differs from a fresh one%n", instance, m + 1);
+                    return false;
+                }
+            }
+        }
+        System.out.printf("%s: %d tours, %d rotations with another length all kept apart, reverse %s%n", instance,
+                tours, differentRotations, directed ? "kept apart when longer" : "a duplicate");
+        return true;
+    }
+
+    // evklidske dolžine se pri drugem vrstnem redu seštevanja razlikujejo v zadnjih bitih
+    private static boolean sameLength(TSP.Tour a, TSP.Tour b) {
+        return Math.abs(a.getDistance() - b.getDistance()) <= 1e-9 * Math.max(1, Math.abs(a.getDistance()));
+    }
+
+    // nova tura (brez shranjenega hasha) z mesti, zamaknjenimi za shift ali v obratnem vrstnem redu
+    private static TSP.Tour copy(TSP.Tour tour, int shift, boolean reverse) {
+        TSP.City[] path = tour.getPath();
+        int n = path.length;
+        TSP.City[] result = new TSP.City[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = reverse ? path[n - 1 - i] : path[(i + shift) % n];
+        }
+        TSP.Tour copy = new TSP.Tour(n);
+        copy.setPath(result);
+        return copy;
+    }
+}
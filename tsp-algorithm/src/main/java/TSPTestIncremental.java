@@ -0,0 +1,96 @@
+import Utility.RandomUtils;
+import algorithms.GA;
+import algorithms.IncrementalSolver;
+import problems.TSP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Adds and removes random stops one at a time and checks that re-optimizing the previous route
+ * with {@link IncrementalSolver} is as good as solving every selection from scratch with the GA.
+ * Exits with status 1 if the incremental routes are noticeably worse.
+ */
+public class TSPTestIncremental {
+
+    static final int STEPS = 40;
+    static final int MIN_STOPS = 8, MAX_STOPS = 30;
+    static final double MAX_MEAN_GAP = 0.01; //1 %
+    static final double MAX_GAP = 0.03;
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        RandomUtils.setSeed(args.length > 0 ? Long.parseLong(args[0]) : 42);
+
+        boolean passed = true;
+        for (String file : new String[]{"direct4me_distance.tsp", "direct4me_time.tsp"}) {
+            passed &= run(new TSP(file, 0), file);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    static boolean run(TSP fullProblem, String name) {
+        List<Integer> allIds = new ArrayList<>();
+        for (int i = 0; i < fullProblem.getNumberOfCities(); i++) {
+            allIds.add(fullProblem.getCity(i).realId);
+        }
+        List<Integer> selection = new ArrayList<>();
+        while (selection.size() < 15) {
+            Integer id = allIds.get(RandomUtils.nextInt(allIds.size()));
+            if (!selection.contains(id)) selection.add(id);
+        }
+
+        List<Integer> route = new ArrayList<>();
+        double gapSum = 0, maxGap = 0;
+        long coldNanos = 0, warmNanos = 0;
+        System.out.println(name);
+        for (int step = 0; step <= STEPS; step++) {
+            if (step > 0) {
+                boolean add = selection.size() <= MIN_STOPS
+                        || (selection.size() < MAX_STOPS && RandomUtils.nextDouble() < 0.5);
+                if (add) {
+                    Integer id;
+                    do {
+                        id = allIds.get(RandomUtils.nextInt(allIds.size()));
+                    } while (selection.contains(id));
+                    selection.add(id);
+                } else {
+                    selection.remove(RandomUtils.nextInt(selection.size()));
+                }
+            }
+
+            long start = System.nanoTime();
+            GA ga = new GA(100, 0.8, 0.1);
+            ga.setAdaptive(true);
+            TSP.Tour cold = ga.execute(fullProblem.generateSubproblem(selection));
+            coldNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            IncrementalSolver solver = new IncrementalSolver();
+            solver.setPreviousRoute(route);
+            TSP.Tour warm = solver.execute(fullProblem.generateSubproblem(selection));
+            warmNanos += System.nanoTime() - start;
+
+            route = new ArrayList<>();
+            for (TSP.City city : warm.getPath()) {
+                route.add(city.realId);
+            }
+
+            double gap = (warm.getDistance() - cold.getDistance()) / cold.getDistance();
+            gapSum += gap;
+            maxGap = Math.max(maxGap, gap);
+            System.out.printf("%3d  stops=%2d  cold=%12.1f  incremental=%12.1f  gap=%6.2f %%%n",
+                    step, selection.size(), cold.getDistance(), warm.getDistance(), 100 * gap);
+        }
+
+        double meanGap = gapSum / (STEPS + 1);
+        System.out.printf("mean gap %.2f %%, max gap %.2f %%, cold %.1f ms/step, incremental %.2f ms/step%n",
+                100 * meanGap, 100 * maxGap, coldNanos / 1e6 / (STEPS + 1), warmNanos / 1e6 / (STEPS + 1));
+        boolean passed = meanGap <= MAX_MEAN_GAP && maxGap <= MAX_GAP;
+        System.out.println(passed ? "OK" : "FAILED");
+        return passed;
+    }
+}
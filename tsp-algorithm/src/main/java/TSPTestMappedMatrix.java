@@ -0,0 +1,110 @@
+import Utility.RandomUtils;
+import algorithms.GA;
+import algorithms.localsearch.LocalSearch;
+import problems.MappedMatrix;
+import problems.TSP;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Checks that instances with a memory-mapped matrix give the same tour lengths as on the heap, then
+ * solves a random instance whose matrix is written straight to a mapped file. Run it with a small
+ * heap (e.g. {@code -Xmx256m}) to see that the matrix stays off the heap. Exits with status 1 on a
+ * mismatch.
+ * <p>
+ * Optional arguments as {@code key=value}: {@code cities} (size of the random instance),
+ * {@code layout} ({@code triangle} or {@code full}), {@code seed}.
+ */
+public class TSPTestMappedMatrix {
+
+    public static void main(String[] args) throws IOException {
+        Locale.setDefault(Locale.US);
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        int cities = Integer.parseInt(options.getOrDefault("cities", "20000"));
+        boolean triangle = !options.getOrDefault("layout", "triangle").equals("full");
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        boolean passed = compare("bays29.tsp", true, seed)
+                & compare("bays29.tsp", false, seed)
+                & compare("direct4me_distance.tsp", false, seed)
+                & compare("direct4me_time.tsp", false, seed);
+        large(cities, triangle, seed);
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    // isti seme: GA na kopici in na preslikani matriki mora dati enako dolžino
+    private static boolean compare(String instance, boolean triangle, long seed) throws IOException {
+        Path file = Files.createTempFile("tsp", ".matrix");
+        try {
+            TSP heap = new TSP(instance, 20000);
+            TSP mapped;
+            try (InputStream in = TSP.class.getClassLoader().getResourceAsStream(instance)) {
+                mapped = new TSP(in, 20000, file, triangle);
+            }
+            RandomUtils.setSeed(seed);
+            double heapLength = new GA(50, 0.8, 0.1).execute(heap).getDistance();
+            RandomUtils.setSeed(seed);
+            double mappedLength = new GA(50, 0.8, 0.1).execute(mapped).getDistance();
+            boolean same = heapLength == mappedLength;
+            System.out.printf("%-24s %-8s heap %12.1f  mapped %12.1f  %s%n", instance,
+                    triangle ? "triangle" : "full", heapLength, mappedLength, same ? "OK" : "MISMATCH");
+            return same;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // naključna mesta, zaokrožene evklidske razdalje zapišemo neposredno v datoteko
+    private static void large(int n, boolean triangle, long seed) throws IOException {
+        RandomUtils.setSeed(seed);
+        double[] xs = new double[n], ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = RandomUtils.nextInt(1_000_000);
+            ys[i] = RandomUtils.nextInt(1_000_000);
+        }
+        Path file = Files.createTempFile("tsp", ".matrix");
+        try {
+            long start = System.nanoTime();
+            MappedMatrix matrix = MappedMatrix.create(file, n, triangle);
+            for (int i = 0; i < n; i++) {
+                for (int j = triangle ? i : 0; j < n; j++) {
+                    matrix.set(i, j, (int) Math.round(Math.hypot(xs[i] - xs[j], ys[i] - ys[j])));
+                }
+            }
+            matrix.force();
+            double writeSeconds = (System.nanoTime() - start) / 1e9;
+
+            TSP problem = TSP.explicit("random" + n, matrix, 0);
+            // začetna tura po Hilbertovi krivulji koordinat, nato lokalno iskanje na preslikani matriki
+            start = System.nanoTime();
+            TSP.Tour tour = new TSP.Tour(n);
+            TSP.City[] hilbert = TSP.euclidean("coordinates", xs, ys, 0).generateHilbertTour().getPath();
+            for (int i = 0; i < n; i++) {
+                tour.setCity(i, problem.getCity(hilbert[i].realId - 1));
+            }
+            new LocalSearch(problem).optimize(tour);
+            problem.evaluate(tour);
+            double solveSeconds = (System.nanoTime() - start) / 1e9;
+
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("random %d cities, %s: matrix %.0f MB in %s, written in %.1f s%n", n,
+                    triangle ? "triangle" : "full", matrix.sizeInBytes() / 1e6, file, writeSeconds);
+            System.out.printf("local search %.1f s, length %.0f, heap used %.0f MB of max %.0f MB%n", solveSeconds,
+                    tour.getDistance(), (runtime.totalMemory() - runtime.freeMemory()) / 1e6, runtime.maxMemory() / 1e6);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
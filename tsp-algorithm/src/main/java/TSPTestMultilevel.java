@@ -0,0 +1,107 @@
+import Utility.RandomUtils;
+import Utility.Statistics;
+import algorithms.GA;
+import algorithms.RunControl;
+import algorithms.multilevel.MultilevelSolver;
+import benchmark.BenchmarkRunner;
+import problems.TSP;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares the multilevel solver with the plain GA on pr1002 and dca1389 by time to quality: for
+ * every multilevel setting the table shows the mean length and wall time, and how long the GA needed
+ * to reach that length (median over the GA runs that reached it).
+ * <p>
+ * Optional arguments as {@code key=value}: {@code runs}, {@code cycles} (cycles of the iterated
+ * multilevel setting), {@code evals} (GA evaluations per city), {@code seed}.
+ */
+public class TSPTestMultilevel {
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int cycles = Integer.parseInt(options.getOrDefault("cycles", "20"));
+        int evaluationsPerCity = Integer.parseInt(options.getOrDefault("evals", "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "123"));
+
+        for (String instance : new String[]{"pr1002.tsp", "dca1389.tsp"}) {
+            double optimum = BenchmarkRunner.KNOWN_OPTIMA.get(instance);
+            int n = new TSP(instance, 0).getNumberOfCities();
+
+            // GA: potek najboljše razdalje skozi čas za vsak zagon
+            List<List<double[]>> traces = new ArrayList<>();
+            double[] gaLength = new double[runs], gaMillis = new double[runs];
+            for (int run = 0; run < runs; run++) {
+                RandomUtils.setSeed(BenchmarkRunner.runSeed(seed, 0, run));
+                List<double[]> trace = new ArrayList<>();
+                RunControl control = new RunControl();
+                control.setProgressListener((best, evaluations, millis) ->
+                        trace.add(new double[]{millis, best.getDistance()}), 0);
+                GA ga = new GA(100, 0.8, 0.1);
+                ga.setAdaptive(true);
+                ga.setRunControl(control);
+                long start = System.nanoTime();
+                gaLength[run] = ga.execute(new TSP(instance, evaluationsPerCity * n)).getDistance();
+                gaMillis[run] = (System.nanoTime() - start) / 1e6;
+                traces.add(trace);
+            }
+
+            System.out.println(instance + " (optimum " + optimum + ")");
+            System.out.printf("%-22s %14s %8s %10s %16s%n", "solver", "mean length", "gap %", "mean ms", "GA ms to reach");
+            for (int c : new int[]{1, cycles}) {
+                double[] length = new double[runs], millis = new double[runs];
+                for (int run = 0; run < runs; run++) {
+                    RandomUtils.setSeed(BenchmarkRunner.runSeed(seed, 0, run));
+                    MultilevelSolver solver = new MultilevelSolver();
+                    solver.setCycles(c);
+                    TSP problem = new TSP(instance, evaluationsPerCity * n);
+                    long start = System.nanoTime();
+                    TSP.Tour tour = solver.execute(problem);
+                    millis[run] = (System.nanoTime() - start) / 1e6;
+                    checkPermutation(tour, n);
+                    length[run] = tour.getDistance();
+                }
+                print("multilevel, " + c + (c == 1 ? " cycle" : " cycles"), length, millis, optimum, traces);
+            }
+            print("GA (" + evaluationsPerCity + " evals/city)", gaLength, gaMillis, optimum, traces);
+            System.out.println();
+        }
+    }
+
+    private static void print(String name, double[] length, double[] millis, double optimum, List<List<double[]>> traces) {
+        double mean = Statistics.mean(length);
+        double[] reached = new double[traces.size()];
+        int hits = 0;
+        for (List<double[]> trace : traces) {
+            for (double[] point : trace) {
+                if (point[1] <= mean) {
+                    reached[hits++] = point[0];
+                    break;
+                }
+            }
+        }
+        String toReach = hits == 0 ? "never"
+                : String.format("%.0f (%d/%d)", Statistics.median(Arrays.copyOf(reached, hits)), hits, traces.size());
+        System.out.printf("%-22s %14.2f %8.2f %10.1f %16s%n", name, mean, 100 * (mean - optimum) / optimum,
+                Statistics.mean(millis), toReach);
+    }
+
+    private static void checkPermutation(TSP.Tour tour, int n) {
+        boolean[] seen = new boolean[n];
+        for (TSP.City city : tour.getPath()) {
+            if (seen[city.index - 1]) throw new IllegalStateException("City " + city.index + " visited twice");
+            seen[city.index - 1] = true;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import algorithms.localsearch.TwoLevelList;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Cross-checks {@link TwoLevelList} against a plain array tour. Every random flip is applied to both,
+ * after which {@code next}, {@code prev} and {@code sequence} must describe the same cycle as the array
+ * (in either direction, since a flip may reverse the complement) and random {@code between} queries
+ * must agree. Half of the flips are short, so they stay inside one segment; the others split segments,
+ * and enough of them force rebuilds. Reports per size how often the list reversed the complement and
+ * exits with status 1 on the first mismatch.
+ * <p>
+ * Optional arguments as {@code key=value}: {@code sizes} (comma separated), {@code flips},
+ * {@code queries} (between checks per flip), {@code seed}.
+ */
+public class TSPTestTwoLevelList {
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        String[] sizes = options.getOrDefault("sizes", "5,10,64,100,1000,5000").split(",");
+        int flips = Integer.parseInt(options.getOrDefault("flips", "20000"));
+        int queries = Integer.parseInt(options.getOrDefault("queries", "20"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        boolean passed = true;
+        for (String size : sizes) {
+            passed &= check(Integer.parseInt(size.trim()), flips, queries, new Random(seed));
+        }
+        System.out.println(passed ? "OK" : "FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(int n, int flips, int queries, Random random) {
+        // referenčna tura: mesta po položajih in položaj mesta
+        int[] order = new int[n], position = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        for (int i = 0; i < n; i++) position[order[i]] = i;
+
+        TwoLevelList list = new TwoLevelList(n);
+        list.build(order);
+        boolean forward = true;
+        int complements = 0;
+        long start = System.nanoTime();
+        for (int f = 0; f < flips; f++) {
+            int a = random.nextInt(n), b = list.next(a);
+            // polovica kratkih poti, ki ostanejo v enem segmentu
+            int steps = random.nextBoolean() ? 1 + random.nextInt(Math.max(1, Math.min(n - 1, 8))) : 1 + random.nextInt(n - 1);
+            int c = a;
+            for (int k = 0; k < steps; k++) c = list.next(c);
+            if (c == a) continue;
+            int d = list.next(c);
+            list.flip(a, b, c, d);
+
+            // v referenci obrnemo isto pot (v njeni smeri od b do c, sicer od c do b)
+            if (b != c && d != a) {
+                if (forward) reverse(order, position, position[b], position[c]);
+                else reverse(order, position, position[c], position[b]);
+            }
+            boolean nowForward = n < 3 || list.next(order[0]) == order[1];
+            if (nowForward != forward) complements++;
+            forward = nowForward;
+
+            String error = compare(list, order, position, forward, queries, random);
+            if (error != null) {
+                System.out.printf("n=%d: mismatch after flip %d (%d %d %d %d): %s%n", n, f + 1, a, b, c, d, error);
+                return false;
+            }
+        }
+        System.out.printf("n=%d: %d flips agree, %d reversed the complement (%.1f us per flip and check)%n",
+                n, flips, complements, (System.nanoTime() - start) / 1e3 / Math.max(1, flips));
+        return true;
+    }
+
+    // obrne ciklični odsek referenčne ture od položaja p do položaja q
+    private static void reverse(int[] order, int[] position, int p, int q) {
+        int n = order.length;
+        int length = (q - p + n) % n + 1;
+        for (int k = 0; k < length / 2; k++) {
+            int i = (p + k) % n, j = (q - k + n) % n;
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+            position[order[i]] = i;
+            position[order[j]] = j;
+        }
+    }
+
+    private static String compare(TwoLevelList list, int[] order, int[] position, boolean forward, int queries,
+                                  Random random) {
+        int n = order.length;
+        for (int i = 0; i < n; i++) {
+            int c = order[i], after = order[(i + 1) % n], before = order[(i - 1 + n) % n];
+            int next = forward ? after : before, prev = forward ? before : after;
+            if (list.next(c) != next) return "next(" + c + ") = " + list.next(c) + ", expected " + next;
+            if (list.prev(c) != prev) return "prev(" + c + ") = " + list.prev(c) + ", expected " + prev;
+        }
+        int[] sequence = new int[n];
+        list.sequence(order[0], sequence);
+        for (int i = 0; i < n; i++) {
+            int expected = order[forward ? i : (n - i) % n];
+            if (sequence[i] != expected) return "sequence[" + i + "] = " + sequence[i] + ", expected " + expected;
+        }
+        for (int q = 0; q < queries; q++) {
+            int a = random.nextInt(n), b = random.nextInt(n), c = random.nextInt(n);
+            // pot od a do c v smeri seznama je v referenci pot od a do c ali od c do a
+            boolean expected = forward ? between(position, a, b, c) : between(position, c, b, a);
+            if (list.between(a, b, c) != expected) return "between(" + a + ", " + b + ", " + c + ") != " + expected;
+        }
+        return null;
+    }
+
+    private static boolean between(int[] position, int a, int b, int c) {
+        int n = position.length;
+        return (position[b] - position[a] + n) % n <= (position[c] - position[a] + n) % n;
+    }
+}
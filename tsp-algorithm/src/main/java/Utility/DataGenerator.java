@@ -1,27 +1,28 @@
 package Utility;
 
+import problems.DistanceMatrix;
+import problems.TSP;
+
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 public class DataGenerator {
 
-    private static final String API_KEY = loadApiKeyFromEnv();
-
     private static final String[] RAW_ADDRESSES = {
             "Goriška cesta 24, 5270 Ajdovščina", "Čolnikov trg 9, 2234 Benedikt", "Ljubljanska cesta 10, 4260 Bled",
             "Trg svobode 2 C, 4264 Bohinjska Bistrica", "Molkov trg 12, 1353 Borovnica", "Obrobna ulica 1, 2354 Bresternica",
@@ -74,8 +75,6 @@ public class DataGenerator {
         public Location(int id, String address) { this.id = id; this.address = address; }
     }
 
-    private static final HttpClient client = HttpClient.newHttpClient();
-
     private static String loadApiKeyFromEnv() {
         String[] possiblePaths = {
             ".env",
@@ -114,134 +113,205 @@ public class DataGenerator {
         return "TU_PRILEPI_SVOJ_GOOGLE_API_KEY";
     }
 
+    /**
+     * Builds both direct4me matrices and the list of locations. Optional arguments as {@code key=value}:
+     * {@code base} (API base URL), {@code concurrency}, {@code cache} (directory of cached responses),
+     * {@code checkpoint} (file of finished rows), {@code out} (directory of the output files) and
+     * {@code update=true} to only add the addresses missing from the existing files.
+     */
     public static void main(String[] args) {
         System.out.println("ZACENJAM GENERIRANJE PODATKOV Z GOOGLE API...");
 
-        if (API_KEY.contains("TU_PRILEPI") || API_KEY.length() < 20) {
+        String apiKey = loadApiKeyFromEnv();
+        if (apiKey.contains("TU_PRILEPI") || apiKey.length() < 20) {
             System.err.println("NAPAKA: API kljuc izgleda neveljaven ali prazen! Preveri .env datoteko.");
-            System.err.println("Prebran kljuc: '" + API_KEY + "'");
+            System.err.println("Prebran kljuc: '" + apiKey + "'");
             return;
         }
 
-        try {
-            List<Location> locations = new ArrayList<>();
-            int idCounter = 1;
-
-            System.out.println("\n--- 1. Geocoding (Google Maps) ---");
-            for (String addr : RAW_ADDRESSES) {
-                String fullAddr = addr + ", Slovenia";
-                String encodedAddr = URLEncoder.encode(fullAddr, StandardCharsets.UTF_8);
-                String url = "https://maps.googleapis.com/maps/api/geocode/json?address=" + encodedAddr + "&key=" + API_KEY;
-
-                String json = sendRequest(url);
-                
-                Double lat = extractValue(json, "\"lat\"\\s*:\\s*([0-9.]+)");
-                Double lng = extractValue(json, "\"lng\"\\s*:\\s*([0-9.]+)");
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length == 2) options.put(parts[0], parts[1]);
+        }
+        MatrixDownloader downloader = new MatrixDownloader(options.getOrDefault("base", MatrixDownloader.GOOGLE_MAPS_API), apiKey);
+        downloader.setConcurrency(Integer.parseInt(options.getOrDefault("concurrency", "8")));
+        downloader.setCacheDirectory(Paths.get(options.getOrDefault("cache", "tsp-algorithm/build/google-cache")));
+        downloader.setCheckpoint(Paths.get(options.getOrDefault("checkpoint", "tsp-algorithm/build/direct4me.checkpoint")));
+        String out = options.getOrDefault("out", "tsp-algorithm/src/main/resources");
+        String distanceFile = out + "/direct4me_distance.tsp", timeFile = out + "/direct4me_time.tsp";
+        String locationsFile = out + "/direct4me_locations.csv";
 
-                if (lat != null && lng != null) {
-                    Location loc = new Location(idCounter++, addr);
-                    loc.lat = lat;
-                    loc.lon = lng;
-                    locations.add(loc);
-                    System.out.println(addr + " -> " + lat + ", " + lng);
-                } else {
-                    System.err.println("ERROR za: " + addr);
-                    System.err.println("ODGOVOR GOOGLA: " + json);
-                    
-                    if (json.contains("REQUEST_DENIED") || json.contains("OVER_QUERY_LIMIT")) {
-                        System.err.println("USTAVLJAM PROGRAM ZARADI API NAPAKE.");
-                        return;
-                    }
-                }
-                Thread.sleep(100); 
-            }
-            
-            if (locations.isEmpty()) {
-                System.err.println("Nismo dobili nobenih lokacij. Prekinitve.");
-                return;
+        try {
+            if (Boolean.parseBoolean(options.get("update"))) {
+                update(downloader, Arrays.asList(RAW_ADDRESSES), distanceFile, timeFile, locationsFile);
+            } else {
+                generate(downloader, Arrays.asList(RAW_ADDRESSES), distanceFile, timeFile, locationsFile);
             }
+            System.out.println("KONCANO! Datoteke so pripravljene.");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-            System.out.println("\n--- 2. Distance Matrix (Vsi do vseh) ---");
-            int size = locations.size();
-            long[][] distanceMatrix = new long[size][size]; 
-            long[][] timeMatrix = new long[size][size];     
+    /**
+     * Geocodes the addresses (in Slovenia), downloads the distance and time matrices between the found
+     * locations and writes them as TSPLIB files named {@code direct4me_distance} and {@code direct4me_time},
+     * together with the locations as {@code ID;Address;Latitude;Longitude}.
+     */
+    public static void generate(MatrixDownloader downloader, List<String> addresses, String distanceFile, String timeFile,
+                                String locationsFile) throws IOException, InterruptedException {
+        System.out.println("\n--- 1. Geocoding (Google Maps) ---");
+        List<Location> locations = downloader.geocode(addresses, ", Slovenia");
+        if (locations.isEmpty()) {
+            throw new IOException("Nismo dobili nobenih lokacij.");
+        }
+        System.out.println(locations.size() + "/" + addresses.size() + " naslovov najdenih");
 
-            for (int i = 0; i < size; i++) {
-                Location origin = locations.get(i);
-                System.out.printf("Procesiram izvor %d/%d: %s...%n", (i+1), size, origin.address);
+        System.out.println("\n--- 2. Distance Matrix (Vsi do vseh) ---");
+        long[][][] matrices = downloader.downloadMatrices(locations);
+        System.out.println("Zahtev: " + downloader.getRequests() + ", iz predpomnilnika: " + downloader.getCacheHits());
 
-                for (int j = 0; j < size; j += 25) {
-                    StringBuilder destCoords = new StringBuilder();
-                    int end = Math.min(j + 25, size);
-                    
-                    for (int k = j; k < end; k++) {
-                        if (k > j) destCoords.append("%7C");
-                        destCoords.append(locations.get(k).lat).append(",").append(locations.get(k).lon);
-                    }
+        System.out.println("\n--- 3. Shranjevanje ---");
+        save(locations, matrices[0], matrices[1], distanceFile, timeFile, locationsFile);
+    }
 
-                    String url = "https://maps.googleapis.com/maps/api/distancematrix/json" +
-                            "?origins=" + origin.lat + "," + origin.lon +
-                            "&destinations=" + destCoords.toString() +
-                            "&key=" + API_KEY;
+    /**
+     * Brings files written by {@link #generate} up to date with {@code addresses}: only the addresses
+     * missing from the locations file are geocoded, and only the matrix cells from and to them are
+     * downloaded ({@code 2n - 1} per added location). Locations whose address is gone are dropped. The
+     * result is ordered like {@code addresses}, as a full rebuild would be. Without a locations file
+     * everything is generated.
+     */
+    public static void update(MatrixDownloader downloader, List<String> addresses, String distanceFile, String timeFile,
+                              String locationsFile) throws IOException, InterruptedException {
+        if (!Files.isRegularFile(Paths.get(locationsFile))) {
+            System.out.println("Ni " + locationsFile + ", generiram vse.");
+            generate(downloader, addresses, distanceFile, timeFile, locationsFile);
+            return;
+        }
+        System.out.println("\n--- 1. Branje obstoječih datotek ---");
+        List<Location> existing = readLocationsFile(locationsFile);
+        long[][] oldDistance = readMatrixFile(distanceFile, existing.size());
+        long[][] oldTime = readMatrixFile(timeFile, existing.size());
+        Map<String, Integer> oldIndex = new HashMap<>();
+        for (int i = 0; i < existing.size(); i++) oldIndex.put(existing.get(i).address, i);
 
-                    String json = sendRequest(url);
-                    
-                    if (json.contains("error_message")) {
-                         System.err.println("MATRIX ERROR: " + json);
-                    }
+        System.out.println("\n--- 2. Geocoding novih naslovov ---");
+        List<String> added = new ArrayList<>();
+        for (String address : addresses) {
+            if (!oldIndex.containsKey(address)) added.add(address);
+        }
+        Map<String, Location> geocoded = new HashMap<>();
+        if (!added.isEmpty()) {
+            for (Location location : downloader.geocode(added, ", Slovenia")) geocoded.put(location.address, location);
+        }
+        System.out.println(existing.size() + " obstoječih, " + geocoded.size() + "/" + added.size() + " novih naslovov najdenih");
 
-                    parseGoogleMatrixResponse(json, distanceMatrix, timeMatrix, i, j, end);
-                    Thread.sleep(100); 
-                }
+        // vrstni red kot pri ponovnem generiranju; known[i] = vrstica in stolpec sta že v datotekah
+        List<Location> locations = new ArrayList<>();
+        List<Integer> previous = new ArrayList<>();
+        for (String address : addresses) {
+            Integer index = oldIndex.get(address);
+            Location location = index != null ? existing.get(index) : geocoded.get(address);
+            if (location == null) continue;
+            location.id = locations.size() + 1;
+            locations.add(location);
+            previous.add(index);
+        }
+        int n = locations.size();
+        if (n == existing.size() && geocoded.isEmpty() && sameOrder(previous)) {
+            System.out.println("Ni sprememb.");
+            return;
+        }
+        long[][] distance = new long[n][n], time = new long[n][n];
+        boolean[] known = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Integer from = previous.get(i);
+            if (from == null) continue;
+            known[i] = true;
+            for (int j = 0; j < n; j++) {
+                Integer to = previous.get(j);
+                if (to == null) continue;
+                distance[i][j] = oldDistance[from][to];
+                time[i][j] = oldTime[from][to];
             }
+        }
 
-            System.out.println("\n--- 3. Shranjevanje ---");
-            saveFullMatrixFile("tsp-algorithm/src/main/resources/direct4me_distance.tsp", "direct4me_distance", locations, distanceMatrix, false);
-            saveFullMatrixFile("tsp-algorithm/src/main/resources/direct4me_time.tsp", "direct4me_time", locations, timeMatrix, true);
+        System.out.println("\n--- 3. Distance Matrix (le nove vrstice in stolpci) ---");
+        downloader.completeMatrices(locations, distance, time, known);
+        System.out.println("Zahtev: " + downloader.getRequests() + ", iz predpomnilnika: " + downloader.getCacheHits());
 
-            System.out.println("KONCANO! Datoteke so pripravljene.");
+        System.out.println("\n--- 4. Shranjevanje ---");
+        save(locations, distance, time, distanceFile, timeFile, locationsFile);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    private static boolean sameOrder(List<Integer> previous) {
+        for (int i = 0; i < previous.size(); i++) {
+            if (previous.get(i) == null || previous.get(i) != i) return false;
         }
+        return true;
     }
-    private static String sendRequest(String url) throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        return response.body();
+
+    private static List<Location> readLocationsFile(String filename) throws IOException {
+        List<Location> locations = new ArrayList<>();
+        List<String> lines = Files.readAllLines(Paths.get(filename), StandardCharsets.UTF_8);
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            String[] parts = line.split(";");
+            if (parts.length < 4) continue;
+            Location location = new Location(Integer.parseInt(parts[0].trim()), parts[1].trim());
+            location.lat = Double.parseDouble(parts[2].trim());
+            location.lon = Double.parseDouble(parts[3].trim());
+            locations.add(location);
+        }
+        return locations;
     }
 
-    private static Double extractValue(String json, String regex) {
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(json);
-        if (matcher.find()) {
-            return Double.parseDouble(matcher.group(1));
+    // matriko prebere TSP (vseh formatov), vrednosti so cela števila
+    private static long[][] readMatrixFile(String filename, int n) throws IOException {
+        DistanceMatrix weights;
+        try (InputStream in = Files.newInputStream(Paths.get(filename))) {
+            weights = new TSP(in, 0).getDistanceMatrix();
+        }
+        if (weights == null || weights.size() != n || !weights.isIntegral()) {
+            throw new IOException(filename + " does not hold an integral matrix of the " + n + " locations");
         }
-        return null;
+        long[][] matrix = new long[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) matrix[i][j] = weights.getLong(i, j);
+        }
+        return matrix;
     }
 
-    private static void parseGoogleMatrixResponse(String json, long[][] distMat, long[][] timeMat, int rowIdx, int colStart, int colEnd) {
-        Pattern distPattern = Pattern.compile("\"distance\"\\s*:\\s*\\{[^}]*\"value\"\\s*:\\s*(\\d+)");
-        Pattern durPattern = Pattern.compile("\"duration\"\\s*:\\s*\\{[^}]*\"value\"\\s*:\\s*(\\d+)");
-        
-        Matcher mDist = distPattern.matcher(json);
-        Matcher mDur = durPattern.matcher(json);
-        
-        int targetCol = colStart;
-        
-        while (mDist.find() && mDur.find() && targetCol < colEnd) {
-            long distVal = Long.parseLong(mDist.group(1));
-            long durVal = Long.parseLong(mDur.group(1));
-            
-            distMat[rowIdx][targetCol] = distVal;
-            timeMat[rowIdx][targetCol] = durVal;
-            
-            targetCol++;
+    /**
+     * Writes all three files next to their targets first and only then moves them in place, each with an
+     * atomic rename, so an interrupted run leaves the old files intact.
+     */
+    private static void save(List<Location> locations, long[][] distance, long[][] time,
+                             String distanceFile, String timeFile, String locationsFile) throws IOException {
+        Path[] targets = {Paths.get(distanceFile), Paths.get(timeFile), Paths.get(locationsFile)};
+        Path[] temporaries = new Path[targets.length];
+        try {
+            for (int k = 0; k < targets.length; k++) {
+                Path directory = targets[k].toAbsolutePath().getParent();
+                temporaries[k] = Files.createTempFile(directory, targets[k].getFileName().toString(), ".tmp");
+            }
+            saveFullMatrixFile(temporaries[0], "direct4me_distance", locations, distance);
+            saveFullMatrixFile(temporaries[1], "direct4me_time", locations, time);
+            saveLocationsFile(temporaries[2], locations);
+            for (int k = 0; k < targets.length; k++) {
+                Files.move(temporaries[k], targets[k], StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                System.out.println("Shranjeno: " + targets[k]);
+            }
+        } finally {
+            for (Path temporary : temporaries) {
+                if (temporary != null) Files.deleteIfExists(temporary);
+            }
         }
     }
 
-    private static void saveFullMatrixFile(String filename, String name, List<Location> locations, long[][] matrix, boolean isTime) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+    private static void saveFullMatrixFile(Path file, String name, List<Location> locations, long[][] matrix) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
             writer.write("NAME: " + name + "\n");
             writer.write("TYPE: TSP\n");
             writer.write("DIMENSION: " + locations.size() + "\n");
@@ -263,6 +333,14 @@ public class DataGenerator {
             }
             writer.write("EOF\n");
         }
-        System.out.println("Shranjeno: " + filename);
     }
-}
\ No newline at end of file
+
+    private static void saveLocationsFile(Path file, List<Location> locations) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("ID;Address;Latitude;Longitude\n");
+            for (Location loc : locations) {
+                writer.write(String.format(Locale.US, "%d;%s;%.6f;%.6f\n", loc.id, loc.address, loc.lat, loc.lon));
+            }
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package Utility;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Geocodes addresses and downloads road distances (meters) and travel times (seconds) between them
+ * from the Google Maps Geocoding and Distance Matrix APIs, or from a compatible server at another
+ * base URL (e.g. a local stub in tests).
+ * <p>
+ * Requests go out with {@link HttpClient#sendAsync}: at most {@code concurrency} are in flight, and
+ * two {@link TokenBucket}s keep geocoding to a number of requests and the matrix to a number of
+ * elements per second. The matrix is asked for in blocks of at most {@value #MAX_ORIGINS} origins,
+ * {@value #MAX_DESTINATIONS} destinations and {@code maxElements} cells, the limits of one request.
+ * Rate limit and server errors are retried with exponential backoff; once a request fails for good
+ * no new ones are sent.
+ * <p>
+ * Successful responses are cached on disk under a hash of the URL without the key, so a rerun
+ * sends no requests. After every band of origins the finished rows are appended to a checkpoint
+ * file, from which an interrupted download resumes. {@link #completeMatrices} downloads only the rows
+ * and columns of locations added to existing matrices.
+ */
+public class MatrixDownloader {
+
+    public static final String GOOGLE_MAPS_API = "https://maps.googleapis.com/maps/api";
+
+    static final int MAX_ORIGINS = 25, MAX_DESTINATIONS = 25;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BACKOFF_MILLIS = 500;
+
+    private static final Pattern LOCATION = Pattern.compile(
+            "\"location\"\\s*:\\s*\\{\\s*\"lat\"\\s*:\\s*(-?[0-9.]+)\\s*,\\s*\"lng\"\\s*:\\s*(-?[0-9.]+)");
+    private static final Pattern ELEMENTS = Pattern.compile("\"elements\"\\s*:\\s*\\[");
+    private static final Pattern STATUS = Pattern.compile("\"status\"\\s*:\\s*\"(\\w+)\"");
+    private static final Pattern DISTANCE = Pattern.compile("\"distance\"\\s*:\\s*\\{[^}]*\"value\"\\s*:\\s*(\\d+)");
+    private static final Pattern DURATION = Pattern.compile("\"duration\"\\s*:\\s*\\{[^}]*\"value\"\\s*:\\s*(\\d+)");
+
+    private final String baseUrl, apiKey;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private int maxElements = 100;
+    private TokenBucket geocodeLimit = new TokenBucket(50, 50);
+    private TokenBucket elementLimit = new TokenBucket(1000, 1000);
+    private Path cacheDirectory, checkpoint;
+    private Semaphore permits = new Semaphore(8);
+
+    private final AtomicInteger requests = new AtomicInteger(), cacheHits = new AtomicInteger();
+    private final AtomicInteger missingElements = new AtomicInteger();
+    private volatile boolean failed; //a request failed for good: submit nothing more
+
+    public MatrixDownloader(String baseUrl, String apiKey) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * Sets how many requests may be in flight at once.
+     */
+    public void setConcurrency(int concurrency) {
+        permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * Sets the most cells one matrix request may ask for (100 for the standard Distance Matrix API).
+     */
+    public void setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * Sets the client side limits: geocoding requests per second and matrix elements per second.
+     */
+    public void setRateLimits(double geocodesPerSecond, double elementsPerSecond) {
+        geocodeLimit = new TokenBucket(geocodesPerSecond, geocodesPerSecond);
+        elementLimit = new TokenBucket(elementsPerSecond, elementsPerSecond);
+    }
+
+    /**
+     * Caches raw responses in {@code directory}; {@code null} turns caching off.
+     */
+    public void setCacheDirectory(Path directory) {
+        cacheDirectory = directory;
+    }
+
+    /**
+     * Appends finished matrix rows to {@code file} and resumes from it; {@code null} turns it off.
+     */
+    public void setCheckpoint(Path file) {
+        checkpoint = file;
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public int getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Geocodes the addresses, each followed by {@code suffix} (e.g. the country), concurrently. Addresses
+     * the service does not find are reported and skipped; the others get ids {@code 1, 2, ...} in order.
+     */
+    public List<DataGenerator.Location> geocode(List<String> addresses, String suffix)
+            throws IOException, InterruptedException {
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (String address : addresses) {
+            if (failed) break;
+            String url = baseUrl + "/geocode/json?address=" + URLEncoder.encode(address + suffix, StandardCharsets.UTF_8);
+            responses.add(fetch(url, geocodeLimit, 1));
+        }
+        join(responses);
+
+        List<DataGenerator.Location> locations = new ArrayList<>();
+        for (int i = 0; i < addresses.size(); i++) {
+            String json = responses.get(i).join();
+            Matcher matcher = LOCATION.matcher(json);
+            if (matcher.find()) {
+                DataGenerator.Location location = new DataGenerator.Location(locations.size() + 1, addresses.get(i));
+                location.lat = round(Double.parseDouble(matcher.group(1)));
+                location.lon = round(Double.parseDouble(matcher.group(2)));
+                locations.add(location);
+            } else {
+                System.err.println("ERROR za: " + addresses.get(i) + " (" + status(json) + ")");
+            }
+        }
+        return locations;
+    }
+
+    // na 6 decimalk (~0,1 m) kot v datotekah, da lokacija, prebrana nazaj, zahteva iste celice
+    private static double round(double degrees) {
+        return Math.round(degrees * 1e6) / 1e6;
+    }
+
+    /**
+     * Downloads the full distance and time matrices, {@code {distance, time}}, resuming from the
+     * checkpoint if it belongs to the same locations. The checkpoint is deleted once all rows are done.
+     */
+    public long[][][] downloadMatrices(List<DataGenerator.Location> locations) throws IOException, InterruptedException {
+        int n = locations.size();
+        long[][] distance = new long[n][n], time = new long[n][n];
+        boolean[] done = new boolean[n];
+        String fingerprint = fingerprint(locations);
+        if (checkpoint != null) {
+            int resumed = readCheckpoint(fingerprint, distance, time, done);
+            if (resumed > 0) System.out.println("Nadaljujem iz kontrolne točke: " + resumed + "/" + n + " vrstic");
+        }
+
+        List<CompletableFuture<Void>> bands = requestBands(locations, notDone(done), notDone(new boolean[n]), distance, time, true);
+        join(bands);
+        if (missingElements.get() > 0) {
+            System.err.println("Brez poti: " + missingElements.get() + " parov, razdalja ostane 0");
+        }
+        if (checkpoint != null) Files.deleteIfExists(checkpoint);
+        return new long[][][]{distance, time};
+    }
+
+    /**
+     * Fills in the cells from and to the locations not marked {@code known}, whose rows and columns are
+     * still missing; the other cells are kept. For {@code k} new locations out of {@code n} these are
+     * {@code k(2n - k)} cells, {@code 2n - 1} for one, instead of all {@code n^2}. Nothing is checkpointed.
+     */
+    public void completeMatrices(List<DataGenerator.Location> locations, long[][] distance, long[][] time, boolean[] known)
+            throws IOException, InterruptedException {
+        int n = known.length;
+        int[] added = notDone(known);
+        if (added.length == 0) return;
+        // nove vrstice v celoti, iz starih vrstic le novi stolpci
+        List<CompletableFuture<Void>> bands = new ArrayList<>();
+        bands.addAll(requestBands(locations, added, notDone(new boolean[n]), distance, time, false));
+        bands.addAll(requestBands(locations, notDone(added, n), added, distance, time, false));
+        join(bands);
+        if (missingElements.get() > 0) {
+            System.err.println("Brez poti: " + missingElements.get() + " parov, razdalja ostane 0");
+        }
+    }
+
+    // pravokotnik izvori x cilji v blokih; pas izvorov se po potrebi zapiše v kontrolno točko
+    private List<CompletableFuture<Void>> requestBands(List<DataGenerator.Location> locations, int[] origins, int[] destinations,
+                                                       long[][] distance, long[][] time, boolean checkpointed)
+            throws InterruptedException {
+        List<CompletableFuture<Void>> bands = new ArrayList<>();
+        if (origins.length == 0 || destinations.length == 0) return bands;
+        int destinationsPerBlock = Math.min(Math.min(MAX_DESTINATIONS, maxElements), destinations.length);
+        int originsPerBlock = Math.max(1, Math.min(MAX_ORIGINS, maxElements / destinationsPerBlock));
+        for (int from = 0; from < origins.length && !failed; from += originsPerBlock) {
+            int[] band = Arrays.copyOfRange(origins, from, Math.min(from + originsPerBlock, origins.length));
+            List<CompletableFuture<Void>> blocks = new ArrayList<>();
+            for (int to = 0; to < destinations.length; to += destinationsPerBlock) {
+                int[] block = Arrays.copyOfRange(destinations, to, Math.min(to + destinationsPerBlock, destinations.length));
+                blocks.add(requestBlock(locations, band, block, distance, time));
+            }
+            CompletableFuture<Void> all = CompletableFuture.allOf(blocks.toArray(new CompletableFuture<?>[0]));
+            bands.add(checkpointed ? all.thenRun(() -> appendCheckpoint(band, distance, time)) : all);
+        }
+        return bands;
+    }
+
+    private CompletableFuture<Void> requestBlock(List<DataGenerator.Location> locations, int[] origins, int[] destinations,
+                                                 long[][] distance, long[][] time) throws InterruptedException {
+        String url = baseUrl + "/distancematrix/json?origins=" + coordinates(locations, origins)
+                + "&destinations=" + coordinates(locations, destinations);
+        return fetch(url, elementLimit, origins.length * destinations.length)
+                .thenAccept(json -> parseMatrix(json, origins, destinations, distance, time));
+    }
+
+    private static String coordinates(List<DataGenerator.Location> locations, int[] indices) {
+        StringBuilder text = new StringBuilder();
+        for (int k = 0; k < indices.length; k++) {
+            if (k > 0) text.append("%7C");
+            DataGenerator.Location location = locations.get(indices[k]);
+            text.append(location.lat).append(",").append(location.lon);
+        }
+        return text.toString();
+    }
+
+    // vrstice odgovora so izvori, elementi v vrstici cilji; element brez poti ima le status
+    private void parseMatrix(String json, int[] origins, int[] destinations, long[][] distance, long[][] time) {
+        List<Integer> rowStarts = new ArrayList<>();
+        Matcher elements = ELEMENTS.matcher(json);
+        while (elements.find()) rowStarts.add(elements.end());
+        if (rowStarts.size() < origins.length) {
+            throw new IllegalStateException("Expected " + origins.length + " rows, got " + rowStarts.size() + ": " + json);
+        }
+        for (int r = 0; r < origins.length; r++) {
+            int end = r + 1 < rowStarts.size() ? rowStarts.get(r + 1) : json.length();
+            String row = json.substring(rowStarts.get(r), end);
+            Matcher status = STATUS.matcher(row);
+            int elementStart = 0;
+            for (int c = 0; c < destinations.length && status.find(); c++) {
+                String element = row.substring(elementStart, status.start());
+                elementStart = status.end();
+                Matcher d = DISTANCE.matcher(element), t = DURATION.matcher(element);
+                if (status.group(1).equals("OK") && d.find() && t.find()) {
+                    distance[origins[r]][destinations[c]] = Long.parseLong(d.group(1));
+                    time[origins[r]][destinations[c]] = Long.parseLong(t.group(1));
+                } else if (origins[r] != destinations[c]) {
+                    missingElements.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the body of a successful response, from the cache or from the server. Waits for a free
+     * request slot, so the caller's loop is the pipeline's back pressure.
+     */
+    private CompletableFuture<String> fetch(String url, TokenBucket limit, int cost) throws InterruptedException {
+        Path cached = cacheFile(url);
+        if (cached != null && Files.isRegularFile(cached)) {
+            try {
+                String body = Files.readString(cached);
+                cacheHits.incrementAndGet();
+                return CompletableFuture.completedFuture(body);
+            } catch (IOException e) {
+                System.err.println("Cache " + cached + " ni berljiv: " + e.getMessage());
+            }
+        }
+        permits.acquire();
+        return attempt(url, limit, cost, 1)
+                .whenComplete((body, error) -> {
+                    permits.release();
+                    if (error != null) failed = true;
+                })
+                .thenApply(body -> {
+                    if (cached != null) store(cached, body);
+                    return body;
+                });
+    }
+
+    private CompletableFuture<String> attempt(String url, TokenBucket limit, int cost, int attempt) {
+        Executor whenAllowed = CompletableFuture.delayedExecutor(limit.reserve(cost), TimeUnit.NANOSECONDS);
+        return CompletableFuture.supplyAsync(() -> request(url), whenAllowed)
+                .thenCompose(request -> {
+                    requests.incrementAndGet();
+                    return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+                })
+                .handle((response, error) -> {
+                    String problem;
+                    boolean retry;
+                    if (error != null) {
+                        problem = String.valueOf(error.getCause() != null ? error.getCause() : error);
+                        retry = true;
+                    } else if (response.statusCode() != 200) {
+                        problem = "HTTP " + response.statusCode();
+                        retry = response.statusCode() == 429 || response.statusCode() >= 500;
+                    } else {
+                        String status = status(response.body());
+                        if (status.equals("OK") || status.equals("ZERO_RESULTS")) {
+                            return CompletableFuture.completedFuture(response.body());
+                        }
+                        problem = status + " " + response.body();
+                        retry = status.equals("OVER_QUERY_LIMIT") || status.equals("UNKNOWN_ERROR");
+                    }
+                    if (!retry || attempt == MAX_ATTEMPTS) {
+                        return CompletableFuture.<String>failedFuture(new IOException("Request failed: " + problem));
+                    }
+                    Executor later = CompletableFuture.delayedExecutor(BACKOFF_MILLIS << (attempt - 1), TimeUnit.MILLISECONDS);
+                    return CompletableFuture.supplyAsync(() -> url, later)
+                            .thenCompose(u -> attempt(u, limit, cost, attempt + 1));
+                })
+                .thenCompose(result -> result);
+    }
+
+    private HttpRequest request(String url) {
+        return HttpRequest.newBuilder(URI.create(url + "&key=" + apiKey))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    // status na najvišji ravni je zadnji v odgovoru
+    private static String status(String json) {
+        Matcher matcher = STATUS.matcher(json);
+        String status = "MISSING_STATUS";
+        while (matcher.find()) status = matcher.group(1);
+        return status;
+    }
+
+    private Path cacheFile(String url) {
+        if (cacheDirectory == null) return null;
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 16; i++) name.append(String.format("%02x", hash[i]));
+            return cacheDirectory.resolve(name + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // zapis v začasno datoteko in premik, da prekinitev ne pusti polovičnega odgovora
+    private static void store(Path file, String body) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), "response", ".tmp");
+            Files.writeString(temporary, body);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String fingerprint(List<DataGenerator.Location> locations) {
+        long hash = 17;
+        for (DataGenerator.Location location : locations) {
+            hash = 31 * hash + Double.doubleToLongBits(location.lat);
+            hash = 31 * hash + Double.doubleToLongBits(location.lon);
+        }
+        return locations.size() + " " + Long.toHexString(hash);
+    }
+
+    /**
+     * Reads the rows of a checkpoint written for the same locations and returns how many there were.
+     * A checkpoint of other locations is discarded; a partly written last line is ignored.
+     */
+    private int readCheckpoint(String fingerprint, long[][] distance, long[][] time, boolean[] done) throws IOException {
+        int n = distance.length;
+        if (!Files.isRegularFile(checkpoint)) return startCheckpoint(fingerprint);
+        List<String> lines = Files.readAllLines(checkpoint);
+        if (lines.isEmpty() || !lines.get(0).equals("# " + fingerprint)) return startCheckpoint(fingerprint);
+        int rows = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length != 1 + 2 * n) continue;
+            try {
+                int i = Integer.parseInt(parts[0]);
+                for (int j = 0; j < n; j++) {
+                    distance[i][j] = Long.parseLong(parts[1 + j]);
+                    time[i][j] = Long.parseLong(parts[1 + n + j]);
+                }
+                if (!done[i]) rows++;
+                done[i] = true;
+            } catch (RuntimeException e) {
+                // nepopolna vrstica
+            }
+        }
+        return rows;
+    }
+
+    private int startCheckpoint(String fingerprint) throws IOException {
+        if (checkpoint.getParent() != null) Files.createDirectories(checkpoint.getParent());
+        Files.writeString(checkpoint, "# " + fingerprint + "\n");
+        return 0;
+    }
+
+    private synchronized void appendCheckpoint(int[] rows, long[][] distance, long[][] time) {
+        if (checkpoint == null) return;
+        StringBuilder text = new StringBuilder();
+        for (int i : rows) {
+            text.append(i);
+            for (long value : distance[i]) text.append(' ').append(value);
+            for (long value : time[i]) text.append(' ').append(value);
+            text.append('\n');
+        }
+        try {
+            Files.writeString(checkpoint, text, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // indeksi 0..n-1, ki jih ni med izbranimi
+    private static int[] notDone(int[] chosen, int n) {
+        boolean[] done = new boolean[n];
+        for (int i : chosen) done[i] = true;
+        return notDone(done);
+    }
+
+    private static int[] notDone(boolean[] done) {
+        int count = 0;
+        for (boolean d : done) if (!d) count++;
+        int[] rows = new int[count];
+        for (int i = 0, k = 0; i < done.length; i++) if (!done[i]) rows[k++] = i;
+        return rows;
+    }
+
+    // počaka na vse zahteve, tudi ko kakšna spodleti, da se zaključeni pasovi zapišejo
+    private static void join(List<? extends CompletableFuture<?>> futures) throws IOException {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            throw new IOException(cause);
+        }
+    }
+}
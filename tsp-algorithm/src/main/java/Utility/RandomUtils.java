@@ -1,27 +1,83 @@
 package Utility;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 import java.util.Random;
 
+/**
+ * Random numbers for the algorithms. Every thread has its own generator, so parallel runs do not
+ * share state and each run is reproducible from its seed. A thread starts from the default seed
+ * until it calls {@link #setSeed(long)} or {@link #setSeedFromTime()}.
+ */
 public class RandomUtils {
 
     private RandomUtils() {
     }
 
-    private static long seed = 123;
-    private static final Random random = new Random(seed);
+    private static final long DEFAULT_SEED = 123;
+
+    private static final class Generator {
+        long seed = DEFAULT_SEED;
+        Random random = new Random(DEFAULT_SEED);
+    }
+
+    // brez ThreadLocal.withInitial, ki ga Android pozna šele od API 26 (aplikacija ima minSdk 24)
+    private static final ThreadLocal<Generator> generator = new ThreadLocal<Generator>() {
+        @Override
+        protected Generator initialValue() {
+            return new Generator();
+        }
+    };
 
     public static void setSeed(long seed) {
-        RandomUtils.seed = seed;
-        random.setSeed(seed);
+        Generator g = generator.get();
+        g.seed = seed;
+        g.random.setSeed(seed);
     }
 
     public static void setSeedFromTime() {
-        RandomUtils.seed = System.currentTimeMillis();
-        random.setSeed(seed);
+        setSeed(System.currentTimeMillis());
     }
 
     public static long getSeed() {
-        return seed;
+        return generator.get().seed;
+    }
+
+    /**
+     * Returns the exact state of this thread's generator, including a pending Gaussian, for a checkpoint.
+     */
+    public static byte[] saveState() {
+        Generator g = generator.get();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeLong(g.seed);
+            out.writeObject(g.random);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restores a state returned by {@link #saveState()}; the following numbers continue exactly
+     * where the saved generator left off.
+     */
+    public static void restoreState(byte[] state) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state))) {
+            long seed = in.readLong();
+            Random random = (Random) in.readObject();
+            Generator g = generator.get();
+            g.seed = seed;
+            g.random = random;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Not a random generator state", e);
+        }
     }
 
     /**
@@ -30,7 +86,16 @@ public class RandomUtils {
      * @return the next random, uniformly distributed {@code double} value between {@code 0.0} (inclusive) and {@code 1.0} (exclusive).
      */
     public static double nextDouble() {
-        return random.nextDouble();
+        return generator.get().random.nextDouble();
+    }
+
+    /**
+     * Return the next random, normally distributed {@code double} value with mean {@code 0.0} and standard deviation {@code 1.0}.
+     *
+     * @return the next random, normally distributed {@code double} value with mean {@code 0.0} and standard deviation {@code 1.0}.
+     */
+    public static double nextGaussian() {
+        return generator.get().random.nextGaussian();
     }
 
     /**
@@ -41,7 +106,7 @@ public class RandomUtils {
      * {@code 0} (inclusive) and {@code upperBound} (exclusive).
      */
     public static int nextInt(int upperBound) {
-        return random.nextInt(upperBound);
+        return generator.get().random.nextInt(upperBound);
     }
 
     /**
@@ -52,6 +117,6 @@ public class RandomUtils {
      * {@code lowerBound} (inclusive) and {@code upperBound} (exclusive).
      */
     public static int nextInt(int lowerBound, int upperBound) {
-        return lowerBound + random.nextInt(upperBound - lowerBound);
+        return lowerBound + generator.get().random.nextInt(upperBound - lowerBound);
     }
 }
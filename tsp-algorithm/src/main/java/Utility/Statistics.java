@@ -0,0 +1,195 @@
+package Utility;
+
+import java.util.Arrays;
+
+/**
+ * Descriptive statistics, ranks and the distributions needed by the significance tests of the
+ * benchmark and tuning harnesses.
+ */
+public class Statistics {
+
+    private Statistics() {
+    }
+
+    public static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return sum / values.length;
+    }
+
+    public static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * Returns the sample standard deviation (divisor {@code n - 1}).
+     */
+    public static double standardDeviation(double[] values) {
+        if (values.length < 2) return 0;
+        double mean = mean(values);
+        double sum = 0;
+        for (double v : values) sum += (v - mean) * (v - mean);
+        return Math.sqrt(sum / (values.length - 1));
+    }
+
+    public static double min(double[] values) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double v : values) min = Math.min(min, v);
+        return min;
+    }
+
+    public static double max(double[] values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double v : values) max = Math.max(max, v);
+        return max;
+    }
+
+    /**
+     * Returns the half width of the two-sided Student t confidence interval of the mean, so the
+     * interval is {@code mean ± halfWidth}.
+     *
+     * @param level confidence level, e.g. {@code 0.95}.
+     */
+    public static double confidenceHalfWidth(double[] values, double level) {
+        int n = values.length;
+        if (n < 2) return 0;
+        return studentQuantile(0.5 + level / 2, n - 1) * standardDeviation(values) / Math.sqrt(n);
+    }
+
+    /**
+     * Returns the {@code p} quantile of the Student t distribution with {@code df} degrees of freedom,
+     * using the Cornish-Fisher expansion around the normal quantile (accurate to about 1e-3 for
+     * {@code df >= 3}; exact formulas are used for {@code df} 1 and 2).
+     */
+    public static double studentQuantile(double p, int df) {
+        if (df == 1) return Math.tan(Math.PI * (p - 0.5));
+        if (df == 2) {
+            double a = 4 * p * (1 - p);
+            return (2 * p - 1) * Math.sqrt(2 / a);
+        }
+        double z = normalQuantile(p);
+        double z2 = z * z;
+        double z3 = z2 * z, z5 = z3 * z2, z7 = z5 * z2, z9 = z7 * z2;
+        double d = df;
+        return z
+                + (z3 + z) / (4 * d)
+                + (5 * z5 + 16 * z3 + 3 * z) / (96 * d * d)
+                + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384 * d * d * d)
+                + (79 * z9 + 776 * z7 + 1482 * z5 - 1920 * z3 - 945 * z) / (92160 * d * d * d * d);
+    }
+
+    /**
+     * Returns the {@code p} quantile of the standard normal distribution (Acklam's rational
+     * approximation, relative error below 1.2e-9).
+     */
+    public static double normalQuantile(double p) {
+        if (p <= 0) return Double.NEGATIVE_INFINITY;
+        if (p >= 1) return Double.POSITIVE_INFINITY;
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            return -normalQuantile(1 - p);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    /**
+     * Returns the ranks (1 = smallest) of the values; ties get the average of their ranks.
+     */
+    public static double[] ranks(double[] values) {
+        int n = values.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        double[] ranks = new double[n];
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j + 1 < n && values[order[j + 1]] == values[order[i]]) j++;
+            double rank = (i + j) / 2.0 + 1;
+            for (int k = i; k <= j; k++) ranks[order[k]] = rank;
+            i = j + 1;
+        }
+        return ranks;
+    }
+
+    /**
+     * Returns {@code P(X > x)} for a chi-squared distributed {@code X} with {@code df} degrees of freedom.
+     */
+    public static double chiSquaredSurvival(double x, int df) {
+        if (x <= 0) return 1;
+        return regularizedGammaQ(df / 2.0, x / 2);
+    }
+
+    /**
+     * Returns the standard normal cumulative distribution function (Abramowitz and Stegun 7.1.26,
+     * absolute error below 1.5e-7).
+     */
+    public static double normalCdf(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - ((((1.061405429 * t - 1.453152027) * t + 1.421413741) * t - 0.284496736) * t
+                + 0.254829592) * t * Math.exp(-x * x);
+        return z >= 0 ? 0.5 * (1 + erf) : 0.5 * (1 - erf);
+    }
+
+    /**
+     * Returns the upper regularized incomplete gamma function {@code Q(a, x)}, by its series for
+     * {@code x < a + 1} and by a continued fraction otherwise.
+     */
+    static double regularizedGammaQ(double a, double x) {
+        if (x < a + 1) {
+            double term = 1 / a, sum = term;
+            for (int n = 1; n < 1000 && Math.abs(term) > Math.abs(sum) * 1e-15; n++) {
+                term *= x / (a + n);
+                sum += term;
+            }
+            return 1 - sum * Math.exp(-x + a * Math.log(x) - logGamma(a));
+        }
+        // Lentzov algoritem za verižni ulomek
+        double b = x + 1 - a, c = 1e300, d = 1 / b, h = d;
+        for (int i = 1; i < 1000; i++) {
+            double an = -i * (i - a);
+            b += 2;
+            d = an * d + b;
+            if (Math.abs(d) < 1e-300) d = 1e-300;
+            c = b + an / c;
+            if (Math.abs(c) < 1e-300) c = 1e-300;
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < 1e-15) break;
+        }
+        return Math.exp(-x + a * Math.log(x) - logGamma(a)) * h;
+    }
+
+    /**
+     * Returns {@code log(Gamma(x))} for {@code x > 0} (Lanczos approximation).
+     */
+    static double logGamma(double x) {
+        final double[] c = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = x, tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : c) series += coefficient / ++y;
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+}
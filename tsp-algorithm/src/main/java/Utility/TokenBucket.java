@@ -0,0 +1,35 @@
+package Utility;
+
+/**
+ * Token bucket rate limiter that never blocks: {@link #reserve} takes the tokens at once, going into
+ * debt if necessary, and returns how long the caller has to wait before using them. Callers can so
+ * schedule a request with a delayed executor instead of holding a thread.
+ */
+final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long last = System.nanoTime();
+
+    /**
+     * @param perSecond tokens added per second
+     * @param capacity  tokens that can accumulate while idle, i.e. the largest burst
+     */
+    TokenBucket(double perSecond, double capacity) {
+        tokensPerNano = perSecond / 1e9;
+        this.capacity = capacity;
+        tokens = capacity;
+    }
+
+    /**
+     * Takes {@code cost} tokens and returns the nanoseconds until they are actually available.
+     */
+    synchronized long reserve(double cost) {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - last) * tokensPerNano);
+        last = now;
+        tokens -= cost;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+}
@@ -0,0 +1,106 @@
+package algorithms;
+
+import Utility.RandomUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Adaptive pursuit operator selection (Thierens, 2005).
+ * <p>
+ * Every arm (operator) has a quality estimate that follows the mean reward it earned in recent
+ * generations. Selection probabilities are pushed towards {@code pMax} for the currently best arm
+ * and towards {@code pMin} for all others, so a good operator is exploited quickly while every arm
+ * keeps being tried often enough to notice when the search phase changes.
+ */
+public class AdaptivePursuit {
+
+    private final double pMin, pMax;
+    private final double alpha; //quality adaptation rate
+    private final double beta; //probability learning rate
+
+    private final double[] probability;
+    private final double[] quality;
+    private final double[] rewardSum;
+    private final int[] rewardCount;
+
+    public AdaptivePursuit(int arms) {
+        this(arms, 0.3, 0.3);
+    }
+
+    public AdaptivePursuit(int arms, double alpha, double beta) {
+        this.alpha = alpha;
+        this.beta = beta;
+        pMin = arms > 1 ? 0.25 / arms : 1;
+        pMax = 1 - (arms - 1) * pMin;
+        probability = new double[arms];
+        quality = new double[arms];
+        rewardSum = new double[arms];
+        rewardCount = new int[arms];
+        Arrays.fill(probability, 1.0 / arms);
+    }
+
+    /**
+     * Draws an arm according to the current selection probabilities.
+     */
+    public int select() {
+        double r = RandomUtils.nextDouble();
+        int last = probability.length - 1;
+        for (int arm = 0; arm < last; arm++) {
+            r -= probability[arm];
+            if (r < 0) return arm;
+        }
+        return last;
+    }
+
+    /**
+     * Records the reward of one application of {@code arm}. Rewards are averaged until {@link #update()}.
+     */
+    public void reward(int arm, double value) {
+        rewardSum[arm] += value;
+        rewardCount[arm]++;
+    }
+
+    /**
+     * Folds the rewards collected since the last call into the quality estimates and moves the
+     * selection probabilities towards the best arm.
+     */
+    public void update() {
+        int bestArm = 0;
+        for (int arm = 0; arm < quality.length; arm++) {
+            if (rewardCount[arm] > 0) {
+                quality[arm] += alpha * (rewardSum[arm] / rewardCount[arm] - quality[arm]);
+                rewardSum[arm] = 0;
+                rewardCount[arm] = 0;
+            }
+            if (quality[arm] > quality[bestArm]) bestArm = arm;
+        }
+        for (int arm = 0; arm < probability.length; arm++) {
+            double target = arm == bestArm ? pMax : pMin;
+            probability[arm] += beta * (target - probability[arm]);
+        }
+    }
+
+    // nagrade so med generacijami vedno prazne, zato zadostujeta verjetnosti in kakovosti
+    void writeState(DataOutput out) throws IOException {
+        for (int arm = 0; arm < probability.length; arm++) {
+            out.writeDouble(probability[arm]);
+            out.writeDouble(quality[arm]);
+        }
+    }
+
+    void readState(DataInput in) throws IOException {
+        for (int arm = 0; arm < probability.length; arm++) {
+            probability[arm] = in.readDouble();
+            quality[arm] = in.readDouble();
+            rewardSum[arm] = 0;
+            rewardCount[arm] = 0;
+        }
+    }
+
+    public double getProbability(int arm) {
+        return probability[arm];
+    }
+}
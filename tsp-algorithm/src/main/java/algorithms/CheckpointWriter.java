@@ -0,0 +1,116 @@
+package algorithms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes checkpoints on a background thread, so the solver only pays for copying its state into
+ * memory.
+ * <p>
+ * A checkpoint is first written to {@code <file>.tmp}, synced and then renamed over {@code file}, so
+ * the file always holds a complete checkpoint, even if the process dies while writing. While a
+ * write is in progress the solver skips further snapshots instead of waiting. The snapshot buffer
+ * is reused.
+ */
+class CheckpointWriter implements AutoCloseable {
+
+    private final Path file;
+    private final Path temporary;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> pending;
+    private volatile IOException failure;
+
+    CheckpointWriter(Path file) {
+        this.file = file;
+        this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns {@code true} if no write is in progress, i.e. the buffer may be filled.
+     */
+    boolean isIdle() {
+        return pending == null || pending.isDone();
+    }
+
+    /**
+     * Returns the empty snapshot buffer. Only call when {@link #isIdle()}.
+     */
+    ByteArrayOutputStream buffer() {
+        buffer.reset();
+        return buffer;
+    }
+
+    /**
+     * Writes the buffer asynchronously.
+     */
+    void submit() {
+        pending = executor.submit(this::write);
+    }
+
+    /**
+     * Waits for the write in progress, if any.
+     *
+     * @throws IOException if a write failed since the last call.
+     */
+    public void await() throws IOException {
+        if (pending != null) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IOException("Checkpoint write failed", e.getCause());
+            }
+        }
+        IOException e = failure;
+        failure = null;
+        if (e != null) throw e;
+    }
+
+    private void write() {
+        try {
+            try (FileOutputStream out = new FileOutputStream(temporary.toFile())) {
+                buffer.writeTo(out);
+                out.getFD().sync();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Waits for the last write and stops the background thread.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            await();
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package algorithms;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Tracks how a GA run converges: generations since the best tour last improved, the relative
+ * spread between the mean and the best fitness, and the edge diversity of the population.
+ * <p>
+ * The run is considered stagnant when the best has not improved for {@code patience} generations,
+ * or when the population has collapsed (spread or diversity below their thresholds) and the best
+ * has not improved for at least a quarter of that time.
+ */
+public class ConvergenceMonitor {
+
+    private final int patience;
+    private final double minSpread;
+    private final double minDiversity;
+
+    private int generation;
+    private int lastImprovement;
+    private double bestDistance = Double.MAX_VALUE;
+    private double meanDistance;
+    private double spread;
+    private double diversity;
+
+    public ConvergenceMonitor(int patience) {
+        this(patience, 1e-3, 0.05);
+    }
+
+    public ConvergenceMonitor(int patience, double minSpread, double minDiversity) {
+        this.patience = patience;
+        this.minSpread = minSpread;
+        this.minDiversity = minDiversity;
+    }
+
+    /**
+     * Records the state after one generation.
+     */
+    public void record(double best, double mean, double diversity) {
+        generation++;
+        if (best < bestDistance) {
+            bestDistance = best;
+            lastImprovement = generation;
+        }
+        meanDistance = mean;
+        spread = mean > 0 ? (mean - best) / mean : 0;
+        this.diversity = diversity;
+    }
+
+    public boolean isStagnant() {
+        int idle = getGenerationsSinceImprovement();
+        if (idle >= patience) return true;
+        boolean collapsed = spread < minSpread || diversity < minDiversity;
+        return collapsed && idle >= patience / 4;
+    }
+
+    /**
+     * Restarts the patience counter after the GA reacted to stagnation.
+     */
+    public void acknowledge() {
+        lastImprovement = generation;
+    }
+
+    void writeState(DataOutput out) throws IOException {
+        out.writeInt(generation);
+        out.writeInt(lastImprovement);
+        out.writeDouble(bestDistance);
+        out.writeDouble(meanDistance);
+        out.writeDouble(spread);
+        out.writeDouble(diversity);
+    }
+
+    void readState(DataInput in) throws IOException {
+        generation = in.readInt();
+        lastImprovement = in.readInt();
+        bestDistance = in.readDouble();
+        meanDistance = in.readDouble();
+        spread = in.readDouble();
+        diversity = in.readDouble();
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int getGenerationsSinceImprovement() {
+        return generation - lastImprovement;
+    }
+
+    public double getBestDistance() {
+        return bestDistance;
+    }
+
+    public double getMeanDistance() {
+        return meanDistance;
+    }
+
+    /**
+     * Returns {@code (mean - best) / mean} of the last generation.
+     */
+    public double getSpread() {
+        return spread;
+    }
+
+    public double getDiversity() {
+        return diversity;
+    }
+}
@@ -0,0 +1,96 @@
+package algorithms;
+
+import problems.TSP;
+
+import java.util.Arrays;
+
+/**
+ * Measures population diversity as the normalized entropy of the edge frequency distribution.
+ * <p>
+ * A value of {@code 1} means that no edge is shared by two tours, {@code 0} means that all tours
+ * consist of the same edges. Edges are bucketed by their smaller endpoint with a counting sort and
+ * counted per bucket, so a measurement costs O(popSize * n) with sequential memory access and no
+ * allocation after the first call. Since an edge occurs at most once per tour, its count is at most
+ * {@code popSize} and {@code c * log(c)} comes from a table:
+ * {@code H = log(T) - sum(c * log(c)) / T} for {@code T} edges in total.
+ */
+class EdgeDiversity {
+
+    private int[] edgeLow, edgeHigh; //endpoints of every edge, in population order
+    private int[] bucketStart; //counting sort offsets, indexed by the smaller endpoint
+    private int[] bucketed; //larger endpoints grouped by the smaller one
+    private int[] count;
+    private double[] countLogCount;
+
+    /**
+     * Returns the normalized edge entropy of the given population.
+     */
+    double measure(TSP.Tour[] population, int popSize) {
+        if (popSize < 2) return 0;
+        int n = population[0].getPath().length;
+        if (n < 3) return 0;
+        int totalEdges = popSize * n;
+        ensureCapacity(n, popSize, totalEdges);
+        Arrays.fill(bucketStart, 0);
+
+        int e = 0;
+        for (int t = 0; t < popSize; t++) {
+            TSP.City[] path = population[t].getPath();
+            int first = path[0].index;
+            int a = first;
+            for (int i = 1; i <= n; i++) {
+                int b = i < n ? path[i].index : first;
+                int low = Math.min(a, b);
+                edgeLow[e] = low;
+                edgeHigh[e++] = Math.max(a, b);
+                bucketStart[low + 1]++;
+                a = b;
+            }
+        }
+        for (int c = 1; c <= n + 1; c++) {
+            bucketStart[c] += bucketStart[c - 1];
+        }
+        // razvrstimo drugo krajišče v predal manjšega krajišča (bucketStart se pri tem premakne za en predal)
+        for (int k = 0; k < totalEdges; k++) {
+            bucketed[bucketStart[edgeLow[k]]++] = edgeHigh[k];
+        }
+
+        double sum = 0;
+        int from = 0;
+        for (int low = 1; low <= n; low++) {
+            int to = bucketStart[low];
+            for (int k = from; k < to; k++) count[bucketed[k]]++;
+            for (int k = from; k < to; k++) {
+                int high = bucketed[k];
+                if (count[high] > 0) {
+                    sum += countLogCount[count[high]];
+                    count[high] = 0;
+                }
+            }
+            from = to;
+        }
+        double entropy = Math.log(totalEdges) - sum / totalEdges;
+
+        double min = Math.log(n);
+        double max = Math.log(totalEdges);
+        return Math.max(0, (entropy - min) / (max - min));
+    }
+
+    private void ensureCapacity(int n, int popSize, int totalEdges) {
+        if (edgeLow == null || edgeLow.length < totalEdges) {
+            edgeLow = new int[totalEdges];
+            edgeHigh = new int[totalEdges];
+            bucketed = new int[totalEdges];
+        }
+        if (bucketStart == null || bucketStart.length < n + 2) {
+            bucketStart = new int[n + 2];
+            count = new int[n + 1];
+        }
+        if (countLogCount == null || countLogCount.length < popSize + 1) {
+            countLogCount = new double[popSize + 1];
+            for (int c = 1; c <= popSize; c++) {
+                countLogCount[c] = c * Math.log(c);
+            }
+        }
+    }
+}
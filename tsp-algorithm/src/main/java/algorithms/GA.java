@@ -1,18 +1,89 @@
 package algorithms;
 
 import Utility.RandomUtils;
+import algorithms.operators.CrossoverOperator;
+import algorithms.operators.EAX;
+import algorithms.operators.ERX;
+import algorithms.operators.InversionMutation;
+import algorithms.operators.MutationOperator;
+import algorithms.operators.OX;
+import algorithms.operators.PMX;
+import algorithms.operators.SelectionOperator;
+import algorithms.operators.SwapMutation;
+import algorithms.operators.TournamentSelection;
 import problems.TSP;
+import telemetry.TelemetrySink;
 
-import java.util.ArrayList;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 
-public class GA {
+public class GA implements Solver {
+
+    // meje samoprilagodljive verjetnosti mutacije
+    static final double MIN_MUTATION_RATE = 0.01;
+    static final double MAX_MUTATION_RATE = 0.9;
+    static final double MUTATION_RATE_LEARNING = 0.22;
+
+    // odziv na stagnacijo
+    static final int HYPERMUTATION_GENERATIONS = 5;
+    static final int HYPERMUTATION_STRENGTH = 3; //mutations applied to every offspring during a burst
+    static final int RESEED_STRENGTH = 3; //mutations applied to each copy of the elite
+
+    // zaporedne generacije brez spremenjenega potomca, po katerih tek ustavimo
+    static final int MAX_IDLE_GENERATIONS = 1000;
 
     int popSize;
     double cr; //crossover probability
     double pm; //mutation probability
 
-    ArrayList<TSP.Tour> population;
-    ArrayList<TSP.Tour> offspring;
+    // delni ponovni zagon, ko raznolikost robov pade pod prag
+    double restartDiversity = 0.05; //normalized edge entropy that triggers a partial restart
+    double restartFraction = 0.5; //share of the (worst) population replaced by random tours
+
+    StagnationResponse stagnationResponse = StagnationResponse.NONE;
+    int stagnationPatience = 100; //generations without improvement
+    ConvergenceMonitor monitor;
+    int hypermutationLeft;
+
+    CrossoverOperator crossover = new PMX();
+    MutationOperator mutation = new SwapMutation();
+    SelectionOperator selection = new TournamentSelection(3);
+
+    // prilagodljiva izbira operatorjev (null = fiksni operator)
+    CrossoverOperator[] crossovers;
+    MutationOperator[] mutations;
+    AdaptivePursuit crossoverPursuit, mutationPursuit;
+    boolean selfAdaptiveMutation;
+
+    // populacija in potomci sta vnaprej alocirana in se zamenjata vsako generacijo
+    TSP.Tour[] population;
+    TSP.Tour[] offspring;
+    TSP.Tour child1, child2;
+    TSP.Tour best;
+    TSP problem;
+
+    // lastna verjetnost mutacije in izvor vsakega osebka (za dodeljevanje zaslug)
+    double[] populationRates, offspringRates;
+    int[] offspringCrossover, offspringMutation;
+    double[] offspringReference;
+    double[] restartScratch;
+
+    RunControl control = new RunControl();
+    TelemetrySink telemetry; //null = no telemetry
+
+    // periodične kontrolne točke in nadaljevanje iz njih
+    Path checkpointFile; //null = no checkpoints
+    long checkpointIntervalNanos;
+    Path resumeFile; //null = start from a random population
+
+    LongHashSet offspringHashes;
+    boolean directed; //asimetrične razdalje: obrnjena pot ni enaka poti, čeprav ima enak hash
+    EdgeDiversity edgeDiversity = new EdgeDiversity();
+    double diversity;
+    int rejectedDuplicates;
 
     public GA(int popSize, double cr, double pm) {
         this.popSize = popSize;
@@ -20,162 +91,537 @@ public class GA {
         this.pm = pm;
     }
 
+    @Override
+    public void setRunControl(RunControl control) {
+        this.control = control;
+    }
+
+    /**
+     * Reports run, generation and offspring events to {@code telemetry}; {@code null} turns it off.
+     */
+    public void setTelemetry(TelemetrySink telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Snapshots the complete run state to {@code file} every {@code intervalMillis} of wall time,
+     * and once more when the run is cancelled or hits its time limit. Snapshots are written on a
+     * background thread with an atomic rename; {@code null} turns checkpoints off.
+     */
+    public void setCheckpoint(Path file, long intervalMillis) {
+        this.checkpointFile = file;
+        this.checkpointIntervalNanos = intervalMillis * 1_000_000L;
+    }
+
+    /**
+     * Makes the next {@link #execute} continue the run saved in {@code file} instead of starting a
+     * new one. The GA must be configured as it was when the checkpoint was written (population size
+     * and operators); the evaluation budget may differ. The resumed run is bit-identical to one that
+     * was never interrupted.
+     */
+    public void resumeFrom(Path file) {
+        this.resumeFile = file;
+    }
+
+    public void setCrossover(CrossoverOperator crossover) {
+        this.crossover = crossover;
+    }
+
+    public void setMutation(MutationOperator mutation) {
+        this.mutation = mutation;
+    }
+
+    public void setSelection(SelectionOperator selection) {
+        this.selection = selection;
+    }
+
+    /**
+     * Switches runtime adaptation on or off. When on, every crossover picks one of EAX, PMX, OX and ERX
+     * and every mutation one of swap and inversion by adaptive pursuit, and each individual carries its
+     * own self-adaptive mutation rate that starts at {@code pm}.
+     */
+    public void setAdaptive(boolean adaptive) {
+        if (adaptive) {
+            setAdaptiveOperators(
+                    new CrossoverOperator[]{new EAX(), new PMX(), new OX(), new ERX()},
+                    new MutationOperator[]{new SwapMutation(), new InversionMutation()});
+        } else {
+            setAdaptiveOperators(null, null);
+        }
+        selfAdaptiveMutation = adaptive;
+    }
+
+    /**
+     * Lets adaptive pursuit choose among the given operators, crediting each with the relative
+     * improvement of its offspring over their parents per evaluation. {@code null} keeps the fixed
+     * operator set with {@link #setCrossover} or {@link #setMutation}.
+     */
+    public void setAdaptiveOperators(CrossoverOperator[] crossovers, MutationOperator[] mutations) {
+        this.crossovers = crossovers;
+        this.mutations = mutations;
+    }
+
+    /**
+     * When enabled, each individual inherits the mutation rate of its parent, perturbed log-normally,
+     * so rates that produce good offspring spread through the population.
+     */
+    public void setSelfAdaptiveMutation(boolean selfAdaptiveMutation) {
+        this.selfAdaptiveMutation = selfAdaptiveMutation;
+    }
+
+    /**
+     * Returns the mean mutation rate of the current population.
+     */
+    public double getMeanMutationRate() {
+        if (populationRates == null) return pm;
+        double sum = 0;
+        for (double rate : populationRates) sum += rate;
+        return sum / populationRates.length;
+    }
+
+    /**
+     * Configures the partial restart. When the normalized edge entropy of the population drops below
+     * {@code threshold}, the worst {@code fraction} of the population is replaced with random tours.
+     * A threshold of {@code 0} disables restarts.
+     */
+    public void setDiversityRestart(double threshold, double fraction) {
+        this.restartDiversity = threshold;
+        this.restartFraction = fraction;
+    }
+
+    /**
+     * Chooses how the run reacts when the best tour has not improved for {@code patience} generations,
+     * or sooner once the population has collapsed. See {@link ConvergenceMonitor}.
+     */
+    public void setStagnationResponse(StagnationResponse response, int patience) {
+        this.stagnationResponse = response;
+        this.stagnationPatience = patience;
+    }
+
+    /**
+     * Returns the convergence statistics of the current (or last) run.
+     */
+    public ConvergenceMonitor getConvergenceMonitor() {
+        return monitor;
+    }
+
+    /**
+     * Returns the normalized edge entropy of the last generation.
+     */
+    public double getDiversity() {
+        return diversity;
+    }
+
+    /**
+     * Returns the number of offspring rejected as duplicates in the last run.
+     */
+    public int getRejectedDuplicates() {
+        return rejectedDuplicates;
+    }
+
+    @Override
     public TSP.Tour execute(TSP problem) {
-        population = new ArrayList<>();
-        offspring = new ArrayList<>();
-        TSP.Tour best = null;
+        control.start();
+        long start = System.nanoTime();
+        if (resumeFile != null) {
+            resume(problem, resumeFile);
+            resumeFile = null;
+        } else {
+            initialize(problem);
+        }
+        CheckpointWriter checkpoint = checkpointFile != null ? new CheckpointWriter(checkpointFile) : null;
+        long lastCheckpoint = start;
+        if (telemetry != null) {
+            telemetry.onRunStart(problem.getNumberOfCities(), operatorNames(crossovers, crossover),
+                    operatorNames(mutations, mutation));
+        }
+        control.update(best, problem.getNumberOfEvaluations());
+        int idleGenerations = 0;
+        while (problem.getNumberOfEvaluations() < problem.getMaxEvaluations() && !control.shouldStop()) {
+            long generationStart = 0;
+            if (telemetry != null) {
+                generationStart = System.nanoTime();
+                telemetry.onGenerationStart(monitor.getGeneration() + 1);
+            }
+            // generacija brez spremenjenega potomca ne porabi vrednotenj; pri majhni populaciji je to
+            // lahko naključje, zato ustavimo le, ko ga ne more ustvariti noben operator
+            if (nextGeneration() == 0) {
+                if (!canChangeTours() || ++idleGenerations >= MAX_IDLE_GENERATIONS) break;
+            } else {
+                idleGenerations = 0;
+            }
+            if (telemetry != null) {
+                telemetry.onGeneration(monitor.getGeneration(), problem.getNumberOfEvaluations(),
+                        System.nanoTime() - generationStart, monitor.getBestDistance(), monitor.getMeanDistance(),
+                        monitor.getDiversity());
+            }
+            control.update(best, problem.getNumberOfEvaluations());
+            if (monitor.isStagnant() && respondToStagnation()) break;
+            if (checkpoint != null && System.nanoTime() - lastCheckpoint >= checkpointIntervalNanos
+                    && checkpoint.isIdle()) {
+                snapshot(checkpoint);
+                lastCheckpoint = System.nanoTime();
+            }
+        }
+        if (checkpoint != null) {
+            finishCheckpoints(checkpoint);
+        }
+        control.finish(best, problem.getNumberOfEvaluations());
+        if (telemetry != null) {
+            telemetry.onRunEnd(best.getDistance(), problem.getNumberOfEvaluations(), System.nanoTime() - start);
+        }
+        return best;
+    }
 
+    // s cr = pm = 0 in brez samoprilagajanja nastajajo le kopije staršev
+    private boolean canChangeTours() {
+        return cr > 0 || pm > 0 || selfAdaptiveMutation;
+    }
+
+    void initialize(TSP problem) {
+        allocate(problem);
         for (int i = 0; i < popSize; i++) {
             TSP.Tour newTour = problem.generateTour();
             problem.evaluate(newTour);
-            population.add(newTour);
+            population[i] = newTour;
 
             if (best == null || newTour.getDistance() < best.getDistance()) {
                 best = newTour.clone();
             }
         }
+    }
+
+    private void resume(TSP problem, Path file) {
+        allocate(problem);
+        int n = problem.getNumberOfCities();
+        for (int i = 0; i < popSize; i++) {
+            population[i] = new TSP.Tour(n);
+        }
+        best = new TSP.Tour(n);
+        try {
+            GACheckpoint.read(this, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot resume from " + file, e);
+        }
+    }
 
-        while (problem.getNumberOfEvaluations() < problem.getMaxEvaluations()) {
+    /**
+     * Allocates the population, offspring and bookkeeping for {@code problem}; the population is
+     * left empty.
+     */
+    private void allocate(TSP problem) {
+        this.problem = problem;
+        int n = problem.getNumberOfCities();
+        population = new TSP.Tour[popSize];
+        offspring = new TSP.Tour[popSize];
+        child1 = new TSP.Tour(n);
+        child2 = new TSP.Tour(n);
+        best = null;
+        offspringHashes = new LongHashSet(popSize);
+        directed = !problem.isSymmetric();
+        rejectedDuplicates = 0;
+        crossover.init(problem);
+        mutation.init(problem);
+        if (crossovers != null) {
+            for (CrossoverOperator operator : crossovers) operator.init(problem);
+            crossoverPursuit = new AdaptivePursuit(crossovers.length);
+        }
+        if (mutations != null) {
+            for (MutationOperator operator : mutations) operator.init(problem);
+            mutationPursuit = new AdaptivePursuit(mutations.length);
+        }
+        populationRates = new double[popSize];
+        offspringRates = new double[popSize];
+        Arrays.fill(populationRates, pm);
+        offspringCrossover = new int[popSize];
+        offspringMutation = new int[popSize];
+        offspringReference = new double[popSize];
+        restartScratch = new double[popSize];
+        monitor = new ConvergenceMonitor(stagnationPatience);
+        hypermutationLeft = 0;
+        for (int i = 0; i < popSize; i++) {
+            offspring[i] = new TSP.Tour(n);
+        }
+    }
 
-            //elitizem - poišči najboljšega in ga dodaj v novo
-            // (Clone je nujen, da ne spreminjamo reference!)
-            TSP.Tour elite = getBestInPopulation();
-            offspring.add(elite.clone());
+    private void snapshot(CheckpointWriter checkpoint) {
+        try {
+            GACheckpoint.write(this, new DataOutputStream(checkpoint.buffer()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //pisanje v pomnilnik
+        }
+        checkpoint.submit();
+    }
 
-            while (offspring.size() < popSize) {
-                TSP.Tour parent1 = tournamentSelection();
-                TSP.Tour parent2 = tournamentSelection();
-                //TODO preveri, da starša nista enaka (po referenci ali vsebini)
-                if (parent1 == parent2) {
-                    parent2 = tournamentSelection();
-                }
+    /**
+     * Writes a final snapshot if the run was stopped from outside, waits for the last write and
+     * reports a failed write.
+     */
+    private void finishCheckpoints(CheckpointWriter checkpoint) {
+        try {
+            if (control.shouldStop()) {
+                checkpoint.await();
+                snapshot(checkpoint);
+            }
+            checkpoint.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + checkpoint.getFile(), e);
+        }
+    }
 
-                // KRIŽANJE (Crossover)
-                if (RandomUtils.nextDouble() < cr) {
-                    TSP.Tour[] children = pmx(parent1, parent2);
-                    offspring.add(children[0]);
-                    if (offspring.size() < popSize)
-                        offspring.add(children[1]);
+    /**
+     * Replaces the population with the next generation.
+     *
+     * @return the number of evaluations spent on the generation.
+     */
+    int nextGeneration() {
+        selection.prepare(population, popSize);
+
+        //elitizem - poišči najboljšega in ga kopiraj v novo generacijo
+        int eliteIndex = getBestInPopulation();
+        TSP.Tour elite = population[eliteIndex];
+        offspring[0].copyFrom(elite);
+        offspringRates[0] = populationRates[eliteIndex];
+        offspringCrossover[0] = -1;
+        offspringMutation[0] = -1;
+        int size = 1;
+        offspringHashes.clear();
+        offspringHashes.add(elite.getHash());
+
+        // duplikati se zavrnejo, dokler ne porabimo popSize dodatnih poskusov
+        int duplicateBudget = popSize;
+        boolean hypermutation = hypermutationLeft > 0;
+
+        while (size < popSize) {
+            int index1 = selection.select();
+            int index2 = selection.select();
+            // starša primerjamo po vsebini (hash robov)
+            if (sameTour(population[index1], population[index2])) {
+                index2 = selection.select();
+            }
+            TSP.Tour parent1 = population[index1];
+            TSP.Tour parent2 = population[index2];
+            // križanje enakih staršev vrne le kopije, zato jih raje mutiramo
+            boolean identicalParents = sameTour(parent1, parent2);
+
+            // KRIŽANJE (Crossover)
+            int crossoverArm = -1;
+            if (!identicalParents && RandomUtils.nextDouble() < cr) {
+                if (crossovers != null) {
+                    crossoverArm = crossoverPursuit.select();
+                    crossovers[crossoverArm].cross(parent1, parent2, child1, child2);
                 } else {
-                    offspring.add(parent1.clone());
-                    if (offspring.size() < popSize)
-                        offspring.add(parent2.clone());
+                    crossoverArm = 0;
+                    crossover.cross(parent1, parent2, child1, child2);
                 }
+            } else {
+                child1.copyFrom(parent1);
+                child2.copyFrom(parent2);
             }
+            double parentsBest = Math.min(parent1.getDistance(), parent2.getDistance());
+
+            for (int c = 0; c < 2 && size < popSize; c++) {
+                TSP.Tour child = c == 0 ? child1 : child2;
+                int parentIndex = c == 0 ? index1 : index2;
+
+                // MUTACIJA
+                double rate = selfAdaptiveMutation ? adaptRate(populationRates[parentIndex]) : pm;
+                int mutationArm = -1;
+                if (hypermutation || identicalParents || RandomUtils.nextDouble() < rate) {
+                    for (int m = hypermutation ? HYPERMUTATION_STRENGTH : 1; m > 0; m--) {
+                        if (mutations != null) {
+                            mutationArm = mutationPursuit.select();
+                            mutations[mutationArm].mutate(child);
+                        } else {
+                            mutationArm = 0;
+                            mutation.mutate(child);
+                        }
+                    }
+                }
 
-            // MUTACIJA
-            for (int i = 1; i < offspring.size(); i++) {
-                if (RandomUtils.nextDouble() < pm) {
-                    swapMutation(offspring.get(i));
+                if (offspringHashes.add(child.getHash()) || (directed && !hasOffspring(child, size))
+                        || duplicateBudget-- <= 0) {
+                    offspringRates[size] = rate;
+                    offspringCrossover[size] = crossoverArm;
+                    offspringMutation[size] = mutationArm;
+                    offspringReference[size] = crossoverArm >= 0 ? parentsBest : population[parentIndex].getDistance();
+                    offspring[size++].copyFrom(child);
+                } else {
+                    rejectedDuplicates++;
                 }
             }
+        }
 
-            for (TSP.Tour tour : offspring) {
+        // ovrednotimo le spremenjene potomce, kopije ohranijo znano razdaljo
+        int evaluated = 0;
+        if (telemetry != null) telemetry.onEvaluationStart();
+        for (int i = 0; i < popSize; i++) {
+            TSP.Tour tour = offspring[i];
+            if (tour.isDirty()) {
                 problem.evaluate(tour);
-                assert best != null;
-                if (tour.getDistance() < best.getDistance()) {
-                    best = tour.clone();
+                evaluated++;
+                creditOperators(i);
+                if (telemetry != null) {
+                    telemetry.onOffspring(offspringCrossover[i], offspringMutation[i],
+                            tour.getDistance() < offspringReference[i]);
                 }
             }
-
-            population = new ArrayList<>(offspring);
-            offspring.clear();
+            if (tour.getDistance() < best.getDistance()) {
+                best.copyFrom(tour);
+            }
         }
-        return best;
-    }
-
-    private TSP.Tour getBestInPopulation() {
-        TSP.Tour bestLocal = population.get(0);
-        for (TSP.Tour t : population) {
-            if (t.getDistance() < bestLocal.getDistance()) {
-                bestLocal = t;
+        if (telemetry != null) telemetry.onEvaluationEnd(evaluated);
+        if (crossovers != null) crossoverPursuit.update();
+        if (mutations != null) mutationPursuit.update();
+
+        TSP.Tour[] temp = population;
+        population = offspring;
+        offspring = temp;
+        double[] tempRates = populationRates;
+        populationRates = offspringRates;
+        offspringRates = tempRates;
+
+        if (evaluated > 0) {
+            diversity = edgeDiversity.measure(population, popSize);
+            if (diversity < restartDiversity) {
+                if (telemetry != null) telemetry.onRestart(monitor.getGeneration() + 1, diversity);
+                evaluated += partialRestart(false);
+                diversity = edgeDiversity.measure(population, popSize);
             }
+            double sum = 0;
+            for (int i = 0; i < popSize; i++) sum += population[i].getDistance();
+            monitor.record(best.getDistance(), sum / popSize, diversity);
         }
-        return bestLocal;
-    }
-
-    private void swapMutation(TSP.Tour tour) {
-        int dimension = tour.getPath().length;
-        int i = RandomUtils.nextInt(dimension);
-        int j = RandomUtils.nextInt(dimension);
-
-        TSP.City temp = tour.getPath()[i];
-        tour.setCity(i, tour.getPath()[j]);
-        tour.setCity(j, temp);
+        if (hypermutationLeft > 0) hypermutationLeft--;
+        return evaluated;
     }
 
-    private TSP.Tour[] pmx(TSP.Tour parent1, TSP.Tour parent2) {
-        int size = parent1.getPath().length;
-        TSP.Tour child1 = new TSP.Tour(size);
-        TSP.Tour child2 = new TSP.Tour(size);
-
-        int cut1 = RandomUtils.nextInt(size);
-        int cut2 = RandomUtils.nextInt(size);
-
-        if (cut1 > cut2) {
-            int temp = cut1;
-            cut1 = cut2;
-            cut2 = temp;
+    /**
+     * Applies the configured {@link StagnationResponse}.
+     *
+     * @return {@code true} if the run should end.
+     */
+    private boolean respondToStagnation() {
+        if (telemetry != null && stagnationResponse != StagnationResponse.NONE) {
+            telemetry.onStagnation(monitor.getGeneration(), stagnationResponse);
         }
-
-        for (int i = cut1; i <= cut2; i++) {
-            child1.setCity(i, parent1.getPath()[i]);
-            child2.setCity(i, parent2.getPath()[i]);
+        switch (stagnationResponse) {
+            case EARLY_STOP:
+                return true;
+            case HYPERMUTATION:
+                hypermutationLeft = HYPERMUTATION_GENERATIONS;
+                break;
+            case RESEED:
+                partialRestart(true);
+                break;
+            default:
+                return false;
         }
-
-        fillRest(child1, parent2, cut1, cut2, parent1);
-        fillRest(child2, parent1, cut1, cut2, parent2);
-
-        return new TSP.Tour[]{child1, child2};
+        monitor.acknowledge();
+        return false;
     }
 
-    private void fillRest(TSP.Tour child, TSP.Tour sourceParent, int cut1, int cut2, TSP.Tour mappingParent) {
-        int size = child.getPath().length;
-
-        for (int i = 0; i < size; i++) {
-            if (i >= cut1 && i <= cut2) continue;
+    /**
+     * Rewards the operators that produced offspring {@code i} with its relative improvement over
+     * the reference parent. Called once per evaluated offspring.
+     */
+    private void creditOperators(int i) {
+        if (crossovers == null && mutations == null) return;
+        double reference = offspringReference[i];
+        double reward = Math.max(0, (reference - offspring[i].getDistance()) / reference);
+        if (crossovers != null && offspringCrossover[i] >= 0) crossoverPursuit.reward(offspringCrossover[i], reward);
+        if (mutations != null && offspringMutation[i] >= 0) mutationPursuit.reward(offspringMutation[i], reward);
+    }
 
-            TSP.City candidate = sourceParent.getPath()[i];
+    /**
+     * Log-normal self-adaptation of a mutation rate on the logit scale (Bäck and Schütz).
+     */
+    private double adaptRate(double rate) {
+        double adapted = 1 / (1 + (1 - rate) / rate * Math.exp(-MUTATION_RATE_LEARNING * RandomUtils.nextGaussian()));
+        return Math.max(MIN_MUTATION_RATE, Math.min(MAX_MUTATION_RATE, adapted));
+    }
 
-            while (contains(child, candidate, cut1, cut2)) {
-                int indexInMappingParent = findIndex(mappingParent, candidate);
-                candidate = sourceParent.getPath()[indexInMappingParent];
+    /**
+     * Replaces the worst part of the collapsed population with random tours, or with copies of the
+     * elite perturbed by a few mutations. Tours keep their positions, so per-individual data stays
+     * aligned with the population.
+     *
+     * @return the number of evaluations spent.
+     */
+    private int partialRestart(boolean fromElite) {
+        int eliteIndex = getBestInPopulation();
+        child1.copyFrom(population[eliteIndex]);
+        int keep = Math.max(1, (int) Math.round(popSize * (1 - restartFraction)));
+        for (int i = 0; i < popSize; i++) {
+            restartScratch[i] = population[i].getDistance();
+        }
+        Arrays.sort(restartScratch);
+        double cutoff = restartScratch[keep - 1];
+        int toReplace = popSize - keep;
+
+        int evaluated = 0;
+        // najprej slabši od meje, nato enaki meji, dokler ne zamenjamo dovolj osebkov
+        for (int pass = 0; pass < 2 && toReplace > 0; pass++) {
+            for (int i = 0; i < popSize && toReplace > 0; i++) {
+                double d = population[i].getDistance();
+                if (pass == 0 ? d <= cutoff : d != cutoff || i == eliteIndex) continue;
+                if (problem.getNumberOfEvaluations() >= problem.getMaxEvaluations()) return evaluated;
+                TSP.Tour newTour = fromElite ? perturbedElite() : problem.generateTour();
+                problem.evaluate(newTour);
+                evaluated++;
+                toReplace--;
+                population[i].copyFrom(newTour);
+                populationRates[i] = pm;
+                if (newTour.getDistance() < best.getDistance()) {
+                    best.copyFrom(newTour);
+                }
             }
-
-            child.setCity(i, candidate);
         }
+        return evaluated;
     }
 
-    private boolean contains(TSP.Tour tour, TSP.City city, int start, int end) {
-        for (int i = start; i <= end; i++) {
-            if (tour.getPath()[i].index == city.index) {
-                return true;
+    /**
+     * Returns {@code child2} holding a copy of the elite (kept in {@code child1}) with a few random mutations.
+     */
+    private TSP.Tour perturbedElite() {
+        child2.copyFrom(child1);
+        for (int m = 0; m < RESEED_STRENGTH; m++) {
+            if (mutations != null) {
+                mutations[RandomUtils.nextInt(mutations.length)].mutate(child2);
+            } else {
+                mutation.mutate(child2);
             }
         }
-        return false;
+        return child2;
     }
 
-    private int findIndex(TSP.Tour tour, TSP.City city) {
-        for (int i = 0; i < tour.getPath().length; i++) {
-            if (tour.getPath()[i].index == city.index) {
-                return i;
-            }
-        }
-        return -1;
+    private static String[] operatorNames(Object[] adaptive, Object fixed) {
+        Object[] operators = adaptive != null ? adaptive : new Object[]{fixed};
+        String[] names = new String[operators.length];
+        for (int i = 0; i < operators.length; i++) names[i] = operators[i].getClass().getSimpleName();
+        return names;
     }
 
-    private TSP.Tour tournamentSelection() {
-        TSP.Tour best = null;
+    // enaki hashi zadoščajo le pri simetričnih razdaljah, pri asimetričnih primerjamo še smer
+    private boolean sameTour(TSP.Tour a, TSP.Tour b) {
+        return a.isDuplicateOf(b, directed);
+    }
 
-        int tournamentSize = 3;
-        for (int i = 0; i < tournamentSize; i++) {
-            int randomIdx = RandomUtils.nextInt(population.size());
-            TSP.Tour candidate = population.get(randomIdx);
+    // ali je med prvimi size potomci že ista usmerjena pot
+    private boolean hasOffspring(TSP.Tour child, int size) {
+        for (int i = 0; i < size; i++) {
+            if (sameTour(offspring[i], child)) return true;
+        }
+        return false;
+    }
 
-            if (best == null || candidate.getDistance() < best.getDistance()) {
-                best = candidate;
+    private int getBestInPopulation() {
+        int bestLocal = 0;
+        for (int i = 1; i < popSize; i++) {
+            if (population[i].getDistance() < population[bestLocal].getDistance()) {
+                bestLocal = i;
             }
         }
-        return best;
+        return bestLocal;
     }
-}
\ No newline at end of file
+}
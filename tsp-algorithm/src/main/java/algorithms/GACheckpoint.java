@@ -0,0 +1,137 @@
+package algorithms;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Binary snapshot of a running {@link GA}: evaluation count, random generator state, population
+ * (paths, distances and mutation rates), best tour, convergence monitor, adaptive pursuit and the
+ * stagnation counters. Everything else in the GA is scratch space that the next generation
+ * overwrites, so a run resumed from a snapshot continues bit-identically.
+ * <p>
+ * Paths are stored as zero based city positions, as unsigned shorts for up to 65536 cities.
+ */
+final class GACheckpoint {
+
+    private static final int MAGIC = 0x54535047; //"TSPG"
+    private static final int VERSION = 1;
+
+    private GACheckpoint() {
+    }
+
+    static void write(GA ga, DataOutputStream out) throws IOException {
+        TSP problem = ga.problem;
+        int n = problem.getNumberOfCities();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(n);
+        out.writeInt(ga.popSize);
+        out.writeInt(ga.crossovers != null ? ga.crossovers.length : 0);
+        out.writeInt(ga.mutations != null ? ga.mutations.length : 0);
+        out.writeInt(problem.getNumberOfEvaluations());
+
+        byte[] random = RandomUtils.saveState();
+        out.writeInt(random.length);
+        out.write(random);
+
+        writeTour(out, ga.best, n);
+        for (int i = 0; i < ga.popSize; i++) {
+            writeTour(out, ga.population[i], n);
+            out.writeDouble(ga.populationRates[i]);
+        }
+        out.writeDouble(ga.diversity);
+        out.writeInt(ga.rejectedDuplicates);
+        out.writeInt(ga.hypermutationLeft);
+        ga.monitor.writeState(out);
+        if (ga.crossoverPursuit != null) ga.crossoverPursuit.writeState(out);
+        if (ga.mutationPursuit != null) ga.mutationPursuit.writeState(out);
+        out.flush();
+    }
+
+    /**
+     * Restores the state of a GA whose storage was allocated for {@code problem}.
+     *
+     * @throws IllegalArgumentException if the checkpoint belongs to another instance or configuration.
+     */
+    static void read(GA ga, Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            read(ga, new DataInputStream(new BufferedInputStream(stream)));
+        }
+    }
+
+    private static void read(GA ga, DataInput in) throws IOException {
+        TSP problem = ga.problem;
+        int n = problem.getNumberOfCities();
+        if (in.readInt() != MAGIC) throw new IllegalArgumentException("Not a GA checkpoint");
+        int version = in.readInt();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported checkpoint version " + version);
+        int cities = in.readInt(), popSize = in.readInt(), crossoverArms = in.readInt(), mutationArms = in.readInt();
+        if (cities != n || popSize != ga.popSize
+                || crossoverArms != (ga.crossovers != null ? ga.crossovers.length : 0)
+                || mutationArms != (ga.mutations != null ? ga.mutations.length : 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Checkpoint of %d cities, population %d and %d/%d adaptive operators does not match the GA",
+                    cities, popSize, crossoverArms, mutationArms));
+        }
+        problem.setNumberOfEvaluations(in.readInt());
+
+        byte[] random = new byte[in.readInt()];
+        in.readFully(random);
+
+        readTour(in, ga.best, problem);
+        if (Math.abs(length(problem, ga.best) - ga.best.getDistance()) > 1e-6 * Math.max(1, ga.best.getDistance())) {
+            throw new IllegalArgumentException("Checkpoint was written for a different instance");
+        }
+        for (int i = 0; i < popSize; i++) {
+            readTour(in, ga.population[i], problem);
+            ga.populationRates[i] = in.readDouble();
+        }
+        ga.diversity = in.readDouble();
+        ga.rejectedDuplicates = in.readInt();
+        ga.hypermutationLeft = in.readInt();
+        ga.monitor.readState(in);
+        if (ga.crossoverPursuit != null) ga.crossoverPursuit.readState(in);
+        if (ga.mutationPursuit != null) ga.mutationPursuit.readState(in);
+
+        // šele na koncu, ko je vse prebrano, nadaljujemo zaporedje naključnih števil
+        RandomUtils.restoreState(random);
+    }
+
+    private static void writeTour(DataOutput out, TSP.Tour tour, int n) throws IOException {
+        TSP.City[] path = tour.getPath();
+        for (int i = 0; i < n; i++) {
+            if (n <= 65536) out.writeShort(path[i].index - 1);
+            else out.writeInt(path[i].index - 1);
+        }
+        out.writeDouble(tour.getDistance());
+    }
+
+    private static void readTour(DataInput in, TSP.Tour tour, TSP problem) throws IOException {
+        int n = problem.getNumberOfCities();
+        for (int i = 0; i < n; i++) {
+            int position = n <= 65536 ? in.readUnsignedShort() : in.readInt();
+            if (position >= n) throw new IllegalArgumentException("City " + position + " out of range");
+            tour.setCity(i, problem.getCity(position));
+        }
+        tour.setDistance(in.readDouble());
+    }
+
+    // enako kot TSP.evaluate, a brez štetja ovrednotenja
+    private static double length(TSP problem, TSP.Tour tour) {
+        TSP.City[] path = tour.getPath();
+        int n = path.length;
+        double distance = problem.distance(problem.getStart(), path[0]);
+        for (int i = 0; i + 1 < n; i++) distance += problem.distance(path[i], path[i + 1]);
+        return distance + problem.distance(path[n - 1], problem.getStart());
+    }
+}
@@ -0,0 +1,110 @@
+package algorithms;
+
+import algorithms.operators.CX;
+import algorithms.operators.CrossoverOperator;
+import algorithms.operators.EAX;
+import algorithms.operators.ERX;
+import algorithms.operators.InversionMutation;
+import algorithms.operators.MutationOperator;
+import algorithms.operators.OX;
+import algorithms.operators.PMX;
+import algorithms.operators.SwapMutation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * GA parameters as a value object that can be stored in and loaded from a properties file, so
+ * tuned settings can be shipped to the app as defaults.
+ */
+public class GAConfig {
+
+    public int popSize = 100;
+    public double crossoverRate = 0.8;
+    public double mutationRate = 0.1;
+    public boolean adaptive;
+    public String crossover = "PMX"; //PMX, OX, CX, ERX or EAX; ignored when adaptive
+    public String mutation = "Swap"; //Swap or Inversion; ignored when adaptive
+
+    public GAConfig() {
+    }
+
+    public GAConfig(int popSize, double crossoverRate, double mutationRate, boolean adaptive) {
+        this.popSize = popSize;
+        this.crossoverRate = crossoverRate;
+        this.mutationRate = mutationRate;
+        this.adaptive = adaptive;
+    }
+
+    public GA createSolver() {
+        GA ga = new GA(popSize, crossoverRate, mutationRate);
+        ga.setCrossover(createCrossover(crossover));
+        ga.setMutation(createMutation(mutation));
+        ga.setAdaptive(adaptive);
+        return ga;
+    }
+
+    static CrossoverOperator createCrossover(String name) {
+        switch (name) {
+            case "PMX":
+                return new PMX();
+            case "OX":
+                return new OX();
+            case "CX":
+                return new CX();
+            case "ERX":
+                return new ERX();
+            case "EAX":
+                return new EAX();
+            default:
+                throw new IllegalArgumentException("Unknown crossover: " + name);
+        }
+    }
+
+    static MutationOperator createMutation(String name) {
+        switch (name) {
+            case "Swap":
+                return new SwapMutation();
+            case "Inversion":
+                return new InversionMutation();
+            default:
+                throw new IllegalArgumentException("Unknown mutation: " + name);
+        }
+    }
+
+    /**
+     * Reads a configuration; keys that are missing keep their default values.
+     */
+    public static GAConfig load(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        GAConfig config = new GAConfig();
+        config.popSize = Integer.parseInt(properties.getProperty("popSize", String.valueOf(config.popSize)));
+        config.crossoverRate = Double.parseDouble(properties.getProperty("crossoverRate", String.valueOf(config.crossoverRate)));
+        config.mutationRate = Double.parseDouble(properties.getProperty("mutationRate", String.valueOf(config.mutationRate)));
+        config.adaptive = Boolean.parseBoolean(properties.getProperty("adaptive", String.valueOf(config.adaptive)));
+        config.crossover = properties.getProperty("crossover", config.crossover);
+        config.mutation = properties.getProperty("mutation", config.mutation);
+        return config;
+    }
+
+    public void store(OutputStream out, String comment) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("popSize", String.valueOf(popSize));
+        properties.setProperty("crossoverRate", String.format(Locale.US, "%.4f", crossoverRate));
+        properties.setProperty("mutationRate", String.format(Locale.US, "%.4f", mutationRate));
+        properties.setProperty("adaptive", String.valueOf(adaptive));
+        properties.setProperty("crossover", crossover);
+        properties.setProperty("mutation", mutation);
+        properties.store(out, comment);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "Pop=%d, Cr=%.3f, Pm=%.3f, %s", popSize, crossoverRate, mutationRate,
+                adaptive ? "adaptive" : crossover + "/" + mutation);
+    }
+}
@@ -0,0 +1,189 @@
+package algorithms;
+
+import Utility.RandomUtils;
+import algorithms.localsearch.LocalSearch;
+import problems.TSP;
+import telemetry.TelemetrySink;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Re-optimizes a route after stops were added or removed, starting from the previous best tour
+ * instead of solving from scratch.
+ * <p>
+ * Removed stops are spliced out of the previous order, new stops are placed by cheapest insertion,
+ * and a local search repairs the neighborhood of every change. A short iterated local search
+ * (double-bridge kicks, accepted when not worse) then polishes the whole tour. Without a previous
+ * route the same pipeline builds a tour from the start city, which makes this a cheap cold solver too;
+ * large Euclidean instances start from {@link TSP#generateHilbertTour()} instead.
+ * <p>
+ * The tour is evaluated once at the end; the run is bounded by the number of kicks and by the
+ * {@link RunControl}.
+ */
+public class IncrementalSolver implements Solver {
+
+    // nad tem številom mest se evklidski problem brez prejšnje poti začne s Hilbertovo turo
+    static final int HILBERT_START_CITIES = 2000;
+
+    List<Integer> previousRoute = new ArrayList<>();
+    int kicks = -1; //-1: 2 * number of cities
+    RunControl control = new RunControl();
+    TelemetrySink telemetry; //null = no telemetry
+
+    /**
+     * Sets the previous route as a list of {@link TSP.City#realId}s. Ids that are no longer part of
+     * the problem are dropped; cities of the problem that are missing from the route are inserted.
+     */
+    public void setPreviousRoute(List<Integer> realIds) {
+        previousRoute = new ArrayList<>(realIds);
+    }
+
+    public void setKicks(int kicks) {
+        this.kicks = kicks;
+    }
+
+    /**
+     * Reports the run and its local search passes to {@code telemetry}; {@code null} turns it off.
+     */
+    public void setTelemetry(TelemetrySink telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public void setRunControl(RunControl control) {
+        this.control = control;
+    }
+
+    @Override
+    public TSP.Tour execute(TSP problem) {
+        control.start();
+        long start = System.nanoTime();
+        int n = problem.getNumberOfCities();
+        if (telemetry != null) telemetry.onRunStart(n, new String[0], new String[0]);
+        Map<Integer, TSP.City> byRealId = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            TSP.City city = problem.getCity(i);
+            byRealId.put(city.realId, city);
+        }
+
+        // izločimo odstranjena mesta; njuna soseda v stari poti sta kandidata za popravilo
+        List<TSP.City> order = new ArrayList<>(n);
+        boolean[] placed = new boolean[n];
+        int[] active = new int[3 * n];
+        int activeCount = 0;
+        boolean spliced = false;
+        for (Integer realId : previousRoute) {
+            TSP.City city = byRealId.get(realId);
+            if (city == null || placed[city.index - 1]) {
+                spliced = true;
+                continue;
+            }
+            if (spliced && !order.isEmpty()) {
+                active[activeCount++] = order.get(order.size() - 1).index - 1;
+                active[activeCount++] = city.index - 1;
+            }
+            spliced = false;
+            order.add(city);
+            placed[city.index - 1] = true;
+        }
+        if (spliced && !order.isEmpty()) {
+            active[activeCount++] = order.get(order.size() - 1).index - 1;
+            active[activeCount++] = order.get(0).index - 1;
+        }
+        if (order.isEmpty() && n > HILBERT_START_CITIES && problem.isEuclidean()) {
+            // velik problem brez prejšnje poti: Hilbertova tura namesto vstavljanja v O(n^2)
+            for (TSP.City city : problem.generateHilbertTour().getPath()) {
+                order.add(city);
+                placed[city.index - 1] = true;
+                active[activeCount++] = city.index - 1;
+            }
+        }
+        if (order.isEmpty()) {
+            order.add(problem.getStart());
+            placed[problem.getStart().index - 1] = true;
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (placed[i]) continue;
+            insertCheapest(problem, order, problem.getCity(i));
+            active[activeCount++] = i;
+        }
+
+        TSP.Tour current = new TSP.Tour(n);
+        for (int i = 0; i < n; i++) {
+            current.setCity(i, order.get(i));
+        }
+        LocalSearch localSearch = new LocalSearch(problem);
+        localSearch.setTelemetry(telemetry);
+        localSearch.optimize(current, active, activeCount);
+
+        perturb(problem, localSearch, current);
+
+        problem.evaluate(current);
+        control.finish(current, problem.getNumberOfEvaluations());
+        if (telemetry != null) {
+            telemetry.onRunEnd(current.getDistance(), problem.getNumberOfEvaluations(), System.nanoTime() - start);
+        }
+        return current;
+    }
+
+    /**
+     * Iterated local search with segment-preserving double-bridge kicks, so that it stays exact for
+     * asymmetric distances.
+     */
+    private void perturb(TSP problem, LocalSearch localSearch, TSP.Tour current) {
+        int n = problem.getNumberOfCities();
+        if (n < 8) return;
+        int budget = kicks < 0 ? 2 * n : kicks;
+        TSP.Tour candidate = new TSP.Tour(current);
+        TSP.City[] scratch = new TSP.City[n];
+        int[] active = new int[8];
+        double currentCost = localSearch.cost(current);
+
+        for (int kick = 0; kick < budget && !control.shouldStop(); kick++) {
+            candidate.copyFrom(current);
+            TSP.City[] path = candidate.getPath();
+
+            // A B C D -> A C B D, prvo mesto ostane na začetku
+            int p1 = 1 + RandomUtils.nextInt(n - 3);
+            int p2 = p1 + 1 + RandomUtils.nextInt(n - p1 - 2);
+            int p3 = p2 + 1 + RandomUtils.nextInt(n - p2 - 1);
+            int size = 0;
+            for (int i = p2; i < p3; i++) scratch[size++] = path[i];
+            for (int i = p1; i < p2; i++) scratch[size++] = path[i];
+            for (int i = 0; i < size; i++) candidate.setCity(p1 + i, scratch[i]);
+
+            int[] cuts = {p1 - 1, p1, p2 - 1, p2, p3 - 1, p3 % n, 0, n - 1};
+            for (int k = 0; k < cuts.length; k++) {
+                active[k] = path[cuts[k]].index - 1;
+            }
+            localSearch.optimize(candidate, active, active.length);
+
+            double candidateCost = localSearch.cost(candidate);
+            if (candidateCost <= currentCost) {
+                current.copyFrom(candidate);
+                currentCost = candidateCost;
+            }
+        }
+    }
+
+    private static void insertCheapest(TSP problem, List<TSP.City> order, TSP.City city) {
+        int size = order.size();
+        int bestPosition = size;
+        double bestDelta = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            TSP.City from = order.get(i);
+            TSP.City to = order.get(i + 1 == size ? 0 : i + 1);
+            double delta = problem.distance(from, city) + problem.distance(city, to)
+                    - (size > 1 ? problem.distance(from, to) : 0);
+            if (delta < bestDelta) {
+                bestDelta = delta;
+                bestPosition = i + 1;
+            }
+        }
+        order.add(bestPosition, city);
+    }
+}
@@ -0,0 +1,77 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing set of primitive {@code long} values. Used by the GA to reject duplicate
+ * tours by their edge hash without boxing.
+ */
+class LongHashSet {
+
+    private long[] keys;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds the value to the set.
+     *
+     * @return {@code true} if the value was not yet present.
+     */
+    boolean add(long value) {
+        if (size * 2 >= keys.length) {
+            grow();
+        }
+        int slot = slotOf(value);
+        while (used[slot]) {
+            if (keys[slot] == value) return false;
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = value;
+        size++;
+        return true;
+    }
+
+    boolean contains(long value) {
+        int slot = slotOf(value);
+        while (used[slot]) {
+            if (keys[slot] == value) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    void clear() {
+        if (size == 0) return;
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slotOf(long value) {
+        return (int) (value ^ (value >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) add(oldKeys[i]);
+        }
+    }
+}
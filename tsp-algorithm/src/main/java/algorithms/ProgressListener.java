@@ -0,0 +1,18 @@
+package algorithms;
+
+import problems.TSP;
+
+/**
+ * Receives the best tour found so far while a solver is running.
+ */
+public interface ProgressListener {
+
+    /**
+     * Called from the solver thread, at most once per progress interval and only after an improvement.
+     *
+     * @param best        a copy of the best tour, safe to keep and to hand to other threads.
+     * @param evaluations evaluations spent so far.
+     * @param elapsedMillis wall time since the run started.
+     */
+    void onProgress(TSP.Tour best, int evaluations, long elapsedMillis);
+}
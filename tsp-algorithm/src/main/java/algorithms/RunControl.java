@@ -0,0 +1,92 @@
+package algorithms;
+
+import problems.TSP;
+
+/**
+ * Lets the caller bound and observe a running solver: a wall-clock time limit, cooperative
+ * cancellation from any thread, and a throttled progress callback with the best tour so far.
+ * <p>
+ * Solvers call {@link #start()} once, {@link #shouldStop()} and {@link #update} between
+ * generations (or passes), and {@link #finish} before returning. The time limit and the listener
+ * carry over to consecutive runs, but a cancellation is final: it also stops every later run,
+ * including one whose {@link #start()} comes after the {@link #cancel()}. Create a new control for
+ * each run that may be cancelled; a control must not be shared by concurrent runs.
+ */
+public class RunControl {
+
+    private volatile boolean cancelled;
+    private long timeLimitNanos = Long.MAX_VALUE;
+    private long startNanos;
+
+    private ProgressListener listener;
+    private long progressIntervalNanos;
+    private long lastReportNanos;
+    private double lastReportedDistance;
+
+    /**
+     * Stops the run after {@code millis} of wall time, measured from the start of the run.
+     */
+    public void setTimeLimit(long millis) {
+        timeLimitNanos = millis * 1_000_000L;
+    }
+
+    /**
+     * Reports improvements to {@code listener}, at most once every {@code minIntervalMillis}.
+     * An interval of {@code 0} reports every improvement.
+     */
+    public void setProgressListener(ProgressListener listener, long minIntervalMillis) {
+        this.listener = listener;
+        this.progressIntervalNanos = minIntervalMillis * 1_000_000L;
+    }
+
+    /**
+     * Asks the solver to stop at its next check; a solver that has not started yet stops at its first.
+     * Safe to call from any thread; the solver still returns the best tour found so far. Cannot be undone.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos - progressIntervalNanos;
+        lastReportedDistance = Double.MAX_VALUE;
+    }
+
+    public boolean shouldStop() {
+        return cancelled || System.nanoTime() - startNanos >= timeLimitNanos;
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    /**
+     * Reports {@code best} if it improved since the last report and the progress interval has passed.
+     */
+    public void update(TSP.Tour best, int evaluations) {
+        if (listener == null || best.getDistance() >= lastReportedDistance) return;
+        long now = System.nanoTime();
+        if (now - lastReportNanos < progressIntervalNanos) return;
+        report(best, evaluations, now);
+    }
+
+    /**
+     * Reports the final best tour if the listener has not seen it yet.
+     */
+    public void finish(TSP.Tour best, int evaluations) {
+        if (listener != null && best != null && best.getDistance() < lastReportedDistance) {
+            report(best, evaluations, System.nanoTime());
+        }
+    }
+
+    private void report(TSP.Tour best, int evaluations, long now) {
+        lastReportNanos = now;
+        lastReportedDistance = best.getDistance();
+        listener.onProgress(best.clone(), evaluations, (now - startNanos) / 1_000_000L);
+    }
+}
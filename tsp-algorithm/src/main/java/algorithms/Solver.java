@@ -0,0 +1,14 @@
+package algorithms;
+
+import problems.TSP;
+
+public interface Solver {
+
+    /**
+     * Solves the problem and returns the best tour found. The run ends when the problem's evaluation
+     * budget is spent or when the {@link RunControl} asks it to stop, whichever comes first.
+     */
+    TSP.Tour execute(TSP problem);
+
+    void setRunControl(RunControl control);
+}
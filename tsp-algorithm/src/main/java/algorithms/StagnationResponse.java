@@ -0,0 +1,15 @@
+package algorithms;
+
+/**
+ * What the GA does when its {@link ConvergenceMonitor} reports stagnation.
+ */
+public enum StagnationResponse {
+    /** Keep going; only the diversity-triggered partial restart applies. */
+    NONE,
+    /** End the run and return the best tour, leaving the rest of the budget unused. */
+    EARLY_STOP,
+    /** Mutate every offspring several times for a few generations. */
+    HYPERMUTATION,
+    /** Replace the worst part of the population with perturbed copies of the elite. */
+    RESEED
+}
@@ -0,0 +1,359 @@
+package algorithms.decomposition;
+
+import Utility.RandomUtils;
+import algorithms.IncrementalSolver;
+import algorithms.RunControl;
+import algorithms.Solver;
+import algorithms.localsearch.LocalSearch;
+import problems.TSP;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Solves very large instances by decomposition.
+ * <p>
+ * The cities are partitioned into clusters of about {@code clusterSize} cities by k-means (or a
+ * density-adaptive grid). Every cluster is solved as a subproblem by its own solver instance, in
+ * parallel on a {@link ForkJoinPool}. The order of the clusters comes from a small TSP over the
+ * cluster centroids, solved the same way. Each cluster tour is opened at the edge that best links
+ * it to the previous cluster and towards the next one. The concatenated tour is then repaired by
+ * local search that starts from the boundary regions: the cities around every junction and every
+ * city with a near neighbor in another cluster.
+ * <p>
+ * The evaluation budget is shared by the clusters in proportion to their size; the evaluations
+ * of all subproblems are added to the problem's counter. Each cluster runs with its own seed drawn
+ * from the caller's generator, so the result does not depend on the parallelism.
+ */
+public class DecompositionSolver implements Solver {
+
+    public enum Partitioning {KMEANS, GRID}
+
+    private static final int KMEANS_ITERATIONS = 20;
+    private static final int BOUNDARY_NEIGHBORS = 8; //same as the local search neighbor lists
+
+    private final Supplier<Solver> clusterSolver;
+    private int clusterSize = 200;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Partitioning partitioning = Partitioning.KMEANS;
+    private int junctionWindow = 10; //positions on each side of a junction that local search starts from
+    private RunControl control = new RunControl();
+
+    /**
+     * Solves the clusters with a cold {@link IncrementalSolver} (insertion and iterated local search).
+     */
+    public DecompositionSolver() {
+        this(IncrementalSolver::new);
+    }
+
+    /**
+     * @param clusterSolver creates a fresh solver for every cluster and for the cluster order.
+     */
+    public DecompositionSolver(Supplier<Solver> clusterSolver) {
+        this.clusterSolver = clusterSolver;
+    }
+
+    public void setClusterSize(int clusterSize) {
+        this.clusterSize = clusterSize;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setPartitioning(Partitioning partitioning) {
+        this.partitioning = partitioning;
+    }
+
+    public void setJunctionWindow(int junctionWindow) {
+        this.junctionWindow = junctionWindow;
+    }
+
+    @Override
+    public void setRunControl(RunControl control) {
+        this.control = control;
+    }
+
+    @Override
+    public TSP.Tour execute(TSP problem) {
+        control.start();
+        int n = problem.getNumberOfCities();
+        double[] xs = new double[n], ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = problem.getCity(i).x;
+            ys[i] = problem.getCity(i).y;
+        }
+        int k = Math.max(1, (n + clusterSize - 1) / clusterSize);
+        long baseSeed = ((long) RandomUtils.nextInt(Integer.MAX_VALUE) << 31) ^ RandomUtils.nextInt(Integer.MAX_VALUE);
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        // delovne niti lahko prevzame tudi klicoča nit, zato ohranimo njen generator
+        byte[] callerRandom = RandomUtils.saveState();
+        int[] order;
+        int[][] clusters, clusterTours;
+        double[][] centroids;
+        int evaluations = 0;
+        try {
+            int[] assignment = k == 1 ? new int[n] : partitioning == Partitioning.GRID
+                    ? Partitioner.grid(xs, ys, k) : Partitioner.kMeans(xs, ys, k, KMEANS_ITERATIONS, pool);
+            clusters = group(assignment);
+            k = clusters.length;
+            centroids = centroids(clusters, xs, ys);
+
+            // gruče in vrstni red gruč rešujemo hkrati, največje najprej
+            Integer[] bySize = new Integer[k];
+            for (int c = 0; c < k; c++) bySize[c] = c;
+            Arrays.sort(bySize, (a, b) -> clusters[b].length - clusters[a].length);
+            ForkJoinTask<Result> meta = pool.submit(() -> solveOrder(problem, centroids, mix(baseSeed, -1)));
+            List<ForkJoinTask<Result>> tasks = new ArrayList<>(Collections.nCopies(k, null));
+            int[][] members = clusters;
+            for (int c : bySize) {
+                tasks.set(c, pool.submit(() -> solveCluster(problem, members[c], mix(baseSeed, c))));
+            }
+            clusterTours = new int[k][];
+            for (int c = 0; c < k; c++) {
+                Result result = tasks.get(c).join();
+                clusterTours[c] = result.tour;
+                evaluations += result.evaluations;
+            }
+            Result metaResult = meta.join();
+            order = metaResult.tour;
+            evaluations += metaResult.evaluations;
+        } finally {
+            pool.shutdown();
+            RandomUtils.restoreState(callerRandom);
+        }
+
+        int[] tour = stitch(problem, order, clusterTours, centroids);
+
+        TSP.Tour result = new TSP.Tour(n);
+        for (int i = 0; i < n; i++) {
+            result.setCity(i, problem.getCity(tour[i]));
+        }
+        if (k > 1) {
+            LocalSearch localSearch = new LocalSearch(problem);
+            int[] active = boundary(problem, clusters, order, tour);
+            localSearch.optimize(result, active, active.length);
+        }
+        // evaluate začne pri začetnem mestu, zato mora biti pot odprta tam (tudi pri eni gruči)
+        rotateToStart(problem, result);
+        problem.setNumberOfEvaluations(problem.getNumberOfEvaluations() + evaluations);
+        problem.evaluate(result);
+        control.finish(result, problem.getNumberOfEvaluations());
+        return result;
+    }
+
+    private static void rotateToStart(TSP problem, TSP.Tour tour) {
+        TSP.City[] path = tour.getPath();
+        int n = path.length, offset = 0;
+        while (offset < n && path[offset] != problem.getStart()) offset++;
+        if (offset == 0 || offset == n) return;
+        TSP.City[] rotated = new TSP.City[n];
+        for (int i = 0; i < n; i++) rotated[i] = path[(offset + i) % n];
+        tour.setPath(rotated);
+    }
+
+    private static final class Result {
+        final int[] tour; //zero based positions in the parent problem (or cluster ids)
+        final int evaluations;
+
+        Result(int[] tour, int evaluations) {
+            this.tour = tour;
+            this.evaluations = evaluations;
+        }
+    }
+
+    private Result solveCluster(TSP problem, int[] members, long seed) {
+        int m = members.length;
+        if (m <= 3) return new Result(members.clone(), 0);
+        List<Integer> realIds = new ArrayList<>(m);
+        for (int member : members) realIds.add(problem.getCity(member).realId);
+        TSP subproblem = problem.generateSubproblem(realIds);
+        subproblem.setMaxEvaluations(budget(problem, m));
+        TSP.Tour tour = solve(subproblem, seed);
+
+        int[] cycle = new int[m];
+        TSP.City[] path = tour.getPath();
+        for (int i = 0; i < m; i++) cycle[i] = members[path[i].index - 1];
+        return new Result(cycle, subproblem.getNumberOfEvaluations());
+    }
+
+    private Result solveOrder(TSP problem, double[][] centroids, long seed) {
+        int k = centroids[0].length;
+        if (k <= 3) {
+            int[] order = new int[k];
+            for (int c = 0; c < k; c++) order[c] = c;
+            return new Result(order, 0);
+        }
+        TSP meta = TSP.euclidean("clusters", centroids[0], centroids[1], budget(problem, k));
+        TSP.Tour tour = solve(meta, seed);
+        int[] order = new int[k];
+        TSP.City[] path = tour.getPath();
+        for (int i = 0; i < k; i++) order[i] = path[i].index - 1;
+        return new Result(order, meta.getNumberOfEvaluations());
+    }
+
+    private TSP.Tour solve(TSP subproblem, long seed) {
+        RandomUtils.setSeed(seed);
+        Solver solver = clusterSolver.get();
+        RunControl parent = control;
+        // podrejeni zagoni se ustavijo skupaj z nadrejenim
+        solver.setRunControl(new RunControl() {
+            @Override
+            public boolean shouldStop() {
+                return super.shouldStop() || parent.shouldStop();
+            }
+        });
+        return solver.execute(subproblem);
+    }
+
+    private static int budget(TSP problem, int cities) {
+        return (int) Math.max(1, (long) problem.getMaxEvaluations() * cities / problem.getNumberOfCities());
+    }
+
+    /**
+     * Joins the cluster cycles in the given order. Every cycle is opened at the edge, and traversed in
+     * the direction, that minimizes the link from the previous cluster's exit plus the cycle without the
+     * removed edge plus the link towards the next cluster (its centroid, or the first entry at the end).
+     */
+    private static int[] stitch(TSP problem, int[] order, int[][] clusterTours, double[][] centroids) {
+        int n = problem.getNumberOfCities();
+        int k = order.length;
+        int[] tour = new int[n];
+        int size = 0;
+        int exit = -1, firstEntry = -1;
+        for (int t = 0; t < k; t++) {
+            int[] cycle = clusterTours[order[t]];
+            int m = cycle.length;
+            int previous = order[(t + k - 1) % k], next = order[(t + 1) % k];
+            double forward = 0, backward = 0;
+            for (int i = 0; i < m; i++) {
+                forward += distance(problem, cycle[i], cycle[(i + 1) % m]);
+                backward += distance(problem, cycle[(i + 1) % m], cycle[i]);
+            }
+            double bestCost = Double.MAX_VALUE;
+            int bestEdge = 0;
+            boolean bestForward = true;
+            for (int i = 0; i < m; i++) {
+                int u = cycle[i], v = cycle[(i + 1) % m];
+                // naprej: vstop v v, izstop v u; nazaj: vstop v u, izstop v v
+                double costForward = link(problem, exit, previous, centroids, v) + forward - distance(problem, u, v)
+                        + link(problem, u, t == k - 1 ? firstEntry : -1, next, centroids);
+                double costBackward = link(problem, exit, previous, centroids, u) + backward - distance(problem, v, u)
+                        + link(problem, v, t == k - 1 ? firstEntry : -1, next, centroids);
+                if (costForward < bestCost) {
+                    bestCost = costForward;
+                    bestEdge = i;
+                    bestForward = true;
+                }
+                if (costBackward < bestCost) {
+                    bestCost = costBackward;
+                    bestEdge = i;
+                    bestForward = false;
+                }
+            }
+            int start = size;
+            for (int j = 0; j < m; j++) {
+                tour[size++] = bestForward ? cycle[(bestEdge + 1 + j) % m] : cycle[(bestEdge - j + m) % m];
+            }
+            if (t == 0) firstEntry = tour[start];
+            exit = tour[size - 1];
+        }
+        return tour;
+    }
+
+    // od izstopa prejšnje gruče (ali njenega središča, dokler izstopa še ni) do mesta
+    private static double link(TSP problem, int exit, int previousCluster, double[][] centroids, int city) {
+        if (exit >= 0) return distance(problem, exit, city);
+        TSP.City c = problem.getCity(city);
+        return Math.hypot(c.x - centroids[0][previousCluster], c.y - centroids[1][previousCluster]);
+    }
+
+    // od mesta do vstopa prve gruče (ali do središča naslednje gruče)
+    private static double link(TSP problem, int city, int entry, int nextCluster, double[][] centroids) {
+        if (entry >= 0) return distance(problem, city, entry);
+        TSP.City c = problem.getCity(city);
+        return Math.hypot(c.x - centroids[0][nextCluster], c.y - centroids[1][nextCluster]);
+    }
+
+    private static double distance(TSP problem, int from, int to) {
+        return problem.distance(problem.getCity(from), problem.getCity(to));
+    }
+
+    /**
+     * Returns the cities within {@code junctionWindow} positions of every junction between clusters,
+     * followed by the cities that have one of their nearest neighbors in another cluster.
+     */
+    private int[] boundary(TSP problem, int[][] clusters, int[] order, int[] tour) {
+        int n = tour.length;
+        int[] clusterOf = new int[n];
+        for (int c = 0; c < clusters.length; c++) {
+            for (int city : clusters[c]) clusterOf[city] = c;
+        }
+        int window = Math.min(junctionWindow, n / 2);
+        int[] active = new int[order.length * 2 * window + n];
+        int count = 0, junction = 0;
+        for (int cluster : order) {
+            for (int d = -window; d < window; d++) {
+                active[count++] = tour[(junction + d + n) % n];
+            }
+            junction += clusters[cluster].length;
+        }
+        int[][] neighbors = problem.getNeighborLists(BOUNDARY_NEIGHBORS);
+        for (int city = 0; city < n; city++) {
+            for (int neighbor : neighbors[city]) {
+                if (clusterOf[neighbor] != clusterOf[city]) {
+                    active[count++] = city;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(active, count);
+    }
+
+    private static int[][] group(int[] assignment) {
+        int k = 0;
+        for (int c : assignment) k = Math.max(k, c + 1);
+        int[] count = new int[k];
+        for (int c : assignment) count[c]++;
+        int[] id = new int[k];
+        int clusters = 0;
+        for (int c = 0; c < k; c++) id[c] = count[c] > 0 ? clusters++ : -1;
+        int[][] groups = new int[clusters][];
+        for (int c = 0; c < k; c++) {
+            if (count[c] > 0) groups[id[c]] = new int[count[c]];
+        }
+        int[] fill = new int[clusters];
+        for (int i = 0; i < assignment.length; i++) {
+            int g = id[assignment[i]];
+            groups[g][fill[g]++] = i;
+        }
+        return groups;
+    }
+
+    private static double[][] centroids(int[][] clusters, double[] xs, double[] ys) {
+        double[][] centroids = new double[2][clusters.length];
+        for (int c = 0; c < clusters.length; c++) {
+            for (int i : clusters[c]) {
+                centroids[0][c] += xs[i];
+                centroids[1][c] += ys[i];
+            }
+            centroids[0][c] /= clusters[c].length;
+            centroids[1][c] /= clusters[c].length;
+        }
+        return centroids;
+    }
+
+    // splitmix64: neodvisno seme za vsako gručo
+    private static long mix(long seed, int cluster) {
+        long z = seed + 0x9E3779B97F4A7C15L * (cluster + 2L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
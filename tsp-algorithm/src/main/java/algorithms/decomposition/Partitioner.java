@@ -0,0 +1,128 @@
+package algorithms.decomposition;
+
+import Utility.RandomUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Splits cities, given by their coordinates, into clusters.
+ */
+final class Partitioner {
+
+    private static final int CHUNK = 4096; //cities per parallel assignment task
+
+    private Partitioner() {
+    }
+
+    /**
+     * Lloyd's k-means with k-means++ seeding; the assignment step runs on {@code pool}.
+     *
+     * @return the cluster of every city; clusters may end up empty.
+     */
+    static int[] kMeans(double[] xs, double[] ys, int k, int maxIterations, ForkJoinPool pool) {
+        int n = xs.length;
+        double[] cx = new double[k], cy = new double[k];
+
+        // k-means++: vsako naslednje središče izberemo sorazmerno s kvadratom razdalje do najbližjega
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.MAX_VALUE);
+        int first = RandomUtils.nextInt(n);
+        cx[0] = xs[first];
+        cy[0] = ys[first];
+        for (int c = 1; c < k; c++) {
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                double dx = xs[i] - cx[c - 1], dy = ys[i] - cy[c - 1];
+                nearest[i] = Math.min(nearest[i], dx * dx + dy * dy);
+                total += nearest[i];
+            }
+            double r = RandomUtils.nextDouble() * total;
+            int chosen = n - 1;
+            for (int i = 0; i < n; i++) {
+                r -= nearest[i];
+                if (r < 0) {
+                    chosen = i;
+                    break;
+                }
+            }
+            cx[c] = xs[chosen];
+            cy[c] = ys[chosen];
+        }
+
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        double[] sumX = new double[k], sumY = new double[k];
+        int[] count = new int[k];
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            int changed = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                    .map(chunk -> assign(xs, ys, cx, cy, assignment, chunk * CHUNK, Math.min(n, (chunk + 1) * CHUNK)))
+                    .sum()).join();
+            if (changed == 0) break;
+
+            Arrays.fill(sumX, 0);
+            Arrays.fill(sumY, 0);
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) {
+                sumX[assignment[i]] += xs[i];
+                sumY[assignment[i]] += ys[i];
+                count[assignment[i]]++;
+            }
+            for (int c = 0; c < k; c++) {
+                if (count[c] > 0) {
+                    cx[c] = sumX[c] / count[c];
+                    cy[c] = sumY[c] / count[c];
+                }
+            }
+        }
+        return assignment;
+    }
+
+    // dodeli mesta [from, to) najbližjemu središču in vrne število sprememb
+    private static int assign(double[] xs, double[] ys, double[] cx, double[] cy, int[] assignment, int from, int to) {
+        int changed = 0;
+        for (int i = from; i < to; i++) {
+            int best = 0;
+            double bestDistance = Double.MAX_VALUE;
+            for (int c = 0; c < cx.length; c++) {
+                double dx = xs[i] - cx[c], dy = ys[i] - cy[c];
+                double d = dx * dx + dy * dy;
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = c;
+                }
+            }
+            if (assignment[i] != best) {
+                assignment[i] = best;
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Density-adaptive grid: the cities are cut into vertical strips of equal size by x, and every
+     * strip into cells of equal size by y, so all of the at least {@code k} clusters are equally large.
+     */
+    static int[] grid(double[] xs, double[] ys, int k) {
+        int n = xs.length;
+        int strips = (int) Math.ceil(Math.sqrt(k));
+        int cellsPerStrip = (k + strips - 1) / strips;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(xs[a], xs[b]));
+
+        int[] assignment = new int[n];
+        for (int s = 0; s < strips; s++) {
+            int from = (int) ((long) n * s / strips), to = (int) ((long) n * (s + 1) / strips);
+            Arrays.sort(order, from, to, (a, b) -> Double.compare(ys[a], ys[b]));
+            int size = to - from;
+            for (int i = 0; i < size; i++) {
+                assignment[order[from + i]] = s * cellsPerStrip + (int) ((long) i * cellsPerStrip / size);
+            }
+        }
+        return assignment;
+    }
+}
@@ -0,0 +1,477 @@
+package algorithms.localsearch;
+
+import problems.TSP;
+import telemetry.TelemetrySink;
+
+import java.util.Arrays;
+
+/**
+ * First-improvement 2-opt and Or-opt on array tours, driven by nearest neighbor lists and a queue
+ * of active cities (don't-look bits).
+ * <p>
+ * The tour is first rotated so that it begins with the problem's start city. In that form
+ * {@link TSP#evaluate} is exactly the cost of the closed tour, so all moves are scored against
+ * the real objective. Reversing a segment changes the direction of its inner edges. The cost of
+ * a reversal is therefore taken from prefix sums of the forward and backward edge lengths, which
+ * keeps the moves exact for asymmetric matrices. Every applied move then costs {@code O(n)}.
+ * <p>
+ * Symmetric instances with more than {@value #LIST_CITIES} cities use a {@link TwoLevelList}
+ * instead, where a move costs {@code O(sqrt(n))}; the tour is rotated to the start city only when
+ * it is stored back.
+ * <p>
+ * Edges can be fixed: moves that would remove a fixed edge are skipped, so the cities joined by
+ * fixed edges stay adjacent (a segment may still be moved or reversed as a whole).
+ * <p>
+ * Local search does not count evaluations; callers evaluate the resulting tour once.
+ */
+public class LocalSearch {
+
+    private static final int NEIGHBORS = 8;
+    private static final int MAX_SEGMENT = 3;
+    private static final double EPSILON = 1e-9;
+
+    // nad tem številom mest simetrični primeri uporabljajo dvonivojski seznam namesto tabele
+    static final int LIST_CITIES = 5000;
+
+    private final TSP problem;
+    private final int n;
+    private final int[][] nearestNeighbors;
+    private int[][] neighbors;
+    private final TSP.City[] cities;
+
+    // pot kot indeksi mest, položaj vsakega mesta in predpone dolžin robov v obeh smereh
+    private final int[] path, position, scratch;
+    private final double[] forward, backward;
+    private final TwoLevelList list; //null = array tour
+
+    private final int[] queue;
+    private final boolean[] queued;
+    private int queueHead, queueSize;
+
+    private int[] fixed; //two fixed partners per city, -1 = none; null = no fixed edges
+    private TelemetrySink telemetry; //null = no telemetry
+
+    public LocalSearch(TSP problem) {
+        this.problem = problem;
+        n = problem.getNumberOfCities();
+        nearestNeighbors = problem.getNeighborLists(NEIGHBORS);
+        neighbors = nearestNeighbors;
+        cities = new TSP.City[n];
+        for (int i = 0; i < n; i++) {
+            cities[i] = problem.getCity(i);
+        }
+        path = new int[n];
+        if (n > LIST_CITIES && problem.isSymmetric()) {
+            list = new TwoLevelList(n);
+            position = scratch = null;
+            forward = backward = null;
+        } else {
+            list = null;
+            position = new int[n];
+            scratch = new int[n];
+            forward = new double[n + 1];
+            backward = new double[n + 1];
+        }
+        queue = new int[n];
+        queued = new boolean[n];
+    }
+
+    /**
+     * Reports every pass to {@code telemetry}; {@code null} turns it off.
+     */
+    public void setTelemetry(TelemetrySink telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Replaces the candidate lists that moves are taken from (zero based cities per city, best
+     * first); {@code null} restores the nearest neighbor lists of the problem.
+     */
+    public void setNeighborLists(int[][] neighbors) {
+        this.neighbors = neighbors != null ? neighbors : nearestNeighbors;
+    }
+
+    /**
+     * Forbids moves that remove the edge between cities {@code a} and {@code b} (zero based), in
+     * either direction. A city can have at most two fixed edges.
+     */
+    public void fixEdge(int a, int b) {
+        if (fixed == null) {
+            fixed = new int[2 * n];
+            Arrays.fill(fixed, -1);
+        }
+        attach(a, b);
+        attach(b, a);
+    }
+
+    public void releaseEdge(int a, int b) {
+        if (fixed == null) return;
+        detach(a, b);
+        detach(b, a);
+    }
+
+    public void releaseAllEdges() {
+        fixed = null;
+    }
+
+    private void attach(int a, int b) {
+        if (fixed[2 * a] < 0) fixed[2 * a] = b;
+        else if (fixed[2 * a + 1] < 0) fixed[2 * a + 1] = b;
+        else throw new IllegalArgumentException("City " + a + " already has two fixed edges");
+    }
+
+    private void detach(int a, int b) {
+        if (fixed[2 * a] == b) {
+            fixed[2 * a] = fixed[2 * a + 1];
+            fixed[2 * a + 1] = -1;
+        } else if (fixed[2 * a + 1] == b) {
+            fixed[2 * a + 1] = -1;
+        }
+    }
+
+    private boolean isFixed(int a, int b) {
+        return fixed != null && (fixed[2 * a] == b || fixed[2 * a + 1] == b);
+    }
+
+    /**
+     * Improves the tour until no 2-opt or Or-opt move starting at any city improves it.
+     *
+     * @return {@code true} if the tour changed.
+     */
+    public boolean optimize(TSP.Tour tour) {
+        for (int c = 0; c < n; c++) {
+            push(c);
+        }
+        return run(tour);
+    }
+
+    /**
+     * Like {@link #optimize(TSP.Tour)}, but only the given cities (zero based) start out active.
+     * Useful after a local change such as inserting a city.
+     */
+    public boolean optimize(TSP.Tour tour, int[] activeCities, int count) {
+        for (int k = 0; k < count; k++) {
+            push(activeCities[k]);
+        }
+        return run(tour);
+    }
+
+    /**
+     * Returns the length of the tour as {@link TSP#evaluate} would compute it after rotation to the
+     * start city, without counting an evaluation.
+     */
+    public double cost(TSP.Tour tour) {
+        TSP.City[] p = tour.getPath();
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += problem.distance(p[i], p[i + 1 == n ? 0 : i + 1]);
+        }
+        return total;
+    }
+
+    private boolean run(TSP.Tour tour) {
+        if (n < 5) {
+            clearQueue();
+            return false;
+        }
+        double before = 0;
+        if (telemetry != null) {
+            telemetry.onLocalSearchStart();
+            before = cost(tour);
+        }
+        load(tour);
+        int moves = 0;
+        while (queueSize > 0) {
+            int city = pop();
+            while (list != null ? improveTwoOptList(city) || improveOrOptList(city)
+                    : improveTwoOpt(city) || improveOrOpt(city)) {
+                moves++;
+                push(city);
+            }
+        }
+        if (moves > 0) {
+            store(tour);
+        }
+        if (telemetry != null) {
+            telemetry.onLocalSearchEnd(moves, before - cost(tour));
+        }
+        return moves > 0;
+    }
+
+    private void load(TSP.Tour tour) {
+        TSP.City[] p = tour.getPath();
+        int startCity = problem.getStart().index - 1;
+        int offset = 0;
+        while (p[offset].index - 1 != startCity) offset++;
+        for (int i = 0; i < n; i++) {
+            path[i] = p[(offset + i) % n].index - 1;
+        }
+        if (offset != 0) {
+            for (int i = 0; i < n; i++) {
+                tour.setCity(i, cities[path[i]]);
+            }
+        }
+        if (list != null) {
+            list.build(path);
+        } else {
+            refresh();
+        }
+    }
+
+    private void store(TSP.Tour tour) {
+        if (list != null) {
+            list.sequence(problem.getStart().index - 1, path);
+        }
+        for (int i = 0; i < n; i++) {
+            tour.setCity(i, cities[path[i]]);
+        }
+    }
+
+    private void refresh() {
+        for (int i = 0; i < n; i++) {
+            position[path[i]] = i;
+            forward[i + 1] = forward[i] + d(path[i], path[next(i)]);
+            backward[i + 1] = backward[i] + d(path[next(i)], path[i]);
+        }
+    }
+
+    private boolean improveTwoOpt(int a) {
+        int i = position[a];
+        for (int c : neighbors[a]) {
+            int j = position[c];
+            // odstranimo rob (a, naslednik a) in dodamo (a, c) oziroma (c, a)
+            if (j > i + 1 ? tryReverse(i + 1, j) : j < i && tryReverse(j + 1, i)) return true;
+            // odstranimo rob (predhodnik a, a)
+            if (j > i ? i >= 1 && tryReverse(i, j - 1) : j >= 1 && tryReverse(j, i - 1)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reverses {@code path[from..to]} if that shortens the tour. The start city at position 0 never moves.
+     */
+    private boolean tryReverse(int from, int to) {
+        if (from < 1 || to > n - 1 || from >= to) return false;
+        int before = path[from - 1];
+        int after = path[next(to)];
+        if (isFixed(before, path[from]) || isFixed(path[to], after)) return false;
+        double delta = d(before, path[to]) + d(path[from], after)
+                - d(before, path[from]) - d(path[to], after)
+                + (backward[to] - backward[from]) - (forward[to] - forward[from]);
+        if (delta > -EPSILON) return false;
+
+        for (int i = from, j = to; i < j; i++, j--) {
+            int temp = path[i];
+            path[i] = path[j];
+            path[j] = temp;
+        }
+        refresh();
+        push(before);
+        push(after);
+        push(path[from]);
+        push(path[to]);
+        return true;
+    }
+
+    private boolean improveOrOpt(int a) {
+        int first = position[a];
+        if (first == 0) return false;
+        int last = first - 1;
+        for (int length = 1; length <= MAX_SEGMENT; length++) {
+            // segment naraste za eno mesto in mesta, ki so nanj vezana s fiksnimi robovi
+            last++;
+            while (last < n - 1 && isFixed(path[last], path[last + 1])) last++;
+            if (last > n - 1) break;
+            int head = path[first];
+            int tail = path[last];
+            int before = path[first - 1];
+            int after = path[next(last)];
+            if (isFixed(before, head) || isFixed(tail, after)) continue;
+            double removeGain = d(before, head) + d(tail, after) - d(before, after);
+            double reversedExtra = (backward[last] - backward[first]) - (forward[last] - forward[first]);
+
+            for (int k = 0; k < 2; k++) {
+                int[] candidates = neighbors[k == 0 ? head : tail];
+                for (int c : candidates) {
+                    int j = position[c];
+                    if (j >= first - 1 && j <= last) continue;
+                    int cNext = path[next(j)];
+                    int jPrev = j == 0 ? n - 1 : j - 1;
+                    int cPrev = path[jPrev];
+                    if (k == 0) {
+                        // c -> head ... tail -> naslednik c
+                        if (cNext != head && tryMove(first, last, j, false,
+                                d(c, head) + d(tail, cNext) - d(c, cNext) - removeGain)) return true;
+                        // predhodnik c -> tail ... head -> c
+                        if (jPrev < first - 1 || jPrev > last) {
+                            if (tryMove(first, last, jPrev, true,
+                                    d(cPrev, tail) + d(head, c) - d(cPrev, c) + reversedExtra - removeGain)) return true;
+                        }
+                    } else {
+                        // predhodnik c -> head ... tail -> c
+                        if (jPrev < first - 1 || jPrev > last) {
+                            if (tryMove(first, last, jPrev, false,
+                                    d(cPrev, head) + d(tail, c) - d(cPrev, c) - removeGain)) return true;
+                        }
+                        // c -> tail ... head -> naslednik c
+                        if (cNext != head && tryMove(first, last, j, true,
+                                d(c, tail) + d(head, cNext) - d(c, cNext) + reversedExtra - removeGain)) return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves {@code path[first..last]} behind position {@code target} if {@code delta} is an improvement.
+     */
+    private boolean tryMove(int first, int last, int target, boolean reversed, double delta) {
+        if (delta > -EPSILON) return false;
+        int before = path[first - 1];
+        int after = path[next(last)];
+        int targetCity = path[target];
+        int targetNext = path[next(target)];
+        if (isFixed(targetCity, targetNext)) return false;
+
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (i >= first && i <= last) continue;
+            scratch[size++] = path[i];
+            if (i == target) {
+                for (int k = 0; k <= last - first; k++) {
+                    scratch[size++] = path[reversed ? last - k : first + k];
+                }
+            }
+        }
+        System.arraycopy(scratch, 0, path, 0, n);
+        refresh();
+        push(before);
+        push(after);
+        push(targetCity);
+        push(targetNext);
+        return true;
+    }
+
+    private boolean improveTwoOptList(int a) {
+        int aNext = list.next(a), aPrev = list.prev(a);
+        for (int c : neighbors[a]) {
+            int cNext = list.next(c), cPrev = list.prev(c);
+            // (a, naslednik a) in (c, naslednik c) zamenjamo z (a, c) in (naslednik a, naslednik c)
+            if (c != aNext && cNext != a && !isFixed(a, aNext) && !isFixed(c, cNext)
+                    && d(a, c) + d(aNext, cNext) - d(a, aNext) - d(c, cNext) < -EPSILON) {
+                list.flip(a, aNext, c, cNext);
+                push(a);
+                push(aNext);
+                push(c);
+                push(cNext);
+                return true;
+            }
+            // (predhodnik a, a) in (predhodnik c, c) zamenjamo z (a, c) in (predhodnik a, predhodnik c)
+            if (c != aPrev && cPrev != a && !isFixed(aPrev, a) && !isFixed(cPrev, c)
+                    && d(a, c) + d(aPrev, cPrev) - d(aPrev, a) - d(cPrev, c) < -EPSILON) {
+                list.flip(cPrev, c, aPrev, a);
+                push(a);
+                push(aPrev);
+                push(c);
+                push(cPrev);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean improveOrOptList(int a) {
+        int before = list.prev(a);
+        if (isFixed(before, a)) return false;
+        int head = a, tail = a;
+        for (int length = 1; length <= MAX_SEGMENT; length++) {
+            if (length > 1) tail = list.next(tail);
+            while (tail != before && isFixed(tail, list.next(tail))) tail = list.next(tail);
+            int after = list.next(tail);
+            if (tail == before || after == before) break;
+            double removeGain = d(before, head) + d(tail, after) - d(before, after);
+
+            for (int k = 0; k < 2; k++) {
+                for (int c : neighbors[k == 0 ? head : tail]) {
+                    if (list.between(head, c, tail)) continue;
+                    int cNext = list.next(c), cPrev = list.prev(c);
+                    if (k == 0) {
+                        // c -> head ... tail -> naslednik c
+                        if (c != before && tryMoveList(head, tail, c, cNext, false,
+                                d(c, head) + d(tail, cNext) - d(c, cNext) - removeGain)) return true;
+                        // predhodnik c -> tail ... head -> c
+                        if (c != after && tryMoveList(head, tail, cPrev, c, true,
+                                d(cPrev, tail) + d(head, c) - d(cPrev, c) - removeGain)) return true;
+                    } else {
+                        // predhodnik c -> head ... tail -> c
+                        if (c != after && tryMoveList(head, tail, cPrev, c, false,
+                                d(cPrev, head) + d(tail, c) - d(cPrev, c) - removeGain)) return true;
+                        // c -> tail ... head -> naslednik c
+                        if (c != before && tryMoveList(head, tail, c, cNext, true,
+                                d(c, tail) + d(head, cNext) - d(c, cNext) - removeGain)) return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the segment {@code head .. tail} between {@code u} and {@code v = next(u)} with two or
+     * three flips if {@code delta} is an improvement.
+     */
+    private boolean tryMoveList(int head, int tail, int u, int v, boolean reversed, double delta) {
+        if (delta > -EPSILON || isFixed(u, v)) return false;
+        int before = list.prev(head), after = list.next(tail);
+        // before head..tail after ... u v  ->  before u ... after tail..head v  ->  before after ... u tail..head v
+        exchange(before, head, u, v);
+        exchange(before, u, after, tail);
+        if (!reversed) {
+            exchange(u, tail, head, v);
+        }
+        push(before);
+        push(after);
+        push(u);
+        push(v);
+        return true;
+    }
+
+    /**
+     * Replaces the adjacent pairs {@code (x1, x2)} and {@code (y1, y2)} by {@code (x1, y1)} and
+     * {@code (x2, y2)}, whichever way the list currently runs.
+     */
+    private void exchange(int x1, int x2, int y1, int y2) {
+        if (list.next(x1) == x2) {
+            list.flip(x1, x2, y1, y2);
+        } else {
+            list.flip(x2, x1, y2, y1);
+        }
+    }
+
+    private int next(int i) {
+        return i + 1 == n ? 0 : i + 1;
+    }
+
+    private double d(int a, int b) {
+        return problem.distance(cities[a], cities[b]);
+    }
+
+    private void push(int city) {
+        if (queued[city]) return;
+        queued[city] = true;
+        queue[(queueHead + queueSize++) % n] = city;
+    }
+
+    private int pop() {
+        int city = queue[queueHead];
+        queueHead = (queueHead + 1) % n;
+        queueSize--;
+        queued[city] = false;
+        return city;
+    }
+
+    private void clearQueue() {
+        while (queueSize > 0) pop();
+    }
+}
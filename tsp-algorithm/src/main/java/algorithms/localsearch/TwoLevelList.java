@@ -0,0 +1,242 @@
+package algorithms.localsearch;
+
+/**
+ * Two-level doubly-linked list tour (Fredman, Johnson, McGeoch and Ostheimer, "Data Structures for
+ * Traveling Salesmen", 1995) for symmetric instances.
+ * <p>
+ * The cities are kept in an array that is cut into segments of about {@code sqrt(n)} consecutive
+ * positions. Every segment has a reversal bit and a place in a doubly-linked list of segments, so
+ * {@link #next}, {@link #prev} and {@link #between} take constant time. A {@link #flip} reverses a
+ * path inside one segment directly; otherwise it splits at most two segments so that the path
+ * consists of whole segments and reverses the shorter of the path and its complement by
+ * relinking segments and toggling their bits, in {@code O(sqrt(n))}. Splits add segments; the list is
+ * rebuilt with even segments once there are twice as many as at the start.
+ * <p>
+ * Orientation is not preserved: a flip may reverse the complement, which traverses the same cycle
+ * backwards. Callers should therefore query {@link #next} and {@link #prev} after every flip.
+ */
+public class TwoLevelList {
+
+    private final int n;
+    private final int groupSize;
+    private final int capacity; //segments allowed before a rebuild
+
+    // mesta po položajih, položaj mesta in segment položaja
+    private final int[] city, position, segmentOf;
+    // segmenti: obseg položajev, obrnjenost, sosednja segmenta in zaporedna številka v seznamu
+    private final int[] lo, hi, nextSegment, previousSegment, rank;
+    private final boolean[] reversed;
+    private final int[] run, scratch;
+    private int segments;
+
+    public TwoLevelList(int n) {
+        this.n = n;
+        groupSize = Math.max(8, (int) Math.sqrt(n));
+        int initial = (n + groupSize - 1) / groupSize;
+        capacity = 2 * initial + 2;
+        city = new int[n];
+        position = new int[n];
+        segmentOf = new int[n];
+        lo = new int[capacity];
+        hi = new int[capacity];
+        nextSegment = new int[capacity];
+        previousSegment = new int[capacity];
+        rank = new int[capacity];
+        reversed = new boolean[capacity];
+        run = new int[capacity];
+        scratch = new int[n];
+    }
+
+    /**
+     * Sets the tour to the given order of the cities {@code 0 .. n-1}.
+     */
+    public void build(int[] order) {
+        for (int i = 0; i < n; i++) {
+            city[i] = order[i];
+            position[order[i]] = i;
+        }
+        segments = 0;
+        for (int start = 0; start < n; start += groupSize) {
+            int s = segments++;
+            lo[s] = start;
+            hi[s] = Math.min(n, start + groupSize) - 1;
+            reversed[s] = false;
+            for (int p = lo[s]; p <= hi[s]; p++) segmentOf[p] = s;
+        }
+        for (int s = 0; s < segments; s++) {
+            nextSegment[s] = s + 1 == segments ? 0 : s + 1;
+            previousSegment[s] = s == 0 ? segments - 1 : s - 1;
+            rank[s] = s;
+        }
+    }
+
+    /**
+     * Writes the tour, starting with {@code start}, to {@code order}.
+     */
+    public void sequence(int start, int[] order) {
+        for (int i = 0, c = start; i < n; i++, c = next(c)) {
+            order[i] = c;
+        }
+    }
+
+    public int next(int c) {
+        int p = position[c], s = segmentOf[p];
+        if (reversed[s]) return p > lo[s] ? city[p - 1] : head(nextSegment[s]);
+        return p < hi[s] ? city[p + 1] : head(nextSegment[s]);
+    }
+
+    public int prev(int c) {
+        int p = position[c], s = segmentOf[p];
+        if (reversed[s]) return p < hi[s] ? city[p + 1] : tail(previousSegment[s]);
+        return p > lo[s] ? city[p - 1] : tail(previousSegment[s]);
+    }
+
+    /**
+     * Returns whether {@code b} lies on the path from {@code a} to {@code c} that follows {@link #next},
+     * ends included.
+     */
+    public boolean between(int a, int b, int c) {
+        long ka = key(a), kb = key(b), kc = key(c);
+        if (ka <= kc) return ka <= kb && kb <= kc;
+        return kb >= ka || kb <= kc;
+    }
+
+    /**
+     * Replaces the edges {@code (a, b)} and {@code (c, d)} by {@code (a, c)} and {@code (b, d)}, where
+     * {@code b = next(a)} and {@code d = next(c)}, by reversing the path from {@code b} to {@code c}.
+     */
+    public void flip(int a, int b, int c, int d) {
+        if (b == c || d == a) return; //isti cikel
+        if (insideSegment(b, c)) {
+            reverseRange(position[b], position[c]);
+            return;
+        }
+        if (insideSegment(d, a)) {
+            reverseRange(position[d], position[a]);
+            return;
+        }
+        if (segments + 2 > capacity) {
+            rebuild();
+        }
+        splitBefore(b);
+        splitBefore(d);
+        renumber();
+        int sb = segmentOf[position[b]], sd = segmentOf[position[d]];
+        int length = rank[sd] - rank[sb];
+        if (length < 0) length += segments;
+        if (2 * length <= segments) {
+            reverseSegments(sb, previousSegment[sd]);
+        } else {
+            reverseSegments(sd, previousSegment[sb]);
+        }
+        renumber();
+    }
+
+    private int head(int s) {
+        return city[reversed[s] ? hi[s] : lo[s]];
+    }
+
+    private int tail(int s) {
+        return city[reversed[s] ? lo[s] : hi[s]];
+    }
+
+    private long key(int c) {
+        int p = position[c], s = segmentOf[p];
+        return ((long) rank[s] << 32) + (reversed[s] ? n - p : p);
+    }
+
+    // ali pot od from do to ostane znotraj enega segmenta
+    private boolean insideSegment(int from, int to) {
+        int s = segmentOf[position[from]];
+        return s == segmentOf[position[to]] && key(from) <= key(to);
+    }
+
+    private void reverseRange(int p, int q) {
+        for (int i = Math.min(p, q), j = Math.max(p, q); i < j; i++, j--) {
+            int temp = city[i];
+            city[i] = city[j];
+            city[j] = temp;
+            position[city[i]] = i;
+            position[city[j]] = j;
+        }
+    }
+
+    /**
+     * Splits the segment of {@code x} so that {@code x} starts a segment; the smaller part moves to a
+     * new segment.
+     */
+    private void splitBefore(int x) {
+        int p = position[x], s = segmentOf[p];
+        if (x == head(s)) return;
+        // del pred x in del od x naprej, v smeri obhoda
+        int firstLo, firstHi, secondLo, secondHi;
+        if (!reversed[s]) {
+            firstLo = lo[s];
+            firstHi = p - 1;
+            secondLo = p;
+            secondHi = hi[s];
+        } else {
+            firstLo = p + 1;
+            firstHi = hi[s];
+            secondLo = lo[s];
+            secondHi = p;
+        }
+        int t = segments++;
+        reversed[t] = reversed[s];
+        if (firstHi - firstLo < secondHi - secondLo) {
+            lo[t] = firstLo;
+            hi[t] = firstHi;
+            lo[s] = secondLo;
+            hi[s] = secondHi;
+            int before = previousSegment[s];
+            nextSegment[before] = t;
+            previousSegment[t] = before;
+            nextSegment[t] = s;
+            previousSegment[s] = t;
+        } else {
+            lo[t] = secondLo;
+            hi[t] = secondHi;
+            lo[s] = firstLo;
+            hi[s] = firstHi;
+            int after = nextSegment[s];
+            previousSegment[after] = t;
+            nextSegment[t] = after;
+            previousSegment[t] = s;
+            nextSegment[s] = t;
+        }
+        for (int q = lo[t]; q <= hi[t]; q++) segmentOf[q] = t;
+    }
+
+    // obrne zaporedje segmentov od first do last
+    private void reverseSegments(int first, int last) {
+        int before = previousSegment[first], after = nextSegment[last];
+        int count = 0;
+        for (int s = first; ; s = nextSegment[s]) {
+            run[count++] = s;
+            if (s == last) break;
+        }
+        for (int i = 0; i < count; i++) {
+            int s = run[i];
+            int temp = nextSegment[s];
+            nextSegment[s] = previousSegment[s];
+            previousSegment[s] = temp;
+            reversed[s] = !reversed[s];
+        }
+        nextSegment[before] = last;
+        previousSegment[last] = before;
+        nextSegment[first] = after;
+        previousSegment[after] = first;
+    }
+
+    private void renumber() {
+        int s = 0;
+        for (int r = 0; r < segments; r++, s = nextSegment[s]) {
+            rank[s] = r;
+        }
+    }
+
+    private void rebuild() {
+        sequence(city[0], scratch);
+        build(scratch);
+    }
+}
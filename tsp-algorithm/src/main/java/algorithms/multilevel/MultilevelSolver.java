@@ -0,0 +1,333 @@
+package algorithms.multilevel;
+
+import Utility.RandomUtils;
+import algorithms.RunControl;
+import algorithms.Solver;
+import algorithms.localsearch.LocalSearch;
+import problems.TSP;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multilevel refinement (Walshaw, "A Multilevel Approach to the Travelling Salesman Problem", 2002).
+ * <p>
+ * Coarsening joins paths of cities by fixed edges. At first every city is a path of its own. On
+ * each level the candidate edges between endpoints of different paths (nearest neighbor lists, or
+ * all endpoints once there are only a few) are taken from the shortest, and every path is joined at
+ * most once, so a level roughly halves the number of paths. When only a few paths are left they are
+ * joined into a tour by nearest endpoints. The levels are then undone one at a time: once the edges
+ * fixed at a level are released, 2-opt and Or-opt ({@link LocalSearch}) refine the tour without
+ * removing the edges that are still fixed. On coarse levels the candidates of every endpoint are
+ * the nearest endpoints of other paths and the moves shift and reverse whole paths; on the finest
+ * level they move single cities.
+ * <p>
+ * With more than one cycle the process is repeated from the current tour, matching only along its
+ * edges, with the paths visited in random order. The coarsest tour of such a cycle is the current
+ * tour, so a cycle never makes it longer, and the new matching lets the refinement leave the
+ * previous local optimum.
+ * <p>
+ * The tour is evaluated once per cycle; the run is bounded by the number of cycles and by the
+ * {@link RunControl}.
+ */
+public class MultilevelSolver implements Solver {
+
+    private static final int NEIGHBORS = 8; //same as the local search neighbor lists
+    private static final int COARSEST_PATHS = 3;
+    private static final int SCAN_ENDPOINTS = 4096; //up to this many endpoints all of them are candidates
+
+    private int cycles = 1;
+    private RunControl control = new RunControl();
+
+    // stanje teka: fiksirani robovi, konci poti in nivo, na katerem je bila pot nazadnje združena
+    private TSP problem;
+    private int n;
+    private int[] link; //two fixed partners per city, -1 = none
+    private int[] otherEnd; //the opposite endpoint for the endpoints of a path, -1 for inner cities
+    private int[] matched;
+
+    public void setCycles(int cycles) {
+        this.cycles = cycles;
+    }
+
+    @Override
+    public void setRunControl(RunControl control) {
+        this.control = control;
+    }
+
+    @Override
+    public TSP.Tour execute(TSP problem) {
+        control.start();
+        this.problem = problem;
+        n = problem.getNumberOfCities();
+        link = new int[2 * n];
+        otherEnd = new int[n];
+        matched = new int[n];
+        LocalSearch localSearch = new LocalSearch(problem);
+
+        TSP.Tour tour = null;
+        for (int cycle = 0; cycle < cycles && (tour == null || !control.shouldStop()); cycle++) {
+            Arrays.fill(link, -1);
+            Arrays.fill(matched, -1);
+            for (int city = 0; city < n; city++) otherEnd[city] = city;
+            if (tour == null) {
+                List<int[]> levels = coarsen(problem.getNeighborLists(NEIGHBORS), true);
+                tour = connect();
+                refine(localSearch, tour, levels);
+            } else {
+                refine(localSearch, tour, coarsen(tourNeighbors(tour), false));
+            }
+            problem.evaluate(tour);
+            control.update(tour, problem.getNumberOfEvaluations());
+        }
+        control.finish(tour, problem.getNumberOfEvaluations());
+        return tour;
+    }
+
+    /**
+     * Builds the levels; each level is the list of edges it fixed, as pairs of cities.
+     *
+     * @param candidates for every city, the cities it may be joined with.
+     * @param greedy     {@code true} joins the shortest candidate edges first and scans all endpoints
+     *                   for an endpoint without candidates; {@code false} visits the endpoints in random
+     *                   order and joins each with its nearest candidate.
+     */
+    private List<int[]> coarsen(int[][] candidates, boolean greedy) {
+        List<int[]> levels = new ArrayList<>();
+        int[] endpoints = new int[n];
+        int[] edges = new int[2 * n];
+        int paths = n;
+        while (paths > COARSEST_PATHS) {
+            int level = levels.size();
+            int count = 0;
+            for (int city = 0; city < n; city++) {
+                if (otherEnd[city] >= 0) endpoints[count++] = city;
+            }
+            // naključni vrstni red; pri požrešnem prirejanju razbije izenačitve
+            for (int i = count - 1; i > 0; i--) {
+                int j = RandomUtils.nextInt(i + 1);
+                int temp = endpoints[i];
+                endpoints[i] = endpoints[j];
+                endpoints[j] = temp;
+            }
+            int size = greedy ? matchGreedy(candidates, endpoints, count, level, edges, paths - COARSEST_PATHS)
+                    : matchInOrder(candidates, endpoints, count, level, edges, paths - COARSEST_PATHS);
+            paths -= size / 2;
+            if (size == 0) break; //nobena pot nima več proste sosednje poti
+            levels.add(Arrays.copyOf(edges, size));
+        }
+        return levels;
+    }
+
+    /**
+     * Joins paths along the candidate edges between their endpoints, shortest first, at most
+     * {@code limit} times. An endpoint without a candidate gets its nearest free endpoint if there are
+     * at most {@link #SCAN_ENDPOINTS} endpoints.
+     *
+     * @return the number of entries written to {@code edges} (two per joined edge).
+     */
+    private int matchGreedy(int[][] candidates, int[] endpoints, int count, int level, int[] edges, int limit) {
+        int[] from = new int[count * NEIGHBORS + count], to = new int[from.length];
+        double[] length = new double[from.length];
+        int pairs = 0;
+        for (int i = 0; i < count; i++) {
+            int e = endpoints[i];
+            int found = 0;
+            for (int f : candidates[e]) {
+                if (f == otherEnd[e] || otherEnd[f] < 0) continue;
+                from[pairs] = e;
+                to[pairs] = f;
+                length[pairs++] = problem.distance(problem.getCity(e), problem.getCity(f));
+                found++;
+            }
+            if (found == 0 && count <= SCAN_ENDPOINTS) {
+                int f = nearest(e, endpoints, count, level);
+                if (f < 0) continue;
+                from[pairs] = e;
+                to[pairs] = f;
+                length[pairs++] = problem.distance(problem.getCity(e), problem.getCity(f));
+            }
+        }
+        Integer[] order = new Integer[pairs];
+        for (int p = 0; p < pairs; p++) order[p] = p;
+        Arrays.sort(order, (a, b) -> Double.compare(length[a], length[b]));
+        int size = 0;
+        for (int p = 0; p < pairs && size < 2 * limit; p++) {
+            int e = from[order[p]], f = to[order[p]];
+            if (otherEnd[e] < 0 || otherEnd[f] < 0 || otherEnd[e] == f
+                    || matched[e] == level || matched[f] == level) continue;
+            join(e, f, level);
+            edges[size++] = e;
+            edges[size++] = f;
+        }
+        return size;
+    }
+
+    /**
+     * Visits the endpoints in the given order and joins each path with the nearest candidate, at
+     * most {@code limit} times.
+     */
+    private int matchInOrder(int[][] candidates, int[] endpoints, int count, int level, int[] edges, int limit) {
+        int size = 0;
+        for (int i = 0; i < count && size < 2 * limit; i++) {
+            int e = endpoints[i];
+            if (otherEnd[e] < 0 || matched[e] == level) continue;
+            int f = nearest(e, candidates[e], candidates[e].length, level);
+            if (f < 0) continue;
+            join(e, f, level);
+            edges[size++] = e;
+            edges[size++] = f;
+        }
+        return size;
+    }
+
+    // najbližji konec druge, na tem nivoju še nezdružene poti
+    private int nearest(int e, int[] cities, int count, int level) {
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int k = 0; k < count; k++) {
+            int f = cities[k];
+            if (f == e || f == otherEnd[e] || otherEnd[f] < 0 || matched[f] == level) continue;
+            double d = problem.distance(problem.getCity(e), problem.getCity(f));
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = f;
+            }
+        }
+        return best;
+    }
+
+    private void join(int e, int f, int level) {
+        int x = otherEnd[e], y = otherEnd[f];
+        attach(e, f);
+        attach(f, e);
+        if (e != x) otherEnd[e] = -1;
+        if (f != y) otherEnd[f] = -1;
+        otherEnd[x] = y;
+        otherEnd[y] = x;
+        matched[e] = matched[f] = matched[x] = matched[y] = level;
+    }
+
+    private void attach(int a, int b) {
+        link[link[2 * a] < 0 ? 2 * a : 2 * a + 1] = b;
+    }
+
+    private void detach(int a, int b) {
+        if (link[2 * a] == b) {
+            link[2 * a] = link[2 * a + 1];
+            link[2 * a + 1] = -1;
+        } else if (link[2 * a + 1] == b) {
+            link[2 * a + 1] = -1;
+        }
+    }
+
+    /**
+     * Joins the paths of the coarsest level into a tour, always continuing with the path whose
+     * endpoint is nearest to the end of the tour so far.
+     */
+    private TSP.Tour connect() {
+        int[] endpoints = new int[n];
+        int count = 0;
+        for (int city = 0; city < n; city++) {
+            if (otherEnd[city] >= 0) endpoints[count++] = city;
+        }
+        TSP.Tour tour = new TSP.Tour(n);
+        boolean[] used = new boolean[n];
+        int size = 0, end = endpoints[0];
+        while (true) {
+            // sprehod po poti od konca end do drugega konca
+            for (int previous = -1, city = end; city >= 0; ) {
+                tour.setCity(size++, problem.getCity(city));
+                used[city] = true;
+                int next = link[2 * city] != previous ? link[2 * city] : link[2 * city + 1];
+                previous = city;
+                city = next;
+            }
+            if (size == n) return tour;
+            TSP.City last = tour.getPath()[size - 1];
+            double bestDistance = Double.MAX_VALUE;
+            for (int k = 0; k < count; k++) {
+                int e = endpoints[k];
+                if (used[e]) continue;
+                double d = problem.distance(last, problem.getCity(e));
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    end = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Undoes the levels from the coarsest to the finest and refines the tour after each one.
+     */
+    private void refine(LocalSearch localSearch, TSP.Tour tour, List<int[]> levels) {
+        for (int[] edges : levels) {
+            for (int k = 0; k < edges.length; k += 2) localSearch.fixEdge(edges[k], edges[k + 1]);
+        }
+        int[] active = new int[n];
+        for (int level = levels.size(); level >= 0 && !control.shouldStop(); level--) {
+            if (level < levels.size()) {
+                int[] edges = levels.get(level);
+                for (int k = 0; k < edges.length; k += 2) {
+                    localSearch.releaseEdge(edges[k], edges[k + 1]);
+                    detach(edges[k], edges[k + 1]);
+                    detach(edges[k + 1], edges[k]);
+                }
+            }
+            // poteze se lahko začnejo le v mestih z vsaj enim prostim robom
+            int count = 0;
+            for (int city = 0; city < n; city++) {
+                if (link[2 * city + 1] < 0) active[count++] = city;
+            }
+            // na grobih nivojih so kandidati najbližji konci drugih poti, ne notranja mesta
+            localSearch.setNeighborLists(level > 0 && count <= SCAN_ENDPOINTS ? endpointNeighbors(active, count) : null);
+            localSearch.optimize(tour, active, count);
+        }
+        localSearch.setNeighborLists(null);
+        localSearch.releaseAllEdges();
+    }
+
+    /**
+     * Returns neighbor lists in which each of the given endpoints has its nearest other endpoints;
+     * the remaining cities keep their nearest neighbors.
+     */
+    private int[][] endpointNeighbors(int[] endpoints, int count) {
+        int[][] lists = problem.getNeighborLists(NEIGHBORS).clone();
+        int k = Math.min(NEIGHBORS, count - 1);
+        double[] nearest = new double[k];
+        for (int i = 0; i < count; i++) {
+            TSP.City from = problem.getCity(endpoints[i]);
+            int[] list = new int[k];
+            int size = 0;
+            for (int j = 0; j < count; j++) {
+                if (j == i) continue;
+                double d = problem.distance(from, problem.getCity(endpoints[j]));
+                if (size == k && d >= nearest[k - 1]) continue;
+                int pos = size < k ? size++ : k - 1;
+                while (pos > 0 && nearest[pos - 1] > d) {
+                    nearest[pos] = nearest[pos - 1];
+                    list[pos] = list[pos - 1];
+                    pos--;
+                }
+                nearest[pos] = d;
+                list[pos] = endpoints[j];
+            }
+            lists[endpoints[i]] = list;
+        }
+        return lists;
+    }
+
+    // predhodnik in naslednik vsakega mesta v turi
+    private int[][] tourNeighbors(TSP.Tour tour) {
+        TSP.City[] path = tour.getPath();
+        int[][] neighbors = new int[n][2];
+        for (int i = 0; i < n; i++) {
+            int city = path[i].index - 1;
+            neighbors[city][0] = path[(i + n - 1) % n].index - 1;
+            neighbors[city][1] = path[(i + 1) % n].index - 1;
+        }
+        return neighbors;
+    }
+}
@@ -0,0 +1,44 @@
+package algorithms.operators;
+
+import problems.TSP;
+
+/**
+ * Cycle crossover. Positions are partitioned into cycles of the parents' position mapping; the
+ * children take alternate cycles from alternate parents, so every city keeps a position it had in
+ * one of the parents.
+ */
+public class CX extends PermutationCrossover {
+
+    private int[] positionInParent1;
+    private boolean[] visited;
+
+    @Override
+    protected void allocate(int n) {
+        positionInParent1 = new int[n];
+        visited = new boolean[n];
+    }
+
+    @Override
+    public void cross(TSP.Tour parent1, TSP.Tour parent2, TSP.Tour child1, TSP.Tour child2) {
+        TSP.City[] p1 = parent1.getPath();
+        TSP.City[] p2 = parent2.getPath();
+
+        for (int i = 0; i < n; i++) {
+            positionInParent1[id(p1[i])] = i;
+            visited[i] = false;
+        }
+
+        boolean swap = false;
+        for (int start = 0; start < n; start++) {
+            if (visited[start]) continue;
+            int i = start;
+            do {
+                visited[i] = true;
+                child1.setCity(i, swap ? p2[i] : p1[i]);
+                child2.setCity(i, swap ? p1[i] : p2[i]);
+                i = positionInParent1[id(p2[i])];
+            } while (i != start);
+            swap = !swap;
+        }
+    }
+}
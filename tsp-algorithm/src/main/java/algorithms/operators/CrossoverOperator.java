@@ -0,0 +1,24 @@
+package algorithms.operators;
+
+import problems.TSP;
+
+/**
+ * Recombines two parent tours into two offspring.
+ * <p>
+ * Implementations write into the given child tours and keep their work arrays between calls, so the
+ * GA can reuse the same tours every generation without allocating.
+ */
+public interface CrossoverOperator {
+
+    /**
+     * Prepares the operator for the given problem. Called once before the first {@link #cross}.
+     */
+    default void init(TSP problem) {
+    }
+
+    void cross(TSP.Tour parent1, TSP.Tour parent2, TSP.Tour child1, TSP.Tour child2);
+
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,365 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+import java.util.Arrays;
+
+/**
+ * Edge Assembly Crossover (Nagata and Kobayashi) with a single AB-cycle per offspring (EAX-1AB).
+ * <p>
+ * The union of the parents' edges without the common ones is decomposed into AB-cycles, i.e.
+ * cycles that alternate between edges of parent A and parent B. The offspring is parent A with
+ * the A-edges of one randomly chosen AB-cycle replaced by its B-edges. This usually splits the
+ * tour into subtours, which are merged greedily with 2-exchanges restricted to the nearest
+ * neighbor lists of the smallest subtour.
+ * <p>
+ * All work arrays are allocated once per problem and the subtours wait for merging in a heap by
+ * size, so one offspring with k subtours costs O(n + k log k) time and no allocation. The operator assumes symmetric distances when
+ * merging subtours; for asymmetric instances the offspring keeps the orientation of parent A
+ * and its real length is determined by the evaluation.
+ */
+public class EAX implements CrossoverOperator {
+
+    private static final int NEIGHBORS = 10;
+
+    private TSP problem;
+    private int n;
+    private int[][] neighbors;
+
+    // sosednost staršev in potomca: mesto c ima soseda adj[2c] in adj[2c + 1]
+    private int[] adjA, adjB, adjChild;
+
+    // preostali robovi (brez skupnih) za sestavljanje AB-ciklov
+    private int[] remA, remB, countA, countB;
+
+    // sprehod in pozicije vozlišč glede na sodost pozicije
+    private int[] walk, walkType, posEven, posOdd;
+
+    // AB-cikli: zaporedje vozlišč, začetek cikla in tip prvega roba (0 = A, 1 = B)
+    private int[] cycleVertices, cycleStart, cycleFirstType;
+    private int cycleCount;
+
+    // podcikli: oznaka (prvo mesto podcikla) vsakega mesta in velikost po oznaki
+    private int[] subtour, subtourSize;
+
+    // kopica oznak živih podciklov po velikosti in položaj oznake v njej
+    private int[] heap, heapPosition;
+    private int heapSize;
+    private TSP.City[] cities;
+
+    @Override
+    public void init(TSP problem) {
+        if (problem == this.problem) return;
+        this.problem = problem;
+        n = problem.getNumberOfCities();
+        neighbors = problem.getNeighborLists(NEIGHBORS);
+        adjA = new int[2 * n];
+        adjB = new int[2 * n];
+        adjChild = new int[2 * n];
+        remA = new int[2 * n];
+        remB = new int[2 * n];
+        countA = new int[n];
+        countB = new int[n];
+        walk = new int[2 * n + 1];
+        walkType = new int[2 * n + 1];
+        posEven = new int[n];
+        posOdd = new int[n];
+        cycleVertices = new int[4 * n + 2];
+        cycleStart = new int[n + 1];
+        cycleFirstType = new int[n];
+        subtour = new int[n];
+        subtourSize = new int[n];
+        heap = new int[n];
+        heapPosition = new int[n];
+        cities = new TSP.City[n];
+        for (int i = 0; i < n; i++) {
+            cities[i] = problem.getCity(i);
+        }
+    }
+
+    @Override
+    public void cross(TSP.Tour parent1, TSP.Tour parent2, TSP.Tour child1, TSP.Tour child2) {
+        build(parent1, parent2, child1);
+        build(parent2, parent1, child2);
+    }
+
+    /**
+     * Creates one offspring from parent {@code a} using edges of parent {@code b}. If the parents
+     * have the same edges, the child is a copy of {@code a}.
+     */
+    private void build(TSP.Tour a, TSP.Tour b, TSP.Tour child) {
+        if (n < 4) {
+            child.copyFrom(a);
+            return;
+        }
+        toAdjacency(a, adjA);
+        toAdjacency(b, adjB);
+        collectDifferingEdges();
+        buildAbCycles();
+        if (cycleCount == 0) {
+            child.copyFrom(a);
+            return;
+        }
+
+        System.arraycopy(adjA, 0, adjChild, 0, 2 * n);
+        applyCycle(RandomUtils.nextInt(cycleCount));
+        int subtours = labelSubtours();
+        while (subtours > 1) {
+            mergeSmallestSubtour();
+            subtours--;
+        }
+        toTour(child);
+    }
+
+    private void toAdjacency(TSP.Tour tour, int[] adj) {
+        TSP.City[] path = tour.getPath();
+        for (int i = 0; i < n; i++) {
+            int c = path[i].index - 1;
+            adj[2 * c] = path[i == 0 ? n - 1 : i - 1].index - 1;
+            adj[2 * c + 1] = path[i + 1 == n ? 0 : i + 1].index - 1;
+        }
+    }
+
+    private void collectDifferingEdges() {
+        for (int c = 0; c < n; c++) {
+            countA[c] = 0;
+            countB[c] = 0;
+            for (int s = 0; s < 2; s++) {
+                int x = adjA[2 * c + s];
+                if (adjB[2 * c] != x && adjB[2 * c + 1] != x) remA[2 * c + countA[c]++] = x;
+                int y = adjB[2 * c + s];
+                if (adjA[2 * c] != y && adjA[2 * c + 1] != y) remB[2 * c + countB[c]++] = y;
+            }
+        }
+    }
+
+    private void removeEdge(int[] rem, int[] count, int u, int v) {
+        removeHalfEdge(rem, count, u, v);
+        removeHalfEdge(rem, count, v, u);
+    }
+
+    private void removeHalfEdge(int[] rem, int[] count, int u, int v) {
+        int base = 2 * u;
+        if (rem[base] == v && count[u] > 0) {
+            rem[base] = rem[base + 1];
+        }
+        count[u]--;
+    }
+
+    /**
+     * Decomposes the differing edges into AB-cycles by walking alternately along A- and B-edges.
+     * Whenever the walk returns to a vertex at the same parity, the closed part is an AB-cycle.
+     */
+    private void buildAbCycles() {
+        cycleCount = 0;
+        cycleStart[0] = 0;
+        Arrays.fill(posEven, -1);
+        Arrays.fill(posOdd, -1);
+
+        int startScan = RandomUtils.nextInt(n);
+        for (int s = 0; s < n; s++) {
+            int v0 = (startScan + s) % n;
+            while (countA[v0] > 0) {
+                int length = 0;
+                walk[0] = v0;
+                posEven[v0] = 0;
+                while (true) {
+                    int v = walk[length];
+                    boolean takeA = (length & 1) == 0;
+                    int[] rem = takeA ? remA : remB;
+                    int[] count = takeA ? countA : countB;
+                    int pick = count[v] > 1 && RandomUtils.nextInt(2) == 1 ? 1 : 0;
+                    int w = rem[2 * v + pick];
+                    if (pick == 1) {
+                        // removeHalfEdge odstrani prvi zapis, zato ju zamenjamo
+                        rem[2 * v + 1] = rem[2 * v];
+                        rem[2 * v] = w;
+                    }
+                    removeEdge(rem, count, v, w);
+                    walkType[length] = takeA ? 0 : 1;
+                    walk[++length] = w;
+
+                    int[] pos = (length & 1) == 0 ? posEven : posOdd;
+                    if (pos[w] >= 0) {
+                        int from = pos[w];
+                        storeCycle(from, length);
+                        for (int k = from + 1; k < length; k++) {
+                            if ((k & 1) == 0) posEven[walk[k]] = -1;
+                            else posOdd[walk[k]] = -1;
+                        }
+                        length = from;
+                        if (length == 0) {
+                            posEven[v0] = -1;
+                            break;
+                        }
+                    } else {
+                        pos[w] = length;
+                    }
+                }
+            }
+        }
+    }
+
+    private void storeCycle(int from, int to) {
+        int offset = cycleStart[cycleCount];
+        for (int k = from; k <= to; k++) {
+            cycleVertices[offset++] = walk[k];
+        }
+        cycleFirstType[cycleCount] = walkType[from];
+        cycleCount++;
+        cycleStart[cycleCount] = offset;
+    }
+
+    private void applyCycle(int cycle) {
+        int from = cycleStart[cycle];
+        int to = cycleStart[cycle + 1] - 1;
+        int type = cycleFirstType[cycle];
+        // najprej odstranimo A-robove, nato dodamo B-robove
+        for (int pass = 0; pass < 2; pass++) {
+            for (int k = from; k < to; k++) {
+                boolean isA = ((k - from) & 1) == 0 ? type == 0 : type == 1;
+                int u = cycleVertices[k];
+                int v = cycleVertices[k + 1];
+                if (pass == 0 && isA) {
+                    replaceNeighbor(u, v, -1);
+                    replaceNeighbor(v, u, -1);
+                } else if (pass == 1 && !isA) {
+                    replaceNeighbor(u, -1, v);
+                    replaceNeighbor(v, -1, u);
+                }
+            }
+        }
+    }
+
+    private void replaceNeighbor(int u, int oldNeighbor, int newNeighbor) {
+        if (adjChild[2 * u] == oldNeighbor) adjChild[2 * u] = newNeighbor;
+        else adjChild[2 * u + 1] = newNeighbor;
+    }
+
+    private int labelSubtours() {
+        Arrays.fill(subtour, -1);
+        int count = 0;
+        for (int c = 0; c < n; c++) {
+            if (subtour[c] >= 0) continue;
+            int size = 0;
+            int prev = -1;
+            int cur = c;
+            do {
+                subtour[cur] = c;
+                size++;
+                int next = adjChild[2 * cur] != prev ? adjChild[2 * cur] : adjChild[2 * cur + 1];
+                prev = cur;
+                cur = next;
+            } while (cur != c);
+            subtourSize[c] = size;
+            heap[count] = c;
+            heapPosition[c] = count;
+            count++;
+        }
+        heapSize = count;
+        for (int i = count / 2 - 1; i >= 0; i--) siftDown(i);
+        return count;
+    }
+
+    private void mergeSmallestSubtour() {
+        int smallest = heap[0];
+        heap[0] = heap[--heapSize];
+        heapPosition[heap[0]] = 0;
+        siftDown(0);
+
+        double bestGain = Double.MAX_VALUE;
+        int bestA = -1, bestB = -1, bestC = -1, bestD = -1;
+
+        int prev = -1;
+        int a = smallest;
+        do {
+            int b = adjChild[2 * a] != prev ? adjChild[2 * a] : adjChild[2 * a + 1];
+            double ab = dist(a, b);
+            for (int c : neighbors[a]) {
+                if (subtour[c] == smallest) continue;
+                for (int s = 0; s < 2; s++) {
+                    int d = adjChild[2 * c + s];
+                    double removed = ab + dist(c, d);
+                    double gain = dist(a, c) + dist(b, d) - removed;
+                    if (gain < bestGain) {
+                        bestGain = gain;
+                        bestA = a; bestB = b; bestC = c; bestD = d;
+                    }
+                    gain = dist(a, d) + dist(b, c) - removed;
+                    if (gain < bestGain) {
+                        bestGain = gain;
+                        bestA = a; bestB = b; bestC = d; bestD = c;
+                    }
+                }
+            }
+            prev = a;
+            a = b;
+        } while (a != smallest);
+
+        if (bestA < 0) {
+            // noben sosed ni izven podcikla, povežemo z naslednjim najmanjšim podciklom
+            int c = heap[0];
+            bestA = smallest;
+            bestB = adjChild[2 * smallest];
+            bestC = c;
+            bestD = adjChild[2 * c];
+        }
+
+        replaceNeighbor(bestA, bestB, bestC);
+        replaceNeighbor(bestB, bestA, bestD);
+        replaceNeighbor(bestC, bestD, bestA);
+        replaceNeighbor(bestD, bestC, bestB);
+
+        // podcikel je zdaj pot od B do A, ki jo prevzame drugi podcikel
+        int target = subtour[bestC];
+        subtourSize[target] += subtourSize[smallest];
+        siftDown(heapPosition[target]);
+        prev = bestD;
+        int cur = bestB;
+        while (subtour[cur] != target) {
+            subtour[cur] = target;
+            int next = adjChild[2 * cur] != prev ? adjChild[2 * cur] : adjChild[2 * cur + 1];
+            prev = cur;
+            cur = next;
+        }
+    }
+
+    // ob enaki velikosti pride prej podcikel z manjšo oznako
+    private boolean smaller(int s, int t) {
+        return subtourSize[s] < subtourSize[t] || subtourSize[s] == subtourSize[t] && s < t;
+    }
+
+    private void siftDown(int i) {
+        int label = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && smaller(heap[child + 1], heap[child])) child++;
+            if (!smaller(heap[child], label)) break;
+            heap[i] = heap[child];
+            heapPosition[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = label;
+        heapPosition[label] = i;
+    }
+
+    private double dist(int a, int b) {
+        return problem.distance(cities[a], cities[b]);
+    }
+
+    private void toTour(TSP.Tour child) {
+        int first = problem.getStart().index - 1;
+        // ohranimo smer starša A, če je rob od začetnega mesta ostal
+        int successorInA = adjA[2 * first + 1];
+        int prev = adjChild[2 * first] == successorInA ? adjChild[2 * first + 1] : adjChild[2 * first];
+        int cur = first;
+        for (int i = 0; i < n; i++) {
+            child.setCity(i, cities[cur]);
+            int next = adjChild[2 * cur] != prev ? adjChild[2 * cur] : adjChild[2 * cur + 1];
+            prev = cur;
+            cur = next;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+/**
+ * Whitley's edge recombination crossover. The child is grown from the union of both parents' edges,
+ * always continuing to the neighbor with the fewest remaining edges; a random unvisited city is used
+ * when the current city has no neighbor left. One child starts at the first city of each parent.
+ */
+public class ERX extends PermutationCrossover {
+
+    // vsako mesto ima največ 4 različne sosede iz obeh staršev
+    private int[] edges;
+    private int[] edgeCount;
+    private int[] unvisited;
+    private int[] unvisitedPosition;
+
+    @Override
+    protected void allocate(int n) {
+        edges = new int[4 * n];
+        edgeCount = new int[n];
+        unvisited = new int[n];
+        unvisitedPosition = new int[n];
+    }
+
+    @Override
+    public void cross(TSP.Tour parent1, TSP.Tour parent2, TSP.Tour child1, TSP.Tour child2) {
+        build(child1, parent1, parent2);
+        build(child2, parent2, parent1);
+    }
+
+    private void build(TSP.Tour child, TSP.Tour first, TSP.Tour second) {
+        for (int c = 0; c < n; c++) {
+            edgeCount[c] = 0;
+            unvisited[c] = c;
+            unvisitedPosition[c] = c;
+        }
+        addEdges(first.getPath());
+        addEdges(second.getPath());
+        int remaining = n;
+
+        int current = id(first.getPath()[0]);
+        for (int i = 0; i < n; i++) {
+            child.setCity(i, cities[current]);
+
+            // odstranimo mesto iz neobiskanih in iz seznamov sosedov
+            int last = unvisited[--remaining];
+            int pos = unvisitedPosition[current];
+            unvisited[pos] = last;
+            unvisitedPosition[last] = pos;
+            for (int k = 0; k < edgeCount[current]; k++) {
+                removeEdge(edges[4 * current + k], current);
+            }
+            if (remaining == 0) break;
+
+            int next = -1;
+            int fewest = Integer.MAX_VALUE;
+            int ties = 0;
+            for (int k = 0; k < edgeCount[current]; k++) {
+                int candidate = edges[4 * current + k];
+                if (edgeCount[candidate] < fewest) {
+                    fewest = edgeCount[candidate];
+                    next = candidate;
+                    ties = 1;
+                } else if (edgeCount[candidate] == fewest && RandomUtils.nextInt(++ties) == 0) {
+                    next = candidate;
+                }
+            }
+            current = next >= 0 ? next : unvisited[RandomUtils.nextInt(remaining)];
+        }
+    }
+
+    private void addEdges(TSP.City[] path) {
+        for (int i = 0; i < n; i++) {
+            int a = id(path[i]);
+            int b = id(path[i + 1 == n ? 0 : i + 1]);
+            addEdge(a, b);
+            addEdge(b, a);
+        }
+    }
+
+    private void addEdge(int from, int to) {
+        for (int k = 0; k < edgeCount[from]; k++) {
+            if (edges[4 * from + k] == to) return;
+        }
+        edges[4 * from + edgeCount[from]++] = to;
+    }
+
+    private void removeEdge(int from, int to) {
+        int base = 4 * from;
+        for (int k = 0; k < edgeCount[from]; k++) {
+            if (edges[base + k] == to) {
+                edges[base + k] = edges[base + --edgeCount[from]];
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package algorithms.operators;
+
+import problems.TSP;
+
+final class FitnessWeights {
+
+    private FitnessWeights() {
+    }
+
+    /**
+     * Writes linearly scaled fitness weights for minimization into {@code weights}: the worst tour gets a
+     * small positive weight and the best about {@code size + 1} times as much. Returns the total weight.
+     */
+    static double compute(TSP.Tour[] population, int size, double[] weights) {
+        double best = Double.MAX_VALUE;
+        double worst = -Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            double d = population[i].getDistance();
+            if (d < best) best = d;
+            if (d > worst) worst = d;
+        }
+        double range = worst - best;
+        double floor = range > 0 ? range / size : 1;
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            weights[i] = worst - population[i].getDistance() + floor;
+            total += weights[i];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,20 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+/**
+ * Reverses a random segment of the tour (a random 2-opt move). Only two edges change, which keeps
+ * the offspring closer to its parent than a swap.
+ */
+public class InversionMutation implements MutationOperator {
+
+    @Override
+    public void mutate(TSP.Tour tour) {
+        int dimension = tour.getPath().length;
+        int i = RandomUtils.nextInt(dimension);
+        int j = RandomUtils.nextInt(dimension);
+
+        tour.reverse(Math.min(i, j), Math.max(i, j));
+    }
+}
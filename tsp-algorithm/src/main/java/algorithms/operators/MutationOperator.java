@@ -0,0 +1,21 @@
+package algorithms.operators;
+
+import problems.TSP;
+
+/**
+ * Modifies a tour in place.
+ */
+public interface MutationOperator {
+
+    /**
+     * Prepares the operator for the given problem. Called once before the first {@link #mutate}.
+     */
+    default void init(TSP problem) {
+    }
+
+    void mutate(TSP.Tour tour);
+
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
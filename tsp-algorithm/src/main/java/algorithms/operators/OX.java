@@ -0,0 +1,56 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+/**
+ * Davis' order crossover. The segment between two random cut points is copied from one parent and
+ * the remaining cities are filled in the order in which they appear in the other parent, starting
+ * after the second cut point. Preserves relative order rather than absolute positions.
+ */
+public class OX extends PermutationCrossover {
+
+    private boolean[] used;
+
+    @Override
+    protected void allocate(int n) {
+        used = new boolean[n];
+    }
+
+    @Override
+    public void cross(TSP.Tour parent1, TSP.Tour parent2, TSP.Tour child1, TSP.Tour child2) {
+        int cut1 = RandomUtils.nextInt(n);
+        int cut2 = RandomUtils.nextInt(n);
+
+        if (cut1 > cut2) {
+            int temp = cut1;
+            cut1 = cut2;
+            cut2 = temp;
+        }
+
+        build(child1, parent1, parent2, cut1, cut2);
+        build(child2, parent2, parent1, cut1, cut2);
+    }
+
+    private void build(TSP.Tour child, TSP.Tour segmentParent, TSP.Tour orderParent, int cut1, int cut2) {
+        TSP.City[] segment = segmentParent.getPath();
+        TSP.City[] order = orderParent.getPath();
+
+        for (int i = cut1; i <= cut2; i++) {
+            used[id(segment[i])] = true;
+            child.setCity(i, segment[i]);
+        }
+
+        int target = (cut2 + 1) % n;
+        for (int k = 1; k <= n; k++) {
+            TSP.City city = order[(cut2 + k) % n];
+            if (used[id(city)]) continue;
+            child.setCity(target, city);
+            target = (target + 1) % n;
+        }
+
+        for (int i = cut1; i <= cut2; i++) {
+            used[id(segment[i])] = false;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+/**
+ * Partially mapped crossover. The segment between two random cut points is copied from one parent;
+ * the remaining positions are filled from the other parent, following the segment mapping for
+ * cities that are already used. The mapping is kept in arrays, so a child costs O(n).
+ */
+public class PMX extends PermutationCrossover {
+
+    private int[] mapping;
+    private boolean[] inSegment;
+
+    @Override
+    protected void allocate(int n) {
+        mapping = new int[n];
+        inSegment = new boolean[n];
+    }
+
+    @Override
+    public void cross(TSP.Tour parent1, TSP.Tour parent2, TSP.Tour child1, TSP.Tour child2) {
+        int cut1 = RandomUtils.nextInt(n);
+        int cut2 = RandomUtils.nextInt(n);
+
+        if (cut1 > cut2) {
+            int temp = cut1;
+            cut1 = cut2;
+            cut2 = temp;
+        }
+
+        build(child1, parent1, parent2, cut1, cut2);
+        build(child2, parent2, parent1, cut1, cut2);
+    }
+
+    private void build(TSP.Tour child, TSP.Tour segmentParent, TSP.Tour sourceParent, int cut1, int cut2) {
+        TSP.City[] segment = segmentParent.getPath();
+        TSP.City[] source = sourceParent.getPath();
+
+        for (int i = cut1; i <= cut2; i++) {
+            inSegment[id(segment[i])] = true;
+            mapping[id(segment[i])] = id(source[i]);
+            child.setCity(i, segment[i]);
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (i >= cut1 && i <= cut2) continue;
+
+            int candidate = id(source[i]);
+            while (inSegment[candidate]) {
+                candidate = mapping[candidate];
+            }
+            child.setCity(i, cities[candidate]);
+        }
+
+        for (int i = cut1; i <= cut2; i++) {
+            inSegment[id(segment[i])] = false;
+        }
+    }
+}
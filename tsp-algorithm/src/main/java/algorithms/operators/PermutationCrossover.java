@@ -0,0 +1,33 @@
+package algorithms.operators;
+
+import problems.TSP;
+
+/**
+ * Base class for crossovers that work on the position of cities in the path. Cities are
+ * addressed by {@code index - 1}; subclasses size their work arrays in {@link #allocate}.
+ */
+public abstract class PermutationCrossover implements CrossoverOperator {
+
+    protected int n;
+    protected TSP.City[] cities;
+
+    @Override
+    public void init(TSP problem) {
+        if (cities != null && cities.length == problem.getNumberOfCities()
+                && cities[0] == problem.getCity(0)) {
+            return;
+        }
+        n = problem.getNumberOfCities();
+        cities = new TSP.City[n];
+        for (int i = 0; i < n; i++) {
+            cities[i] = problem.getCity(i);
+        }
+        allocate(n);
+    }
+
+    protected abstract void allocate(int n);
+
+    protected static int id(TSP.City city) {
+        return city.index - 1;
+    }
+}
@@ -0,0 +1,56 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+/**
+ * Fitness proportional selection in O(1) per draw using Vose's alias method. The alias table is
+ * rebuilt in O(size) by {@link #prepare}.
+ */
+public class RouletteSelection implements SelectionOperator {
+
+    private int size;
+    private double[] weights = new double[0];
+    private double[] probability = new double[0];
+    private int[] alias = new int[0];
+    private int[] small = new int[0];
+    private int[] large = new int[0];
+
+    @Override
+    public void prepare(TSP.Tour[] population, int size) {
+        this.size = size;
+        if (weights.length < size) {
+            weights = new double[size];
+            probability = new double[size];
+            alias = new int[size];
+            small = new int[size];
+            large = new int[size];
+        }
+
+        double total = FitnessWeights.compute(population, size, weights);
+        int smallCount = 0, largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            weights[i] = weights[i] * size / total;
+            if (weights[i] < 1) small[smallCount++] = i;
+            else large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int l = small[--smallCount];
+            int g = large[--largeCount];
+            probability[l] = weights[l];
+            alias[l] = g;
+            weights[g] = weights[g] + weights[l] - 1;
+            if (weights[g] < 1) small[smallCount++] = g;
+            else large[largeCount++] = g;
+        }
+        // preostanek zaradi zaokroževanja
+        while (largeCount > 0) probability[large[--largeCount]] = 1;
+        while (smallCount > 0) probability[small[--smallCount]] = 1;
+    }
+
+    @Override
+    public int select() {
+        int i = RandomUtils.nextInt(size);
+        return RandomUtils.nextDouble() < probability[i] ? i : alias[i];
+    }
+}
@@ -0,0 +1,24 @@
+package algorithms.operators;
+
+import problems.TSP;
+
+/**
+ * Selects parents from an evaluated population. {@link #prepare} is called once per generation,
+ * followed by any number of {@link #select()} calls.
+ * <p>
+ * The index rather than the tour is returned, so callers can look up per-individual data that is
+ * kept next to the population.
+ */
+public interface SelectionOperator {
+
+    void prepare(TSP.Tour[] population, int size);
+
+    /**
+     * Returns the position of the selected tour in the population.
+     */
+    int select();
+
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
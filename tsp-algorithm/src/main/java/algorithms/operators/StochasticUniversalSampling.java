@@ -0,0 +1,57 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+/**
+ * Baker's stochastic universal sampling: {@code size} equally spaced pointers over the fitness wheel
+ * pick the whole mating pool with a single random number, which keeps the number of copies of each
+ * tour within one of its expected value. The pool is shuffled and handed out in order; when it is
+ * used up, a new one is sampled.
+ */
+public class StochasticUniversalSampling implements SelectionOperator {
+
+    private int size;
+    private double[] weights = new double[0];
+    private int[] pool = new int[0];
+    private double total;
+    private int cursor;
+
+    @Override
+    public void prepare(TSP.Tour[] population, int size) {
+        this.size = size;
+        if (weights.length < size) {
+            weights = new double[size];
+            pool = new int[size];
+        }
+        total = FitnessWeights.compute(population, size, weights);
+        sample();
+    }
+
+    @Override
+    public int select() {
+        if (cursor == size) sample();
+        return pool[cursor++];
+    }
+
+    private void sample() {
+        double step = total / size;
+        double pointer = RandomUtils.nextDouble() * step;
+        double cumulative = weights[0];
+        int i = 0;
+        for (int k = 0; k < size; k++) {
+            while (cumulative < pointer && i < size - 1) {
+                cumulative += weights[++i];
+            }
+            pool[k] = i;
+            pointer += step;
+        }
+        for (int k = size - 1; k > 0; k--) {
+            int r = RandomUtils.nextInt(k + 1);
+            int temp = pool[r];
+            pool[r] = pool[k];
+            pool[k] = temp;
+        }
+        cursor = 0;
+    }
+}
@@ -0,0 +1,19 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+/**
+ * Exchanges two random cities.
+ */
+public class SwapMutation implements MutationOperator {
+
+    @Override
+    public void mutate(TSP.Tour tour) {
+        int dimension = tour.getPath().length;
+        int i = RandomUtils.nextInt(dimension);
+        int j = RandomUtils.nextInt(dimension);
+
+        tour.swap(i, j);
+    }
+}
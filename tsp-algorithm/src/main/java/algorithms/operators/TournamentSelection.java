@@ -0,0 +1,43 @@
+package algorithms.operators;
+
+import Utility.RandomUtils;
+import problems.TSP;
+
+/**
+ * Returns the shortest of {@code tournamentSize} uniformly drawn tours.
+ */
+public class TournamentSelection implements SelectionOperator {
+
+    private final int tournamentSize;
+    private TSP.Tour[] population;
+    private int size;
+
+    public TournamentSelection(int tournamentSize) {
+        this.tournamentSize = tournamentSize;
+    }
+
+    @Override
+    public void prepare(TSP.Tour[] population, int size) {
+        this.population = population;
+        this.size = size;
+    }
+
+    @Override
+    public int select() {
+        int best = -1;
+
+        for (int i = 0; i < tournamentSize; i++) {
+            int randomIdx = RandomUtils.nextInt(size);
+
+            if (best < 0 || population[randomIdx].getDistance() < population[best].getDistance()) {
+                best = randomIdx;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String getName() {
+        return "Tournament" + tournamentSize;
+    }
+}
@@ -0,0 +1,267 @@
+package benchmark;
+
+import Utility.RandomUtils;
+import algorithms.GA;
+import algorithms.IncrementalSolver;
+import algorithms.RunControl;
+import algorithms.Solver;
+import problems.TSP;
+import telemetry.SolverMetrics;
+import telemetry.TelemetrySink;
+import telemetry.TelemetryWriter;
+import telemetry.jfr.JfrTelemetry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs a solver on a matrix of instances × seeds on a bounded thread pool.
+ * <p>
+ * Every run gets its own seed derived from the base seed, the instance and the run number, and
+ * {@link RandomUtils} is thread-local, so results do not depend on the number of threads or on
+ * scheduling. Per run it records the distance, gap to the known optimum, wall time, evaluations
+ * per second and the time (and evaluations) until the best tour first came within
+ * {@code targetGap} of the optimum.
+ */
+public class BenchmarkRunner {
+
+    /** Optimal tour lengths of the bundled TSPLIB instances. */
+    public static final Map<String, Double> KNOWN_OPTIMA = new HashMap<>();
+
+    static {
+        KNOWN_OPTIMA.put("bays29.tsp", 2020.0);
+        KNOWN_OPTIMA.put("eil101.tsp", 629.0);
+        KNOWN_OPTIMA.put("a280.tsp", 2579.0);
+        KNOWN_OPTIMA.put("pr1002.tsp", 259045.0);
+        KNOWN_OPTIMA.put("dca1389.tsp", 5085.0);
+    }
+
+    private final Supplier<Solver> solverFactory;
+    private int runs = 30;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 123;
+    private int evaluationsPerCity = 1000; //max evaluations = evaluationsPerCity * number of cities
+    private double targetGap = 0.05;
+    private long timeLimitMillis; //0 = no limit
+    private boolean verbose = true;
+    private Path telemetryDirectory; //null = no telemetry
+    private boolean jfrEvents;
+    private Path checkpointDirectory; //null = no checkpoints
+    private long checkpointIntervalMillis;
+
+    public BenchmarkRunner(Supplier<Solver> solverFactory) {
+        this.solverFactory = solverFactory;
+    }
+
+    public void setRuns(int runs) {
+        this.runs = runs;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setEvaluationsPerCity(int evaluationsPerCity) {
+        this.evaluationsPerCity = evaluationsPerCity;
+    }
+
+    /**
+     * Sets the relative distance to the optimum that counts as reaching the target, e.g. {@code 0.05}.
+     */
+    public void setTargetGap(double targetGap) {
+        this.targetGap = targetGap;
+    }
+
+    public void setTimeLimit(long millis) {
+        this.timeLimitMillis = millis;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Records {@link SolverMetrics} for every GA run and writes its convergence trace
+     * ({@code <instance>_run<n>_trace.csv}) and metrics ({@code <instance>_run<n>_metrics.json})
+     * to {@code directory}.
+     */
+    public void setTelemetryDirectory(Path directory) {
+        this.telemetryDirectory = directory;
+    }
+
+    /**
+     * Checkpoints every GA run to {@code <instance>_run<n>.ckpt} in {@code directory} every
+     * {@code intervalMillis}. A run whose checkpoint already exists, e.g. after a crash of the
+     * suite, resumes from it; the checkpoint is deleted when the run completes. The wall time of a
+     * resumed run covers only the resumed part.
+     */
+    public void setCheckpointDirectory(Path directory, long intervalMillis) {
+        this.checkpointDirectory = directory;
+        this.checkpointIntervalMillis = intervalMillis;
+    }
+
+    /**
+     * Emits Java Flight Recorder events from every run (see {@link JfrTelemetry}). They are recorded
+     * only when the JVM runs a flight recording.
+     */
+    public void setJfrEvents(boolean jfrEvents) {
+        this.jfrEvents = jfrEvents;
+    }
+
+    /**
+     * Executes all runs and returns their results ordered by instance and run number.
+     */
+    public List<RunResult> run(List<String> instances) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        CompletionService<RunResult> completion = new ExecutorCompletionService<>(pool);
+        if (verbose) {
+            // z osnovnim semenom je mogoče ponoviti vse zagone
+            System.out.println("Seed: " + seed);
+        }
+        try {
+            for (int i = 0; i < instances.size(); i++) {
+                String instance = instances.get(i);
+                for (int r = 0; r < runs; r++) {
+                    long runSeed = runSeed(seed, i, r);
+                    int run = r;
+                    completion.submit(() -> runOnce(instance, run, runSeed));
+                }
+            }
+
+            List<RunResult> results = new ArrayList<>();
+            int total = instances.size() * runs;
+            for (int k = 0; k < total; k++) {
+                RunResult result = completion.take().get();
+                results.add(result);
+                if (verbose) {
+                    System.out.printf("[%3d/%d] %-12s run %2d: %.4f (%d ms)%n", k + 1, total,
+                            result.instance, result.run + 1, result.distance, result.wallMillis);
+                }
+            }
+            results.sort(Comparator.comparingInt((RunResult r) -> instances.indexOf(r.instance))
+                    .thenComparingInt(r -> r.run));
+            return results;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Benchmark run failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes one run of {@code instance} with the given seed on the calling thread.
+     */
+    RunResult runOnce(String instance, int run, long runSeed) {
+        RandomUtils.setSeed(runSeed);
+        TSP problem = new TSP(instance, 0);
+        problem.setMaxEvaluations(evaluationsPerCity * problem.getNumberOfCities());
+        double optimum = KNOWN_OPTIMA.getOrDefault(instance, Double.NaN);
+        double target = optimum * (1 + targetGap);
+
+        // prvi trenutek, ko je najboljša pot dovolj blizu optimuma
+        long[] timeToTarget = {-1};
+        int[] evaluationsToTarget = {-1};
+        RunControl control = new RunControl();
+        if (timeLimitMillis > 0) control.setTimeLimit(timeLimitMillis);
+        if (!Double.isNaN(optimum)) {
+            control.setProgressListener((best, evaluations, elapsedMillis) -> {
+                if (timeToTarget[0] < 0 && best.getDistance() <= target) {
+                    timeToTarget[0] = elapsedMillis;
+                    evaluationsToTarget[0] = evaluations;
+                }
+            }, 0);
+        }
+
+        Solver solver = solverFactory.get();
+        solver.setRunControl(control);
+        SolverMetrics metrics = telemetryDirectory != null ? new SolverMetrics() : null;
+        TelemetrySink telemetry = jfrEvents ? new JfrTelemetry(metrics) : metrics;
+        Path checkpoint = null;
+        if (solver instanceof GA) {
+            GA ga = (GA) solver;
+            ga.setTelemetry(telemetry);
+            if (checkpointDirectory != null) {
+                checkpoint = checkpointDirectory.resolve(instance.replace(".tsp", "") + "_run" + (run + 1) + ".ckpt");
+                try {
+                    Files.createDirectories(checkpointDirectory);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                ga.setCheckpoint(checkpoint, checkpointIntervalMillis);
+                if (Files.exists(checkpoint)) ga.resumeFrom(checkpoint);
+            }
+        } else if (solver instanceof IncrementalSolver) {
+            ((IncrementalSolver) solver).setTelemetry(telemetry);
+        }
+        long start = System.nanoTime();
+        TSP.Tour best = solver.execute(problem);
+        long wallMillis = (System.nanoTime() - start) / 1_000_000L;
+        if (metrics != null) {
+            writeTelemetry(instance, run, metrics);
+        }
+        if (checkpoint != null && !control.shouldStop()) {
+            try {
+                Files.deleteIfExists(checkpoint);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return new RunResult(instance, run, runSeed, best.getDistance(), optimum, wallMillis,
+                problem.getNumberOfEvaluations(), timeToTarget[0], evaluationsToTarget[0]);
+    }
+
+    private void writeTelemetry(String instance, int run, SolverMetrics metrics) {
+        String prefix = instance.replace(".tsp", "") + "_run" + (run + 1);
+        try {
+            Files.createDirectories(telemetryDirectory);
+            TelemetryWriter.writeTraceCsv(telemetryDirectory.resolve(prefix + "_trace.csv"), metrics.getTrace());
+            TelemetryWriter.writeMetricsJson(telemetryDirectory.resolve(prefix + "_metrics.json"), metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write telemetry of " + prefix, e);
+        }
+    }
+
+    /**
+     * Derives a well mixed seed for one run (splitmix64 finalizer).
+     */
+    public static long runSeed(long seed, int instance, int run) {
+        long z = seed + 0x9E3779B97F4A7C15L * (instance * 1_000_003L + run + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Groups results by instance, keeping the instance order of the list.
+     */
+    public static List<InstanceSummary> summarize(List<RunResult> results) {
+        Map<String, List<RunResult>> byInstance = new LinkedHashMap<>();
+        for (RunResult r : results) {
+            byInstance.computeIfAbsent(r.instance, k -> new ArrayList<>()).add(r);
+        }
+        List<InstanceSummary> summaries = new ArrayList<>();
+        for (Map.Entry<String, List<RunResult>> e : byInstance.entrySet()) {
+            summaries.add(new InstanceSummary(e.getKey(), e.getValue()));
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,54 @@
+package benchmark;
+
+import Utility.Statistics;
+
+import java.util.List;
+
+/**
+ * Aggregated statistics of all runs on one instance.
+ */
+public class InstanceSummary {
+
+    public final String instance;
+    public final int runs;
+    public final double optimum;
+    public final double best, mean, median, standardDeviation, confidenceHalfWidth;
+    public final double meanGap;
+    public final double meanWallMillis, meanEvaluationsPerSecond;
+    public final int targetHits;
+    public final double meanTimeToTargetMillis; //NaN if no run reached the target
+
+    public InstanceSummary(String instance, List<RunResult> results) {
+        this.instance = instance;
+        runs = results.size();
+        optimum = results.get(0).optimum;
+
+        double[] distances = new double[runs];
+        double[] gaps = new double[runs];
+        double[] wall = new double[runs];
+        double[] speed = new double[runs];
+        double timeToTarget = 0;
+        int hits = 0;
+        for (int i = 0; i < runs; i++) {
+            RunResult r = results.get(i);
+            distances[i] = r.distance;
+            gaps[i] = r.getGap();
+            wall[i] = r.wallMillis;
+            speed[i] = r.getEvaluationsPerSecond();
+            if (r.reachedTarget()) {
+                hits++;
+                timeToTarget += r.timeToTargetMillis;
+            }
+        }
+        best = Statistics.min(distances);
+        mean = Statistics.mean(distances);
+        median = Statistics.median(distances);
+        standardDeviation = Statistics.standardDeviation(distances);
+        confidenceHalfWidth = Statistics.confidenceHalfWidth(distances, 0.95);
+        meanGap = Statistics.mean(gaps);
+        meanWallMillis = Statistics.mean(wall);
+        meanEvaluationsPerSecond = Statistics.mean(speed);
+        targetHits = hits;
+        meanTimeToTargetMillis = hits > 0 ? timeToTarget / hits : Double.NaN;
+    }
+}
@@ -0,0 +1,82 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes benchmark results as CSV (one row per run, one row per instance) and as a JSON summary.
+ */
+public class ResultWriter {
+
+    private ResultWriter() {
+    }
+
+    public static void writeRunsCsv(Path file, List<RunResult> results) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("instance,run,seed,distance,optimum,gap,wall_ms,evaluations,evals_per_sec,"
+                    + "time_to_target_ms,evals_to_target");
+            writer.newLine();
+            for (RunResult r : results) {
+                writer.write(String.format(Locale.US, "%s,%d,%d,%.6f,%s,%s,%d,%d,%.1f,%d,%d",
+                        r.instance, r.run + 1, r.seed, r.distance, number(r.optimum), number(r.getGap()),
+                        r.wallMillis, r.evaluations, r.getEvaluationsPerSecond(),
+                        r.timeToTargetMillis, r.evaluationsToTarget));
+                writer.newLine();
+            }
+        }
+    }
+
+    public static void writeSummaryCsv(Path file, List<InstanceSummary> summaries) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("instance,runs,optimum,best,mean,median,stdev,ci95_low,ci95_high,mean_gap,"
+                    + "mean_wall_ms,mean_evals_per_sec,target_hits,mean_time_to_target_ms");
+            writer.newLine();
+            for (InstanceSummary s : summaries) {
+                writer.write(String.format(Locale.US, "%s,%d,%s,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%s,%.1f,%.1f,%d,%s",
+                        s.instance, s.runs, number(s.optimum), s.best, s.mean, s.median, s.standardDeviation,
+                        s.mean - s.confidenceHalfWidth, s.mean + s.confidenceHalfWidth, number(s.meanGap),
+                        s.meanWallMillis, s.meanEvaluationsPerSecond, s.targetHits, number(s.meanTimeToTargetMillis)));
+                writer.newLine();
+            }
+        }
+    }
+
+    public static void writeSummaryJson(Path file, List<InstanceSummary> summaries) throws IOException {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < summaries.size(); i++) {
+            InstanceSummary s = summaries.get(i);
+            json.append("  {")
+                    .append("\"instance\": \"").append(s.instance).append("\", ")
+                    .append("\"runs\": ").append(s.runs).append(", ")
+                    .append("\"optimum\": ").append(json(s.optimum)).append(", ")
+                    .append("\"best\": ").append(json(s.best)).append(", ")
+                    .append("\"mean\": ").append(json(s.mean)).append(", ")
+                    .append("\"median\": ").append(json(s.median)).append(", ")
+                    .append("\"stdev\": ").append(json(s.standardDeviation)).append(", ")
+                    .append("\"ci95\": [").append(json(s.mean - s.confidenceHalfWidth)).append(", ")
+                    .append(json(s.mean + s.confidenceHalfWidth)).append("], ")
+                    .append("\"meanGap\": ").append(json(s.meanGap)).append(", ")
+                    .append("\"meanWallMillis\": ").append(json(s.meanWallMillis)).append(", ")
+                    .append("\"meanEvaluationsPerSecond\": ").append(json(s.meanEvaluationsPerSecond)).append(", ")
+                    .append("\"targetHits\": ").append(s.targetHits).append(", ")
+                    .append("\"meanTimeToTargetMillis\": ").append(json(s.meanTimeToTargetMillis))
+                    .append(i + 1 < summaries.size() ? "},\n" : "}\n");
+        }
+        json.append("]\n");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // prazno polje v CSV za neznane vrednosti
+    private static String number(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.US, "%.6f", value);
+    }
+
+    private static String json(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.format(Locale.US, "%.6f", value);
+    }
+}
@@ -0,0 +1,45 @@
+package benchmark;
+
+/**
+ * Outcome of one seeded run of a solver on one instance.
+ */
+public class RunResult {
+
+    public final String instance;
+    public final int run;
+    public final long seed;
+    public final double distance;
+    public final double optimum; //NaN if unknown
+    public final long wallMillis;
+    public final int evaluations;
+    public final long timeToTargetMillis; //-1 if the target was not reached
+    public final int evaluationsToTarget; //-1 if the target was not reached
+
+    public RunResult(String instance, int run, long seed, double distance, double optimum, long wallMillis,
+                     int evaluations, long timeToTargetMillis, int evaluationsToTarget) {
+        this.instance = instance;
+        this.run = run;
+        this.seed = seed;
+        this.distance = distance;
+        this.optimum = optimum;
+        this.wallMillis = wallMillis;
+        this.evaluations = evaluations;
+        this.timeToTargetMillis = timeToTargetMillis;
+        this.evaluationsToTarget = evaluationsToTarget;
+    }
+
+    /**
+     * Returns the relative gap to the known optimum, e.g. {@code 0.05} for 5 % above it.
+     */
+    public double getGap() {
+        return (distance - optimum) / optimum;
+    }
+
+    public double getEvaluationsPerSecond() {
+        return wallMillis > 0 ? evaluations * 1000.0 / wallMillis : evaluations * 1000.0;
+    }
+
+    public boolean reachedTarget() {
+        return timeToTargetMillis >= 0;
+    }
+}
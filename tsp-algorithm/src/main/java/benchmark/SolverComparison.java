@@ -0,0 +1,207 @@
+package benchmark;
+
+import Utility.Statistics;
+import algorithms.Solver;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Compares a candidate solver with a baseline on identical instances and seeds.
+ * <p>
+ * Both solvers run the same (instance, seed) matrix with {@link BenchmarkRunner}. The two runs of
+ * every (instance, seed) pair execute back to back on the same thread, the baseline first for even
+ * run numbers and the candidate first for odd ones, so neither solver runs on a JVM that the other
+ * has already warmed up by the JIT compiler. Per instance, the
+ * tour lengths and wall times are compared with a paired Wilcoxon signed-rank test. P-values are
+ * Holm-corrected over the instances. The candidate is a regression if it is significantly worse
+ * in quality on any instance. It is also a regression if it is significantly slower and its median
+ * runtime exceeds the baseline's by more than the speed tolerance.
+ */
+public class SolverComparison {
+
+    private final Supplier<Solver> baseline, candidate;
+    private int runs = 20;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 123;
+    private int evaluationsPerCity = 1000;
+    private double alpha = 0.05;
+    private double speedTolerance = 1.05; //runtime ratio that counts as slower
+
+    public SolverComparison(Supplier<Solver> baseline, Supplier<Solver> candidate) {
+        this.baseline = baseline;
+        this.candidate = candidate;
+    }
+
+    public void setRuns(int runs) {
+        this.runs = runs;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setEvaluationsPerCity(int evaluationsPerCity) {
+        this.evaluationsPerCity = evaluationsPerCity;
+    }
+
+    public void setAlpha(double alpha) {
+        this.alpha = alpha;
+    }
+
+    public void setSpeedTolerance(double speedTolerance) {
+        this.speedTolerance = speedTolerance;
+    }
+
+    /**
+     * Result of the comparison on one instance.
+     */
+    public static class InstanceComparison {
+        public final String instance;
+        public final double baselineMean, candidateMean;
+        public final double baselineMedianMillis, candidateMedianMillis;
+        public final WilcoxonSignedRank quality; //candidate - baseline distance
+        public final WilcoxonSignedRank time; //candidate - baseline wall time
+        public boolean worseQuality, betterQuality, slower;
+
+        InstanceComparison(String instance, double[] baseDistance, double[] candDistance,
+                           double[] baseMillis, double[] candMillis) {
+            this.instance = instance;
+            baselineMean = Statistics.mean(baseDistance);
+            candidateMean = Statistics.mean(candDistance);
+            baselineMedianMillis = Statistics.median(baseMillis);
+            candidateMedianMillis = Statistics.median(candMillis);
+            quality = new WilcoxonSignedRank(candDistance, baseDistance);
+            time = new WilcoxonSignedRank(candMillis, baseMillis);
+        }
+
+        public double getRuntimeRatio() {
+            return baselineMedianMillis > 0 ? candidateMedianMillis / baselineMedianMillis : 1;
+        }
+    }
+
+    public static class Report {
+        public final List<InstanceComparison> instances = new ArrayList<>();
+
+        public boolean isRegression() {
+            for (InstanceComparison c : instances) {
+                if (c.worseQuality || c.slower) return true;
+            }
+            return false;
+        }
+
+        public void print(PrintStream out) {
+            out.printf(Locale.US, "%-22s %14s %14s %8s %9s %9s %8s %9s  %s%n", "instance", "baseline", "candidate",
+                    "diff %", "p worse", "p better", "effect", "time x", "verdict");
+            for (InstanceComparison c : instances) {
+                String verdict = c.worseQuality ? "WORSE" : c.betterQuality ? "better" : "same";
+                if (c.slower) verdict += ", SLOWER";
+                out.printf(Locale.US, "%-22s %14.2f %14.2f %8.2f %9.4f %9.4f %8.2f %9.2f  %s%n",
+                        c.instance, c.baselineMean, c.candidateMean,
+                        100 * (c.candidateMean - c.baselineMean) / c.baselineMean,
+                        c.quality.pGreater, c.quality.pLess, c.quality.effectSize, c.getRuntimeRatio(), verdict);
+            }
+            out.println(isRegression() ? "REGRESSION" : "OK");
+        }
+    }
+
+    public Report compare(List<String> instances) throws InterruptedException {
+        BenchmarkRunner baseRunner = runner(baseline), candRunner = runner(candidate);
+        int m = instances.size();
+        RunResult[][] base = new RunResult[m][runs], cand = new RunResult[m][runs];
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < m; i++) {
+                String instance = instances.get(i);
+                for (int r = 0; r < runs; r++) {
+                    int index = i, run = r;
+                    long runSeed = BenchmarkRunner.runSeed(seed, i, r);
+                    // par zagonov zaporedoma, izmenično začne eden ali drugi
+                    futures.add(pool.submit(() -> {
+                        if (run % 2 == 0) {
+                            base[index][run] = baseRunner.runOnce(instance, run, runSeed);
+                            cand[index][run] = candRunner.runOnce(instance, run, runSeed);
+                        } else {
+                            cand[index][run] = candRunner.runOnce(instance, run, runSeed);
+                            base[index][run] = baseRunner.runOnce(instance, run, runSeed);
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Comparison run failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Report report = new Report();
+        for (int i = 0; i < m; i++) {
+            double[][] b = columns(base[i]);
+            double[][] c = columns(cand[i]);
+            report.instances.add(new InstanceComparison(instances.get(i), b[0], c[0], b[1], c[1]));
+        }
+
+        double[] pWorse = new double[m], pBetter = new double[m], pSlower = new double[m];
+        for (int i = 0; i < m; i++) {
+            InstanceComparison c = report.instances.get(i);
+            pWorse[i] = c.quality.pGreater;
+            pBetter[i] = c.quality.pLess;
+            pSlower[i] = c.time.pGreater;
+        }
+        boolean[] worse = holm(pWorse), better = holm(pBetter), slower = holm(pSlower);
+        for (int i = 0; i < m; i++) {
+            InstanceComparison c = report.instances.get(i);
+            c.worseQuality = worse[i];
+            c.betterQuality = better[i];
+            c.slower = slower[i] && c.getRuntimeRatio() > speedTolerance;
+        }
+        return report;
+    }
+
+    private BenchmarkRunner runner(Supplier<Solver> solver) {
+        BenchmarkRunner runner = new BenchmarkRunner(solver);
+        runner.setEvaluationsPerCity(evaluationsPerCity);
+        runner.setVerbose(false);
+        return runner;
+    }
+
+    // razdalje in časi zagonov na instanci po številki zagona (torej po semenu)
+    private static double[][] columns(RunResult[] results) {
+        double[][] columns = new double[2][results.length];
+        for (int i = 0; i < results.length; i++) {
+            columns[0][i] = results[i].distance;
+            columns[1][i] = results[i].wallMillis;
+        }
+        return columns;
+    }
+
+    /**
+     * Holm-Bonferroni step-down procedure; returns which hypotheses are rejected at {@code alpha}.
+     */
+    private boolean[] holm(double[] p) {
+        int m = p.length;
+        Integer[] order = new Integer[m];
+        for (int i = 0; i < m; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(p[a], p[b]));
+        boolean[] rejected = new boolean[m];
+        for (int k = 0; k < m; k++) {
+            if (p[order[k]] > alpha / (m - k)) break;
+            rejected[order[k]] = true;
+        }
+        return rejected;
+    }
+}
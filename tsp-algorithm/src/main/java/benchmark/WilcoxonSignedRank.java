@@ -0,0 +1,94 @@
+package benchmark;
+
+import Utility.Statistics;
+
+import java.util.Arrays;
+
+/**
+ * Paired Wilcoxon signed-rank test of {@code x - y}. Zero differences are dropped and tied absolute
+ * differences get average ranks. Up to 30 pairs the p-values come from the exact permutation
+ * distribution, above that from the normal approximation with tie and continuity correction.
+ */
+public class WilcoxonSignedRank {
+
+    static final int EXACT_LIMIT = 30;
+
+    public final int n; //pairs with a non-zero difference
+    public final double wPlus, wMinus;
+    public final double pGreater; //one-sided, alternative: x tends to be larger than y
+    public final double pLess; //one-sided, alternative: x tends to be smaller than y
+    public final double effectSize; //matched-pairs rank-biserial correlation in [-1, 1]
+
+    public WilcoxonSignedRank(double[] x, double[] y) {
+        int count = 0;
+        double[] differences = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            double d = x[i] - y[i];
+            if (d != 0) differences[count++] = d;
+        }
+        n = count;
+        double[] absolute = new double[n];
+        for (int i = 0; i < n; i++) absolute[i] = Math.abs(differences[i]);
+        double[] ranks = Statistics.ranks(absolute);
+
+        double plus = 0, minus = 0;
+        for (int i = 0; i < n; i++) {
+            if (differences[i] > 0) plus += ranks[i];
+            else minus += ranks[i];
+        }
+        wPlus = plus;
+        wMinus = minus;
+        double total = n * (n + 1) / 2.0;
+        effectSize = n > 0 ? (plus - minus) / total : 0;
+
+        if (n == 0) {
+            pGreater = 1;
+            pLess = 1;
+        } else if (n <= EXACT_LIMIT) {
+            pGreater = exactUpperTail(ranks, plus);
+            pLess = exactUpperTail(ranks, minus);
+        } else {
+            double tieCorrection = 0;
+            double[] sorted = absolute.clone();
+            Arrays.sort(sorted);
+            for (int i = 0; i < n; ) {
+                int j = i;
+                while (j + 1 < n && sorted[j + 1] == sorted[i]) j++;
+                double t = j - i + 1;
+                tieCorrection += t * t * t - t;
+                i = j + 1;
+            }
+            double mean = total / 2;
+            double sd = Math.sqrt(n * (n + 1) * (2 * n + 1) / 24.0 - tieCorrection / 48);
+            pGreater = 1 - Statistics.normalCdf((plus - mean - 0.5) / sd);
+            pLess = 1 - Statistics.normalCdf((minus - mean - 0.5) / sd);
+        }
+    }
+
+    /**
+     * Returns {@code P(W >= observed)} under the null hypothesis that every rank is positive or
+     * negative with probability 1/2. Ranks are doubled so that average ranks of ties are integers.
+     */
+    private static double exactUpperTail(double[] ranks, double observed) {
+        int max = 0;
+        int[] doubled = new int[ranks.length];
+        for (int i = 0; i < ranks.length; i++) {
+            doubled[i] = (int) Math.round(2 * ranks[i]);
+            max += doubled[i];
+        }
+        // število kombinacij predznakov za vsako vsoto pozitivnih rangov
+        double[] ways = new double[max + 1];
+        ways[0] = 1;
+        int reach = 0;
+        for (int r : doubled) {
+            for (int s = reach; s >= 0; s--) {
+                if (ways[s] != 0) ways[s + r] += ways[s];
+            }
+            reach += r;
+        }
+        int threshold = (int) Math.round(2 * observed);
+        double tail = 0;
+        for (int s = threshold; s <= max; s++) tail += ways[s];
+        return tail / Math.pow(2, ranks.length);
+    }
+}
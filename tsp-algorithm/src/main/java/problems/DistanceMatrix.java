@@ -0,0 +1,55 @@
+package problems;
+
+/**
+ * Explicit distances between the cities of an instance, indexed by zero based city position.
+ * <p>
+ * Matrices read from a file are stored in the most compact backend that represents every value
+ * exactly: 16-bit units of a common scale, 32-bit integers, or doubles when a value is fractional.
+ * Symmetric matrices keep only one triangle. For integral matrices {@link TSP} sums tour lengths in
+ * {@code long}, so the result is exact and does not depend on the order of the edges.
+ */
+public interface DistanceMatrix {
+
+    int size();
+
+    double get(int from, int to);
+
+    /**
+     * Returns whether every value is an integer, so that {@link #getLong} is exact.
+     */
+    boolean isIntegral();
+
+    /**
+     * Returns the distance as an integer; only meaningful for {@link #isIntegral() integral} matrices.
+     */
+    long getLong(int from, int to);
+
+    /**
+     * Returns whether one value is stored per pair of cities, which makes the matrix symmetric.
+     */
+    boolean isTriangle();
+
+    /**
+     * Returns the integral length of the route from {@code start} through {@code path} back to
+     * {@code start}. Backends loop over their own array, so a tour costs one call instead of one per edge.
+     */
+    default long routeLength(TSP.City start, TSP.City[] path) {
+        long length = 0;
+        int previous = start.index - 1;
+        for (TSP.City city : path) {
+            length += getLong(previous, city.index - 1);
+            previous = city.index - 1;
+        }
+        return length + getLong(previous, start.index - 1);
+    }
+
+    /**
+     * Returns the matrix of the given cities in the given order, in the same backend.
+     */
+    DistanceMatrix subMatrix(int[] cities);
+
+    /**
+     * Returns the memory taken by the values, in bytes.
+     */
+    long sizeInBytes();
+}
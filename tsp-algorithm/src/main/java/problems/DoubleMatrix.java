@@ -0,0 +1,63 @@
+package problems;
+
+/**
+ * Matrix of doubles, row-major or a packed {@link Triangle}, for matrices with fractional values.
+ */
+final class DoubleMatrix implements DistanceMatrix {
+
+    private final int n;
+    private final boolean triangle;
+    private final double[] values;
+
+    DoubleMatrix(int n, boolean triangle, double[] values) {
+        this.n = n;
+        this.triangle = triangle;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double get(int from, int to) {
+        return values[index(from, to)];
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return false;
+    }
+
+    @Override
+    public long getLong(int from, int to) {
+        return (long) values[index(from, to)];
+    }
+
+    @Override
+    public boolean isTriangle() {
+        return triangle;
+    }
+
+    @Override
+    public DistanceMatrix subMatrix(int[] cities) {
+        int m = cities.length;
+        double[] sub = new double[triangle ? (int) Triangle.size(m) : m * m];
+        for (int i = 0; i < m; i++) {
+            for (int j = triangle ? i : 0; j < m; j++) {
+                sub[triangle ? Triangle.arrayIndex(i, j) : i * m + j] = values[index(cities[i], cities[j])];
+            }
+        }
+        return new DoubleMatrix(m, triangle, sub);
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 8L * values.length;
+    }
+
+    private int index(int from, int to) {
+        return triangle ? Triangle.arrayIndex(from, to) : from * n + to;
+    }
+}
@@ -0,0 +1,136 @@
+package problems;
+
+/**
+ * Approximate road distances (or travel times) from coordinates: the great-circle distance between
+ * two locations in meters times a detour factor, rounded to whole units like the downloaded
+ * matrices. The factor is fitted with {@link #fit} against a matrix of real values.
+ * <p>
+ * Nothing is stored but each location's point on the unit sphere, so a value costs a few
+ * multiplications and an {@code asin} when it is asked for. The haversine {@code sin^2(d/2)} equals a
+ * quarter of the squared chord between the points, and {@link #row} computes the chords of a whole
+ * row in a plain loop over arrays that the JIT compiler vectorizes before taking the {@code asin}s.
+ */
+public final class HaversineMatrix implements DistanceMatrix {
+
+    static final double EARTH_RADIUS = 6_371_000;
+
+    private final int n;
+    private final double[] xs, ys, zs;
+    private final double factor;
+
+    /**
+     * @param latitudes  degrees
+     * @param longitudes degrees
+     * @param factor     value per meter of great-circle distance, e.g. road meters or seconds
+     */
+    public HaversineMatrix(double[] latitudes, double[] longitudes, double factor) {
+        n = latitudes.length;
+        xs = new double[n];
+        ys = new double[n];
+        zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double phi = Math.toRadians(latitudes[i]), lambda = Math.toRadians(longitudes[i]);
+            xs[i] = Math.cos(phi) * Math.cos(lambda);
+            ys[i] = Math.cos(phi) * Math.sin(lambda);
+            zs[i] = Math.sin(phi);
+        }
+        this.factor = factor;
+    }
+
+    private HaversineMatrix(double[] xs, double[] ys, double[] zs, double factor) {
+        n = xs.length;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.factor = factor;
+    }
+
+    /**
+     * Fits the factor by least squares through the origin, {@code sum(v * d) / sum(d * d)} over the
+     * pairs of different locations with a positive value {@code v} in {@code known} (0 means no route)
+     * and great-circle distance {@code d}.
+     */
+    public static double fit(DistanceMatrix known, double[] latitudes, double[] longitudes) {
+        HaversineMatrix meters = new HaversineMatrix(latitudes, longitudes, 1);
+        double[] row = new double[meters.n];
+        double products = 0, squares = 0;
+        for (int i = 0; i < meters.n; i++) {
+            meters.row(i, row);
+            for (int j = 0; j < meters.n; j++) {
+                double value = known.get(i, j);
+                if (i != j && value > 0) {
+                    products += value * row[j];
+                    squares += row[j] * row[j];
+                }
+            }
+        }
+        if (squares == 0) {
+            throw new IllegalArgumentException("No pairs of distinct locations with a known value to fit");
+        }
+        return products / squares;
+    }
+
+    public double getFactor() {
+        return factor;
+    }
+
+    /**
+     * Writes the unrounded values from {@code from} to every location into {@code out}.
+     */
+    public void row(int from, double[] out) {
+        double x = xs[from], y = ys[from], z = zs[from];
+        // najprej kvadrati tetiv (vektorizira se), nato asin
+        for (int j = 0; j < n; j++) {
+            double dx = xs[j] - x, dy = ys[j] - y, dz = zs[j] - z;
+            out[j] = dx * dx + dy * dy + dz * dz;
+        }
+        double scale = 2 * EARTH_RADIUS * factor;
+        for (int j = 0; j < n; j++) {
+            out[j] = scale * Math.asin(Math.min(1, 0.5 * Math.sqrt(out[j])));
+        }
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double get(int from, int to) {
+        return getLong(from, to);
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public long getLong(int from, int to) {
+        double dx = xs[to] - xs[from], dy = ys[to] - ys[from], dz = zs[to] - zs[from];
+        double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return Math.round(2 * EARTH_RADIUS * factor * Math.asin(Math.min(1, 0.5 * chord)));
+    }
+
+    @Override
+    public boolean isTriangle() {
+        return true;
+    }
+
+    @Override
+    public DistanceMatrix subMatrix(int[] cities) {
+        int m = cities.length;
+        double[] x = new double[m], y = new double[m], z = new double[m];
+        for (int i = 0; i < m; i++) {
+            x[i] = xs[cities[i]];
+            y[i] = ys[cities[i]];
+            z[i] = zs[cities[i]];
+        }
+        return new HaversineMatrix(x, y, z, factor);
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 3L * 8 * n;
+    }
+}
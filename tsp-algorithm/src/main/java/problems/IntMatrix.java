@@ -0,0 +1,86 @@
+package problems;
+
+/**
+ * Matrix of 32-bit integers, e.g. meters or seconds from a routing service, stored row-major or as a
+ * packed {@link Triangle} for symmetric matrices.
+ */
+final class IntMatrix implements DistanceMatrix {
+
+    private final int n;
+    private final boolean triangle;
+    private final int[] values;
+
+    IntMatrix(int n, boolean triangle, int[] values) {
+        this.n = n;
+        this.triangle = triangle;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double get(int from, int to) {
+        return values[index(from, to)];
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public long getLong(int from, int to) {
+        return values[index(from, to)];
+    }
+
+    @Override
+    public boolean isTriangle() {
+        return triangle;
+    }
+
+    // ločeni zanki za obe postavitvi, da v zanki ni vejitve
+    @Override
+    public long routeLength(TSP.City start, TSP.City[] path) {
+        long length = 0;
+        int previous = start.index - 1;
+        if (triangle) {
+            for (TSP.City city : path) {
+                int next = city.index - 1;
+                length += values[Triangle.arrayIndex(previous, next)];
+                previous = next;
+            }
+        } else {
+            for (TSP.City city : path) {
+                int next = city.index - 1;
+                length += values[previous * n + next];
+                previous = next;
+            }
+        }
+        length += values[index(previous, start.index - 1)];
+        return length;
+    }
+
+    @Override
+    public DistanceMatrix subMatrix(int[] cities) {
+        int m = cities.length;
+        int[] sub = new int[triangle ? (int) Triangle.size(m) : m * m];
+        for (int i = 0; i < m; i++) {
+            for (int j = triangle ? i : 0; j < m; j++) {
+                sub[triangle ? Triangle.arrayIndex(i, j) : i * m + j] = values[index(cities[i], cities[j])];
+            }
+        }
+        return new IntMatrix(m, triangle, sub);
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 4L * values.length;
+    }
+
+    private int index(int from, int to) {
+        return triangle ? Triangle.arrayIndex(from, to) : from * n + to;
+    }
+}
@@ -0,0 +1,161 @@
+package problems;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Integer distance matrix kept in a memory-mapped file instead of on the heap, for road-network
+ * matrices too large for the JVM heap (20 000 cities take 1.6 GB as ints, 0.8 GB as a triangle).
+ * <p>
+ * A single mapping is limited to 2 GB, so the values are mapped in windows of {@code 2^30} bytes;
+ * an index is split into window and offset with a shift and a mask. The operating system pages the
+ * file in and out, so only the rows the solver touches occupy memory.
+ * <p>
+ * The file starts with a 16-byte header (magic, number of cities, layout) followed by the values as
+ * little-endian 32-bit integers, row by row. The triangle layout is meant for symmetric matrices and
+ * stores one value per pair as a packed {@link Triangle}: {@code get(i, j)} and {@code get(j, i)}
+ * read the same value. Reads use absolute positions and may come from several threads.
+ */
+public final class MappedMatrix implements DistanceMatrix {
+
+    private static final int MAGIC = 0x4D505354; //"TSPM"
+    private static final int HEADER = 16;
+    private static final int WINDOW_BITS = 30;
+    private static final long WINDOW_MASK = (1L << WINDOW_BITS) - 1;
+
+    private final int n;
+    private final boolean triangle;
+    private final ByteBuffer[] windows;
+
+    private MappedMatrix(int n, boolean triangle, ByteBuffer[] windows) {
+        this.n = n;
+        this.triangle = triangle;
+        this.windows = windows;
+    }
+
+    /**
+     * Creates (or overwrites) a matrix file of {@code n} cities filled with zeros, mapped for writing.
+     */
+    public static MappedMatrix create(Path file, int n, boolean triangle) throws IOException {
+        long bytes = 4 * values(n, triangle);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(0);
+            raf.setLength(HEADER + bytes);
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(n).putInt(triangle ? 1 : 0).putInt(0).flip();
+            channel.write(header, 0);
+            return new MappedMatrix(n, triangle, map(channel, FileChannel.MapMode.READ_WRITE, bytes));
+        }
+    }
+
+    /**
+     * Maps an existing matrix file read-only.
+     */
+    public static MappedMatrix open(Path file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER || header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a distance matrix file");
+            }
+            int n = header.getInt();
+            boolean triangle = header.getInt() == 1;
+            long bytes = 4 * values(n, triangle);
+            if (channel.size() < HEADER + bytes) {
+                throw new IOException(file + " is truncated: " + channel.size() + " bytes, expected " + (HEADER + bytes));
+            }
+            return new MappedMatrix(n, triangle, map(channel, FileChannel.MapMode.READ_ONLY, bytes));
+        }
+    }
+
+    private static long values(int n, boolean triangle) {
+        return triangle ? Triangle.size(n) : (long) n * n;
+    }
+
+    private static ByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long bytes) throws IOException {
+        int count = (int) ((bytes + WINDOW_MASK) >>> WINDOW_BITS);
+        ByteBuffer[] windows = new ByteBuffer[count];
+        for (int w = 0; w < count; w++) {
+            long from = (long) w << WINDOW_BITS;
+            MappedByteBuffer window = channel.map(mode, HEADER + from, Math.min(WINDOW_MASK + 1, bytes - from));
+            windows[w] = window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return windows;
+    }
+
+    @Override
+    public boolean isTriangle() {
+        return triangle;
+    }
+
+    /**
+     * Writes one distance. In the triangle layout the value is shared by both directions.
+     */
+    public void set(int from, int to, int value) {
+        long offset = offset(from, to);
+        windows[(int) (offset >>> WINDOW_BITS)].putInt((int) (offset & WINDOW_MASK), value);
+    }
+
+    /**
+     * Writes changed values back to the file.
+     */
+    public void force() {
+        for (ByteBuffer window : windows) {
+            if (window instanceof MappedByteBuffer && !window.isReadOnly()) ((MappedByteBuffer) window).force();
+        }
+    }
+
+    // bajtni odmik vrednosti
+    private long offset(int from, int to) {
+        return 4 * (triangle ? Triangle.index(from, to) : (long) from * n + to);
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double get(int from, int to) {
+        return getLong(from, to);
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public long getLong(int from, int to) {
+        long offset = offset(from, to);
+        return windows[(int) (offset >>> WINDOW_BITS)].getInt((int) (offset & WINDOW_MASK));
+    }
+
+    /**
+     * Copies the matrix of the given cities to the heap; sub-problems are small.
+     */
+    @Override
+    public DistanceMatrix subMatrix(int[] cities) {
+        int m = cities.length;
+        int[] sub = new int[triangle ? (int) Triangle.size(m) : m * m];
+        for (int i = 0; i < m; i++) {
+            for (int j = triangle ? i : 0; j < m; j++) {
+                sub[triangle ? Triangle.arrayIndex(i, j) : i * m + j] = (int) getLong(cities[i], cities[j]);
+            }
+        }
+        return new IntMatrix(m, triangle, sub);
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 4 * values(n, triangle);
+    }
+}
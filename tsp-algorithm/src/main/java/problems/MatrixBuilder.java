@@ -0,0 +1,181 @@
+package problems;
+
+/**
+ * Collects the values of an {@code n x n} matrix in the order of a TSPLIB {@code EDGE_WEIGHT_FORMAT}
+ * while it is being parsed and picks the most compact exact backend at the end.
+ * <p>
+ * Values go into an {@code int[]} as long as they are integers; the first fractional value moves
+ * everything to a {@code double[]}. The triangular formats are stored as a packed {@link Triangle}
+ * right away; a {@code FULL_MATRIX} that turns out to be symmetric is packed at the end. An integral
+ * matrix whose values are non-negative multiples of their greatest common divisor {@code g} with
+ * {@code max / g <= }{@value ShortMatrix#MAX_UNITS} is finally packed into a {@link ShortMatrix}.
+ * Missing values stay 0 and surplus values are ignored.
+ * <p>
+ * With a {@link MappedMatrix} target the values are written straight to the file instead, so the
+ * heap never holds the matrix. Those files hold integers, so a fractional value is an error; the
+ * triangle layout keeps one value per pair.
+ */
+final class MatrixBuilder {
+
+    private final int n;
+    private final boolean full, upper, diagonal;
+    private final long total;
+    private final MappedMatrix mapped;
+    private int[] ints;
+    private double[] doubles;
+    private long count;
+    private int row, column;
+    private long min, max, gcd;
+
+    MatrixBuilder(int n, String format) {
+        this(n, format, null);
+        long length = full ? (long) n * n : Triangle.size(n);
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Matrix with " + n + " cities does not fit in one array");
+        }
+        ints = new int[(int) length];
+    }
+
+    MatrixBuilder(MappedMatrix target, String format) {
+        this(target.size(), format, target);
+    }
+
+    private MatrixBuilder(int n, String format, MappedMatrix mapped) {
+        this.n = n;
+        this.mapped = mapped;
+        switch (format) {
+            case "FULL_MATRIX":
+                full = true;
+                upper = diagonal = false;
+                break;
+            case "UPPER_ROW":
+            case "LOWER_COL":
+                full = diagonal = false;
+                upper = true;
+                break;
+            case "LOWER_ROW":
+            case "UPPER_COL":
+                full = upper = diagonal = false;
+                break;
+            case "UPPER_DIAG_ROW":
+            case "LOWER_DIAG_COL":
+                full = false;
+                upper = diagonal = true;
+                break;
+            case "LOWER_DIAG_ROW":
+            case "UPPER_DIAG_COL":
+                full = upper = false;
+                diagonal = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported EDGE_WEIGHT_FORMAT " + format);
+        }
+        total = full ? (long) n * n : diagonal ? Triangle.size(n) : Triangle.size(n) - n;
+        row = full || upper || diagonal ? 0 : 1;
+        column = full || !upper || diagonal ? 0 : 1;
+    }
+
+    void add(double value) {
+        if (count == total) return;
+        int from = row, to = column;
+        advance();
+        if (mapped != null) {
+            addMapped(from, to, value);
+            return;
+        }
+        int index = full ? from * n + to : Triangle.arrayIndex(from, to);
+        if (doubles == null) {
+            int v = (int) value;
+            if (v == value) {
+                ints[index] = v;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+                gcd = gcd(gcd, Math.abs((long) v));
+                return;
+            }
+            // prva neceloštevilska vrednost: preklopimo na double
+            doubles = new double[ints.length];
+            for (int i = 0; i < ints.length; i++) doubles[i] = ints[i];
+            ints = null;
+        }
+        doubles[index] = value;
+    }
+
+    // naslednji položaj v vrstnem redu formata
+    private void advance() {
+        count++;
+        column++;
+        int end = full || upper ? n : diagonal ? row + 1 : row;
+        if (column == end) {
+            row++;
+            column = full || !upper ? 0 : diagonal ? row : row + 1;
+        }
+    }
+
+    private void addMapped(int from, int to, double value) {
+        int v = (int) value;
+        if (v != value) {
+            throw new IllegalArgumentException("Memory-mapped matrices hold integers, got " + value);
+        }
+        if (mapped.isTriangle()) {
+            if (!full || from <= to) mapped.set(from, to, v);
+        } else {
+            mapped.set(from, to, v);
+            if (!full) mapped.set(to, from, v);
+        }
+    }
+
+    DistanceMatrix build() {
+        if (mapped != null) {
+            mapped.force();
+            return mapped;
+        }
+        boolean triangle = !full;
+        if (full && symmetric()) {
+            pack();
+            triangle = true;
+        }
+        if (doubles != null) return new DoubleMatrix(n, triangle, doubles);
+        long scale = Math.max(1, gcd);
+        if (min >= 0 && max / scale <= ShortMatrix.MAX_UNITS) {
+            short[] units = new short[ints.length];
+            for (int i = 0; i < ints.length; i++) units[i] = (short) (ints[i] / scale);
+            return new ShortMatrix(n, triangle, units, scale);
+        }
+        return new IntMatrix(n, triangle, ints);
+    }
+
+    private boolean symmetric() {
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                boolean same = doubles == null ? ints[i * n + j] == ints[j * n + i]
+                        : doubles[i * n + j] == doubles[j * n + i];
+                if (!same) return false;
+            }
+        }
+        return true;
+    }
+
+    // polno matriko prepišemo v trikotnik (spodnji del z diagonalo)
+    private void pack() {
+        int length = (int) Triangle.size(n);
+        if (doubles == null) {
+            int[] packed = new int[length];
+            for (int i = 0; i < n; i++) System.arraycopy(ints, i * n, packed, Triangle.arrayIndex(i, 0), i + 1);
+            ints = packed;
+        } else {
+            double[] packed = new double[length];
+            for (int i = 0; i < n; i++) System.arraycopy(doubles, i * n, packed, Triangle.arrayIndex(i, 0), i + 1);
+            doubles = packed;
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,78 @@
+package problems;
+
+/**
+ * Matrix of which only some locations have downloaded values: a cell between two of them comes from
+ * the {@code known} matrix, every other cell from the {@code fallback} (usually a
+ * {@link HaversineMatrix}), so new locations can be routed through before their rows are fetched.
+ * <p>
+ * Cells are looked up on demand. {@link #subMatrix} copies the small matrices of sub-problems into
+ * the compact backend that {@link MatrixBuilder} picks, so the solver does not pay for the lookup.
+ */
+public final class PartialMatrix implements DistanceMatrix {
+
+    private final DistanceMatrix known, fallback;
+    private final int[] knownIndex; //-1 = ni v known
+
+    /**
+     * @param known      values between the known locations
+     * @param knownIndex for every location its index in {@code known}, or -1
+     * @param fallback   values between all locations
+     */
+    public PartialMatrix(DistanceMatrix known, int[] knownIndex, DistanceMatrix fallback) {
+        if (knownIndex.length != fallback.size()) {
+            throw new IllegalArgumentException("Fallback has " + fallback.size() + " locations, expected " + knownIndex.length);
+        }
+        this.known = known;
+        this.knownIndex = knownIndex;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Returns whether the cells of the location come from the known matrix.
+     */
+    public boolean isKnown(int city) {
+        return knownIndex[city] >= 0;
+    }
+
+    @Override
+    public int size() {
+        return knownIndex.length;
+    }
+
+    @Override
+    public double get(int from, int to) {
+        int i = knownIndex[from], j = knownIndex[to];
+        return i >= 0 && j >= 0 ? known.get(i, j) : fallback.get(from, to);
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return known.isIntegral() && fallback.isIntegral();
+    }
+
+    @Override
+    public long getLong(int from, int to) {
+        int i = knownIndex[from], j = knownIndex[to];
+        return i >= 0 && j >= 0 ? known.getLong(i, j) : fallback.getLong(from, to);
+    }
+
+    @Override
+    public boolean isTriangle() {
+        return known.isTriangle() && fallback.isTriangle();
+    }
+
+    @Override
+    public DistanceMatrix subMatrix(int[] cities) {
+        int m = cities.length;
+        MatrixBuilder builder = new MatrixBuilder(m, "FULL_MATRIX");
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < m; j++) builder.add(get(cities[i], cities[j]));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return known.sizeInBytes() + fallback.sizeInBytes() + 4L * knownIndex.length;
+    }
+}
@@ -0,0 +1,91 @@
+package problems;
+
+/**
+ * Matrix of unsigned 16-bit units, row-major or a packed {@link Triangle}: the distance is
+ * {@code unit * scale}. Used when every value is a non-negative multiple of {@code scale} of at most
+ * {@value #MAX_UNITS} units, so nothing is rounded.
+ */
+final class ShortMatrix implements DistanceMatrix {
+
+    static final int MAX_UNITS = 0xFFFF;
+
+    private final int n;
+    private final boolean triangle;
+    private final short[] units;
+    private final long scale;
+
+    ShortMatrix(int n, boolean triangle, short[] units, long scale) {
+        this.n = n;
+        this.triangle = triangle;
+        this.units = units;
+        this.scale = scale;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double get(int from, int to) {
+        return (units[index(from, to)] & 0xFFFF) * scale;
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return true;
+    }
+
+    @Override
+    public long getLong(int from, int to) {
+        return (units[index(from, to)] & 0xFFFF) * scale;
+    }
+
+    @Override
+    public boolean isTriangle() {
+        return triangle;
+    }
+
+    // ločeni zanki za obe postavitvi, da v zanki ni vejitve
+    @Override
+    public long routeLength(TSP.City start, TSP.City[] path) {
+        long length = 0;
+        int previous = start.index - 1;
+        if (triangle) {
+            for (TSP.City city : path) {
+                int next = city.index - 1;
+                length += (units[Triangle.arrayIndex(previous, next)] & 0xFFFF);
+                previous = next;
+            }
+        } else {
+            for (TSP.City city : path) {
+                int next = city.index - 1;
+                length += (units[previous * n + next] & 0xFFFF);
+                previous = next;
+            }
+        }
+        length += (units[index(previous, start.index - 1)] & 0xFFFF);
+        return length * scale;
+    }
+
+    @Override
+    public DistanceMatrix subMatrix(int[] cities) {
+        int m = cities.length;
+        short[] sub = new short[triangle ? (int) Triangle.size(m) : m * m];
+        for (int i = 0; i < m; i++) {
+            for (int j = triangle ? i : 0; j < m; j++) {
+                sub[triangle ? Triangle.arrayIndex(i, j) : i * m + j] = units[index(cities[i], cities[j])];
+            }
+        }
+        return new ShortMatrix(m, triangle, sub, scale);
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 2L * units.length;
+    }
+
+    private int index(int from, int to) {
+        return triangle ? Triangle.arrayIndex(from, to) : from * n + to;
+    }
+}
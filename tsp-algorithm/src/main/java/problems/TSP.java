@@ -3,8 +3,13 @@ package problems;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import Utility.RandomUtils;
 
@@ -24,16 +29,28 @@ public class TSP {
         int dimension;
         City[] path;
 
+        // XOR of the keys of all cyclic edges (including path[n-1] -> path[0]); getHash adds the
+        // position of the cut, see there
+        long hash;
+        boolean hashValid;
+
+        // true until the current path has been evaluated
+        boolean dirty;
+
         public Tour(Tour tour) {
             distance = tour.distance;
+            dirty = tour.dirty;
             dimension = tour.dimension;
             path = tour.path.clone();
+            hash = tour.hash;
+            hashValid = tour.hashValid;
         }
 
         public Tour(int dimension) {
             this.dimension = dimension;
             path = new City[dimension];
             distance = Double.MAX_VALUE;
+            dirty = true;
         }
 
         public Tour clone() {
@@ -46,6 +63,15 @@ public class TSP {
 
         public void setDistance(double distance) {
             this.distance = distance;
+            dirty = false;
+        }
+
+        /**
+         * Returns {@code true} if the path changed since the tour was last evaluated, so
+         * {@link #getDistance()} is not valid.
+         */
+        public boolean isDirty() {
+            return dirty;
         }
 
         public City[] getPath() {
@@ -54,21 +80,147 @@ public class TSP {
 
         public void setPath(City[] path) {
             this.path = path.clone();
+            hashValid = false;
+            dirty = true;
         }
 
         public void setCity(int index, City city) {
             path[index] = city;
             distance = Double.MAX_VALUE;
+            hashValid = false;
+            dirty = true;
+        }
+
+        /**
+         * Copies the path, distance and edge hash of {@code other} into this tour without allocating.
+         */
+        public void copyFrom(Tour other) {
+            System.arraycopy(other.path, 0, path, 0, path.length);
+            distance = other.distance;
+            dirty = other.dirty;
+            hash = other.hash;
+            hashValid = other.hashValid;
+        }
+
+        /**
+         * Reverses the segment {@code path[i..j]} ({@code i <= j}). Only the two boundary edges change,
+         * so the edge hash is updated in O(1).
+         */
+        public void reverse(int i, int j) {
+            if (i >= j) return;
+            int n = path.length;
+            if (hashValid && (i > 0 || j < n - 1)) {
+                int before = i == 0 ? n - 1 : i - 1;
+                int after = j == n - 1 ? 0 : j + 1;
+                hash ^= edgeKey(path[before].index, path[i].index) ^ edgeKey(path[j].index, path[after].index)
+                        ^ edgeKey(path[before].index, path[j].index) ^ edgeKey(path[i].index, path[after].index);
+            }
+            while (i < j) {
+                City temp = path[i];
+                path[i++] = path[j];
+                path[j--] = temp;
+            }
+            distance = Double.MAX_VALUE;
+            dirty = true;
+        }
+
+        /**
+         * Swaps the cities at positions {@code i} and {@code j}. The edge hash is updated in O(1)
+         * instead of being invalidated.
+         */
+        public void swap(int i, int j) {
+            if (i == j) return;
+            if (hashValid) hash ^= edgesAround(i, j);
+            City temp = path[i];
+            path[i] = path[j];
+            path[j] = temp;
+            if (hashValid) hash ^= edgesAround(i, j);
+            distance = Double.MAX_VALUE;
+            dirty = true;
+        }
+
+        /**
+         * Returns the Zobrist-style edge hash of this tour: the undirected cyclic edges plus the edge
+         * {@code path[n-1] - path[0]} where {@link TSP#evaluate} cuts the cycle to leave from and
+         * return to the start city. Rotations of a tour, which have different lengths, therefore
+         * hash differently, while a tour and its reverse hash the same. Their lengths are equal
+         * only on a symmetric instance; {@link #isDuplicateOf} tells them apart on asymmetric ones.
+         */
+        public long getHash() {
+            if (!hashValid) {
+                long h = 0;
+                for (int i = 0; i < path.length; i++) {
+                    h ^= edgeAt(i);
+                }
+                hash = h;
+                hashValid = true;
+            }
+            int n = path.length;
+            // zasukano, da se ne izniči s ključem istega roba v ciklu
+            return n == 0 ? hash : hash ^ Long.rotateLeft(edgeKey(path[n - 1].index, path[0].index), 29);
+        }
+
+        /**
+         * Returns whether {@code other} is evaluated as the same route: it has the same hash and, if
+         * {@code directed}, also the same path, since on an asymmetric instance the reversed path has
+         * another length. The path comparison takes O(n) and only runs when the hashes match.
+         */
+        public boolean isDuplicateOf(Tour other, boolean directed) {
+            if (getHash() != other.getHash()) return false;
+            if (!directed) return true;
+            int n = path.length;
+            if (other.path.length != n) return false;
+            for (int i = 0; i < n; i++) {
+                if (other.path[i].index != path[i].index) return false;
+            }
+            return true;
+        }
+
+        private long edgeAt(int position) {
+            int next = position + 1 == path.length ? 0 : position + 1;
+            return edgeKey(path[position].index, path[next].index);
+        }
+
+        // XOR of the distinct edges starting at positions i-1, i, j-1 and j
+        private long edgesAround(int i, int j) {
+            int n = path.length;
+            int p1 = i == 0 ? n - 1 : i - 1;
+            int p3 = j == 0 ? n - 1 : j - 1;
+            long h = edgeAt(p1) ^ edgeAt(i);
+            if (p3 != i && p3 != p1) h ^= edgeAt(p3);
+            if (j != p1) h ^= edgeAt(j);
+            return h;
+        }
+
+        /**
+         * Returns a well mixed 64-bit key of the undirected edge between cities {@code a} and {@code b}.
+         */
+        public static long edgeKey(int a, int b) {
+            long z = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
         }
     }
 
+    // nad tem številom mest se evklidski sosedje iščejo z mrežo namesto s polnim pregledom
+    static final int GRID_NEIGHBOR_CITIES = 2000;
+
+    // nad tem številom mest se evklidska mesta ob nalaganju oštevilčijo po Hilbertovi krivulji
+    static final int HILBERT_CITIES = 2000;
+    private static final int HILBERT_SIDE = 1 << 16; //cells per side of the Hilbert grid
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     String name;
     City start;
     List<City> cities = new ArrayList<>();
     int numberOfCities;
-    double[][] weights;
+    DistanceMatrix weights;
     DistanceType distanceType = DistanceType.EUCLIDEAN;
     int numberOfEvaluations, maxEvaluations;
+    int[][] neighborLists;
+    Boolean symmetric; //null = not checked yet
 
     public TSP(String path, int maxEvaluations) {
         loadData(path);
@@ -77,7 +229,19 @@ public class TSP {
     }
 
     public TSP(InputStream inputStream, int maxEvaluations) {
-        loadDataFromStream(inputStream);
+        loadDataFromStream(inputStream, null, false);
+        numberOfEvaluations = 0;
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    /**
+     * Reads an instance like {@link #TSP(InputStream, int)}, but writes an explicit matrix to the
+     * memory-mapped file {@code matrixFile} instead of the heap, optionally in the triangle layout for
+     * symmetric matrices; see {@link MappedMatrix}. The file can later be reopened with
+     * {@link MappedMatrix#open} and {@link #explicit}.
+     */
+    public TSP(InputStream inputStream, int maxEvaluations, Path matrixFile, boolean triangle) {
+        loadDataFromStream(inputStream, matrixFile, triangle);
         numberOfEvaluations = 0;
         this.maxEvaluations = maxEvaluations;
     }
@@ -85,7 +249,65 @@ public class TSP {
     private TSP() {
     }
 
+    /**
+     * Creates a Euclidean instance from coordinates. City {@code i} gets realId {@code i + 1} and the
+     * first city is the start. Up to {@value #HILBERT_CITIES} cities the index equals the realId;
+     * larger instances are renumbered in Hilbert order.
+     */
+    public static TSP euclidean(String name, double[] xs, double[] ys, int maxEvaluations) {
+        TSP problem = new TSP();
+        problem.name = name;
+        problem.numberOfCities = xs.length;
+        problem.maxEvaluations = maxEvaluations;
+        problem.cities = new ArrayList<>(xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            City city = problem.new City();
+            city.index = i + 1;
+            city.realId = i + 1;
+            city.x = xs[i];
+            city.y = ys[i];
+            problem.cities.add(city);
+        }
+        if (!problem.cities.isEmpty()) {
+            problem.start = problem.cities.get(0);
+        }
+        if (problem.numberOfCities > HILBERT_CITIES) {
+            problem.renumberHilbert();
+        }
+        return problem;
+    }
+
+    /**
+     * Creates an instance from an explicit distance matrix. City {@code i} gets realId {@code i + 1},
+     * coordinates 0 and the first city is the start.
+     */
+    public static TSP explicit(String name, DistanceMatrix matrix, int maxEvaluations) {
+        TSP problem = new TSP();
+        problem.name = name;
+        problem.numberOfCities = matrix.size();
+        problem.maxEvaluations = maxEvaluations;
+        problem.distanceType = DistanceType.WEIGHTED;
+        problem.weights = matrix;
+        problem.cities = new ArrayList<>(matrix.size());
+        for (int i = 0; i < matrix.size(); i++) {
+            City city = problem.new City();
+            city.index = i + 1;
+            city.realId = i + 1;
+            problem.cities.add(city);
+        }
+        if (!problem.cities.isEmpty()) {
+            problem.start = problem.cities.get(0);
+        }
+        return problem;
+    }
+
     public void evaluate(Tour tour) {
+        if (distanceType == DistanceType.WEIGHTED && weights.isIntegral()) {
+            // celoštevilska matrika: vsota v long je točna in neodvisna od vrstnega reda povezav
+            tour.setDistance(weights.routeLength(start, tour.getPath()));
+            numberOfEvaluations++;
+            return;
+        }
         double distance = 0;
         distance += calculateDistance(start, tour.getPath()[0]);
         for (int index = 0; index < numberOfCities; index++) {
@@ -106,7 +328,7 @@ public class TSP {
                 return Math.sqrt(dx * dx + dy * dy);
 
             case WEIGHTED:
-                return weights[from.index - 1][to.index - 1];
+                return weights.get(from.index - 1, to.index - 1);
 
             default:
                 return Double.MAX_VALUE;
@@ -134,48 +356,44 @@ public class TSP {
         subProblem.name = this.name + "_sub";
         subProblem.numberOfCities = newSize;
         subProblem.maxEvaluations = newSize * 10000;
-        subProblem.distanceType = DistanceType.WEIGHTED;
+        subProblem.distanceType = distanceType;
 
         subProblem.cities = new ArrayList<>();
-        subProblem.weights = new double[newSize][newSize];
         subProblem.numberOfEvaluations = 0;
 
+        Map<Integer, Integer> positionByRealId = new HashMap<>();
+        for (int k = 0; k < this.cities.size(); k++) {
+            positionByRealId.putIfAbsent(this.cities.get(k).realId, k);
+        }
         int[] originalListIndices = new int[newSize];
+        int found = 0;
 
         for (int i = 0; i < newSize; i++) {
             int targetRealId = selectedIds.get(i);
-            boolean found = false;
-
-            for (int k = 0; k < this.cities.size(); k++) {
-                City originalCity = this.cities.get(k);
-                if (originalCity.realId == targetRealId) {
-                    City newCity = new City();
-                    newCity.index = i + 1;
-                    newCity.realId = originalCity.realId;
-                    newCity.x = originalCity.x;
-                    newCity.y = originalCity.y;
-
-                    subProblem.cities.add(newCity);
-                    originalListIndices[i] = k;
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
+            Integer k = positionByRealId.get(targetRealId);
+            if (k == null) {
                 System.err.println("Warning: City with ID not found: " + targetRealId);
+                continue;
             }
+            City originalCity = this.cities.get(k);
+            City newCity = subProblem.new City();
+            newCity.index = found + 1;
+            newCity.realId = originalCity.realId;
+            newCity.x = originalCity.x;
+            newCity.y = originalCity.y;
+
+            subProblem.cities.add(newCity);
+            originalListIndices[found++] = k;
         }
 
         if (subProblem.cities.isEmpty()) {
             throw new RuntimeException("Error generating sub-problem: No cities found! Check realId in loadData.");
         }
+        subProblem.numberOfCities = found;
 
-        for (int i = 0; i < newSize; i++) {
-            for (int j = 0; j < newSize; j++) {
-                int oldRow = originalListIndices[i];
-                int oldCol = originalListIndices[j];
-                subProblem.weights[i][j] = this.weights[oldRow][oldCol];
-            }
+        // evklidski podproblem računa razdalje iz koordinat, matriko prepišemo le za WEIGHTED
+        if (distanceType == DistanceType.WEIGHTED) {
+            subProblem.weights = weights.subMatrix(Arrays.copyOf(originalListIndices, found));
         }
 
         if (!subProblem.cities.isEmpty()) {
@@ -185,107 +403,168 @@ public class TSP {
         return subProblem;
     }
 
+    /**
+     * Returns an instance of the given locations (e.g. all rows of {@code direct4me_locations.csv}) in
+     * which locations without a row in this instance's matrix are routed with approximate values. A
+     * {@link PartialMatrix} keeps this matrix between the known locations and falls back to a
+     * {@link HaversineMatrix} whose detour factor is fitted against it. City {@code i} gets realId
+     * {@code realIds[i]} and coordinates {@code (latitudes[i], longitudes[i])}; the first is the start.
+     */
+    public TSP withApproximatedCities(int[] realIds, double[] latitudes, double[] longitudes) {
+        if (distanceType != DistanceType.WEIGHTED) {
+            throw new IllegalStateException("Only instances with an explicit matrix can be extended");
+        }
+        int n = realIds.length;
+        Map<Integer, Integer> positionByRealId = new HashMap<>();
+        for (int k = 0; k < cities.size(); k++) {
+            positionByRealId.putIfAbsent(cities.get(k).realId, k);
+        }
+        int[] knownIndex = new int[n];
+        int known = 0;
+        for (int i = 0; i < n; i++) {
+            Integer k = positionByRealId.get(realIds[i]);
+            knownIndex[i] = k == null ? -1 : k;
+            if (k != null) known++;
+        }
+
+        TSP problem = new TSP();
+        problem.name = name;
+        problem.numberOfCities = n;
+        problem.maxEvaluations = maxEvaluations;
+        problem.distanceType = DistanceType.WEIGHTED;
+        if (known == n) {
+            problem.weights = weights.subMatrix(knownIndex);
+        } else {
+            // faktor prilegamo le, ko ga potrebujemo, na znanih lokacijah
+            int[] knownCities = new int[known];
+            double[] knownLatitudes = new double[known], knownLongitudes = new double[known];
+            for (int i = 0, k = 0; i < n; i++) {
+                if (knownIndex[i] < 0) continue;
+                knownCities[k] = knownIndex[i];
+                knownLatitudes[k] = latitudes[i];
+                knownLongitudes[k++] = longitudes[i];
+            }
+            double factor = HaversineMatrix.fit(weights.subMatrix(knownCities), knownLatitudes, knownLongitudes);
+            problem.weights = new PartialMatrix(weights, knownIndex, new HaversineMatrix(latitudes, longitudes, factor));
+        }
+        problem.cities = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            City city = problem.new City();
+            city.index = i + 1;
+            city.realId = realIds[i];
+            city.x = latitudes[i];
+            city.y = longitudes[i];
+            problem.cities.add(city);
+        }
+        if (!problem.cities.isEmpty()) {
+            problem.start = problem.cities.get(0);
+        }
+        return problem;
+    }
+
     private void loadData(String path) {
         InputStream inputStream = TSP.class.getClassLoader().getResourceAsStream(path);
         if (inputStream == null) {
             System.err.println("File " + path + " not found!");
             return;
         }
+        loadDataFromStream(inputStream, null, false);
+    }
 
-        List<String> lines = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line = br.readLine();
-            while (line != null) {
-                lines.add(line);
-                line = br.readLine();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    private void loadDataFromStream(InputStream inputStream, Path matrixFile, boolean triangle) {
+        if (inputStream == null) {
+            System.err.println("InputStream is null!");
             return;
         }
 
+        // vrstice obdelujemo sproti, matrika gre neposredno v kompaktno polje
         City[] tempCities = null;
-        ArrayList<Double> matrixValues = new ArrayList<>();
+        MatrixBuilder matrix = null;
+        String matrixFormat = "FULL_MATRIX";
 
         boolean readingCoords = false;
         boolean readingMatrix = false;
 
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty() || line.equals("EOF")) continue;
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
+            for (String line = br.readLine(); line != null; line = br.readLine()) {
+                line = line.trim();
+                if (line.isEmpty() || line.equals("EOF")) continue;
+
+                if (line.startsWith("DIMENSION")) {
+                    String[] parts = line.split(":");
+                    numberOfCities = Integer.parseInt(parts[1].trim());
+                    tempCities = new City[numberOfCities];
+                    cities = new ArrayList<>();
+                }
+                else if (line.startsWith("EDGE_WEIGHT_TYPE")) {
+                    String[] parts = line.split(":");
+                    String type = parts[1].trim();
+                    if (type.equals("EUC_2D")) distanceType = DistanceType.EUCLIDEAN;
+                    else if (type.equals("EXPLICIT")) distanceType = DistanceType.WEIGHTED;
+                }
+                else if (line.startsWith("EDGE_WEIGHT_FORMAT")) {
+                    matrixFormat = line.split(":")[1].trim();
+                }
+                else if (line.startsWith("NODE_COORD_SECTION")) {
+                    readingCoords = true;
+                    readingMatrix = false;
+                    continue;
+                }
+                else if (line.startsWith("DISPLAY_DATA_SECTION")) {
+                    readingCoords = true;
+                    readingMatrix = false;
+                    continue;
+                }
+                else if (line.startsWith("EDGE_WEIGHT_SECTION")) {
+                    readingMatrix = true;
+                    readingCoords = false;
+                    continue;
+                }
 
-            if (line.startsWith("DIMENSION")) {
-                String[] parts = line.split(":");
-                numberOfCities = Integer.parseInt(parts[1].trim());
-                weights = new double[numberOfCities][numberOfCities];
-                tempCities = new City[numberOfCities];
-                cities = new ArrayList<>();
-            }
-            else if (line.startsWith("EDGE_WEIGHT_TYPE")) {
-                String[] parts = line.split(":");
-                String type = parts[1].trim();
-                if (type.equals("EUC_2D")) distanceType = DistanceType.EUCLIDEAN;
-                else if (type.equals("EXPLICIT")) distanceType = DistanceType.WEIGHTED;
-            }
-            else if (line.startsWith("NODE_COORD_SECTION")) {
-                readingCoords = true;
-                readingMatrix = false;
-                continue;
-            }
-            else if (line.startsWith("DISPLAY_DATA_SECTION")) {
-                readingCoords = true;
-                readingMatrix = false;
-                continue;
-            }
-            else if (line.startsWith("EDGE_WEIGHT_SECTION")) {
-                readingMatrix = true;
-                readingCoords = false;
-                continue;
-            }
+                if (readingCoords) {
+                    String[] parts = WHITESPACE.split(line);
+                    int offset = parts[0].isEmpty() ? 1 : 0;
 
-            if (readingCoords) {
-                String[] parts = line.split("\\s+");
-                int offset = parts[0].isEmpty() ? 1 : 0;
-
-                if (parts.length >= 3 + offset) {
-                    try {
-                        int id = Integer.parseInt(parts[offset]);
-                        double x = Double.parseDouble(parts[offset + 1]);
-                        double y = Double.parseDouble(parts[offset + 2]);
-                        if (id <= numberOfCities) {
-                            City c = new City();
-                            c.index = id;
-                            c.realId = id;
-                            c.x = x;
-                            c.y = y;
-                            tempCities[id - 1] = c;
+                    if (parts.length >= 3 + offset) {
+                        try {
+                            int id = Integer.parseInt(parts[offset]);
+                            double x = Double.parseDouble(parts[offset + 1]);
+                            double y = Double.parseDouble(parts[offset + 2]);
+                            if (id <= numberOfCities) {
+                                City c = new City();
+                                c.index = id;
+                                c.realId = id;
+                                c.x = x;
+                                c.y = y;
+                                tempCities[id - 1] = c;
+                            }
+                        } catch (NumberFormatException e) {
                         }
-                    } catch (NumberFormatException e) {
                     }
                 }
-            }
-            else if (readingMatrix) {
-                String[] parts = line.split("\\s+");
-                for (String part : parts) {
-                    if (!part.isEmpty()) {
-                        try {
-                            matrixValues.add(Double.parseDouble(part));
-                        } catch (NumberFormatException e) {
+                else if (readingMatrix) {
+                    // matriko alociramo le, če jo datoteka vsebuje (n^2 ne gre za velike evklidske instance)
+                    if (matrix == null) {
+                        matrix = matrixFile == null ? new MatrixBuilder(numberOfCities, matrixFormat)
+                                : new MatrixBuilder(MappedMatrix.create(matrixFile, numberOfCities, triangle), matrixFormat);
+                    }
+                    for (String part : WHITESPACE.split(line)) {
+                        if (!part.isEmpty()) {
+                            try {
+                                matrix.add(Double.parseDouble(part));
+                            } catch (NumberFormatException e) {
+                            }
                         }
                     }
                 }
             }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
         }
 
-        if (!matrixValues.isEmpty()) {
-            int counter = 0;
-            for (int i = 0; i < numberOfCities; i++) {
-                for (int j = 0; j < numberOfCities; j++) {
-                    if (counter < matrixValues.size()) {
-                        weights[i][j] = matrixValues.get(counter++);
-                    }
-                }
-            }
+        if (matrix != null) {
+            weights = matrix.build();
         }
 
         for (int i = 0; i < numberOfCities; i++) {
@@ -304,137 +583,274 @@ public class TSP {
         if (!cities.isEmpty()) {
             start = cities.get(0);
         }
+        if (distanceType == DistanceType.EUCLIDEAN && weights == null && numberOfCities > HILBERT_CITIES) {
+            renumberHilbert();
+        }
     }
 
-    private void loadDataFromStream(InputStream inputStream) {
-        if (inputStream == null) {
-            System.err.println("InputStream is null!");
-            return;
-        }
+    public int getMaxEvaluations() {
+        return maxEvaluations;
+    }
 
-        List<String> lines = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line = br.readLine();
-            while (line != null) {
-                lines.add(line);
-                line = br.readLine();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
+    public void setMaxEvaluations(int maxEvaluations) {
+        this.maxEvaluations = maxEvaluations;
+    }
 
-        City[] tempCities = null;
-        ArrayList<Double> matrixValues = new ArrayList<>();
+    public int getNumberOfEvaluations() {
+        return numberOfEvaluations;
+    }
 
-        boolean readingCoords = false;
-        boolean readingMatrix = false;
+    /**
+     * Sets the evaluation counter, e.g. when a solver resumes a run from a checkpoint.
+     */
+    public void setNumberOfEvaluations(int numberOfEvaluations) {
+        this.numberOfEvaluations = numberOfEvaluations;
+    }
 
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty() || line.equals("EOF")) continue;
+    public int getNumberOfCities() {
+        return numberOfCities;
+    }
 
-            if (line.startsWith("DIMENSION")) {
-                String[] parts = line.split(":");
-                numberOfCities = Integer.parseInt(parts[1].trim());
-                weights = new double[numberOfCities][numberOfCities];
-                tempCities = new City[numberOfCities];
-                cities = new ArrayList<>();
-            }
-            else if (line.startsWith("EDGE_WEIGHT_TYPE")) {
-                String[] parts = line.split(":");
-                String type = parts[1].trim();
-                if (type.equals("EUC_2D")) distanceType = DistanceType.EUCLIDEAN;
-                else if (type.equals("EXPLICIT")) distanceType = DistanceType.WEIGHTED;
-            }
-            else if (line.startsWith("NODE_COORD_SECTION")) {
-                readingCoords = true;
-                readingMatrix = false;
-                continue;
-            }
-            else if (line.startsWith("DISPLAY_DATA_SECTION")) {
-                readingCoords = true;
-                readingMatrix = false;
-                continue;
-            }
-            else if (line.startsWith("EDGE_WEIGHT_SECTION")) {
-                readingMatrix = true;
-                readingCoords = false;
-                continue;
-            }
+    /**
+     * Returns the city with the given zero based position, i.e. the city whose {@code index} is {@code i + 1}.
+     */
+    public City getCity(int i) {
+        return cities.get(i);
+    }
 
-            if (readingCoords) {
-                String[] parts = line.split("\\s+");
-                int offset = parts[0].isEmpty() ? 1 : 0;
-
-                if (parts.length >= 3 + offset) {
-                    try {
-                        int id = Integer.parseInt(parts[offset]);
-                        double x = Double.parseDouble(parts[offset + 1]);
-                        double y = Double.parseDouble(parts[offset + 2]);
-                        if (id <= numberOfCities) {
-                            City c = new City();
-                            c.index = id;
-                            c.realId = id;
-                            c.x = x;
-                            c.y = y;
-                            tempCities[id - 1] = c;
-                        }
-                    } catch (NumberFormatException e) {
-                    }
-                }
-            }
-            else if (readingMatrix) {
-                String[] parts = line.split("\\s+");
-                for (String part : parts) {
-                    if (!part.isEmpty()) {
-                        try {
-                            matrixValues.add(Double.parseDouble(part));
-                        } catch (NumberFormatException e) {
-                        }
-                    }
-                }
-            }
+    public City getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the explicit distance matrix, or {@code null} when distances come from coordinates.
+     */
+    public DistanceMatrix getDistanceMatrix() {
+        return weights;
+    }
+
+    /**
+     * Returns the distance between two cities without counting an evaluation.
+     */
+    public double distance(City from, City to) {
+        return calculateDistance(from, to);
+    }
+
+    public boolean isEuclidean() {
+        return distanceType == DistanceType.EUCLIDEAN;
+    }
+
+    /**
+     * Returns the zero based cities ordered along a Hilbert curve over their bounding box, in
+     * {@code O(n log n)}. Cities that follow each other in this order are close in the plane.
+     */
+    public int[] hilbertOrder() {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (City city : cities) {
+            minX = Math.min(minX, city.x);
+            maxX = Math.max(maxX, city.x);
+            minY = Math.min(minY, city.y);
+            maxY = Math.max(maxY, city.y);
+        }
+        double extent = Math.max(maxX - minX, maxY - minY);
+        double scale = extent > 0 ? (HILBERT_SIDE - 1) / extent : 0;
+        // ključ krivulje v zgornjih bitih, mesto v spodnjih 31
+        long[] keys = new long[numberOfCities];
+        for (int i = 0; i < numberOfCities; i++) {
+            City city = cities.get(i);
+            keys[i] = hilbertIndex((int) ((city.x - minX) * scale), (int) ((city.y - minY) * scale)) << 31 | i;
         }
+        Arrays.sort(keys);
+        int[] order = new int[numberOfCities];
+        for (int i = 0; i < numberOfCities; i++) {
+            order[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+        return order;
+    }
 
-        if (!matrixValues.isEmpty()) {
-            int counter = 0;
-            for (int i = 0; i < numberOfCities; i++) {
-                for (int j = 0; j < numberOfCities; j++) {
-                    if (counter < matrixValues.size()) {
-                        weights[i][j] = matrixValues.get(counter++);
-                    }
+    /**
+     * Returns the tour that visits the cities in {@link #hilbertOrder()}, starting with the start
+     * city. For uniform points it is about 40 % longer than the optimum.
+     */
+    public Tour generateHilbertTour() {
+        int[] order = hilbertOrder();
+        int offset = 0;
+        while (cities.get(order[offset]) != start) offset++;
+        Tour tour = new Tour(numberOfCities);
+        for (int i = 0; i < numberOfCities; i++) {
+            tour.setCity(i, cities.get(order[(offset + i) % numberOfCities]));
+        }
+        return tour;
+    }
+
+    // položaj celice (x, y) na Hilbertovi krivulji skozi mrežo HILBERT_SIDE x HILBERT_SIDE
+    private static long hilbertIndex(int x, int y) {
+        long d = 0;
+        for (int s = HILBERT_SIDE / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = HILBERT_SIDE - 1 - x;
+                    y = HILBERT_SIDE - 1 - y;
                 }
+                int temp = x;
+                x = y;
+                y = temp;
             }
         }
+        return d;
+    }
 
+    /**
+     * Renumbers the cities in Hilbert order, so that cities close in the plane are also close in
+     * memory and in every array indexed by city (neighbor lists, tours, local search). The realId
+     * keeps the number from the file, so routes and solution files written by realId do not change.
+     */
+    private void renumberHilbert() {
+        int[] order = hilbertOrder();
+        List<City> renumbered = new ArrayList<>(numberOfCities);
         for (int i = 0; i < numberOfCities; i++) {
-            if (tempCities != null && tempCities[i] != null) {
-                cities.add(tempCities[i]);
-            } else {
-                City dummy = new City();
-                dummy.index = i + 1;
-                dummy.realId = i + 1;
-                dummy.x = 0;
-                dummy.y = 0;
-                cities.add(dummy);
-            }
+            City old = cities.get(order[i]);
+            City city = new City();
+            city.index = i + 1;
+            city.realId = old.realId;
+            city.x = old.x;
+            city.y = old.y;
+            renumbered.add(city);
+            if (old == start) start = city;
         }
+        cities = renumbered;
+        neighborLists = null;
+    }
 
-        if (!cities.isEmpty()) {
-            start = cities.get(0);
+    /**
+     * Returns whether the distance from every city to every other equals the distance back. Euclidean
+     * instances always are; a matrix is checked once and the answer cached.
+     */
+    public boolean isSymmetric() {
+        if (symmetric == null) {
+            boolean same = true;
+            if (distanceType == DistanceType.WEIGHTED && !weights.isTriangle()) {
+                for (int i = 0; i < numberOfCities && same; i++) {
+                    for (int j = i + 1; j < numberOfCities && same; j++) {
+                        same = weights.get(i, j) == weights.get(j, i);
+                    }
+                }
+            }
+            symmetric = same;
         }
+        return symmetric;
     }
 
-    public int getMaxEvaluations() {
-        return maxEvaluations;
+    /**
+     * Returns for every city (zero based) the zero based positions of its {@code k} nearest cities,
+     * ordered by increasing distance. The lists are computed once and cached.
+     */
+    public int[][] getNeighborLists(int k) {
+        k = Math.min(k, numberOfCities - 1);
+        if (neighborLists != null && neighborLists.length > 0 && neighborLists[0].length == k) {
+            return neighborLists;
+        }
+        if (distanceType == DistanceType.EUCLIDEAN && numberOfCities > GRID_NEIGHBOR_CITIES) {
+            neighborLists = gridNeighborLists(k);
+            return neighborLists;
+        }
+        int[][] lists = new int[numberOfCities][k];
+        double[] nearest = new double[k];
+        for (int i = 0; i < numberOfCities; i++) {
+            City from = cities.get(i);
+            int[] list = lists[i];
+            int size = 0;
+            for (int j = 0; j < numberOfCities; j++) {
+                if (j == i) continue;
+                double d = calculateDistance(from, cities.get(j));
+                if (size == k && d >= nearest[k - 1]) continue;
+                // vstavljanje v urejen seznam k najbližjih
+                int pos = size < k ? size++ : k - 1;
+                while (pos > 0 && nearest[pos - 1] > d) {
+                    nearest[pos] = nearest[pos - 1];
+                    list[pos] = list[pos - 1];
+                    pos--;
+                }
+                nearest[pos] = d;
+                list[pos] = j;
+            }
+        }
+        neighborLists = lists;
+        return lists;
     }
 
-    public int getNumberOfEvaluations() {
-        return numberOfEvaluations;
-    }
+    /**
+     * k nearest neighbors of Euclidean cities from a uniform grid with about two cities per cell:
+     * rings of cells around a city are searched until no unseen cell can hold a closer city.
+     */
+    private int[][] gridNeighborLists(int k) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (City c : cities) {
+            minX = Math.min(minX, c.x);
+            minY = Math.min(minY, c.y);
+            maxX = Math.max(maxX, c.x);
+            maxY = Math.max(maxY, c.y);
+        }
+        double width = maxX - minX, height = maxY - minY;
+        double cell = Math.max(Math.max(Math.sqrt(width * height * 2 / numberOfCities),
+                Math.max(width, height) / numberOfCities), 1e-9);
+        int columns = (int) (width / cell) + 1;
+        int rows = (int) (height / cell) + 1;
+
+        // mesta, urejena po celicah (counting sort)
+        int[] cellStart = new int[columns * rows + 1];
+        int[] cellOf = new int[numberOfCities];
+        for (int i = 0; i < numberOfCities; i++) {
+            City c = cities.get(i);
+            cellOf[i] = (int) ((c.y - minY) / cell) * columns + (int) ((c.x - minX) / cell);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int i = 0; i < columns * rows; i++) cellStart[i + 1] += cellStart[i];
+        int[] members = new int[numberOfCities];
+        int[] fill = cellStart.clone();
+        for (int i = 0; i < numberOfCities; i++) members[fill[cellOf[i]]++] = i;
 
-    public int getNumberOfCities() {
-        return numberOfCities;
+        int[][] lists = new int[numberOfCities][k];
+        double[] nearest = new double[k];
+        for (int i = 0; i < numberOfCities; i++) {
+            City from = cities.get(i);
+            int[] list = lists[i];
+            int size = 0;
+            int column = cellOf[i] % columns, row = cellOf[i] / columns;
+            for (int ring = 0; ; ring++) {
+                // nepregledana mesta (obroči od ring naprej) so vsaj (ring - 1) * cell daleč
+                if (size == k && nearest[k - 1] <= (ring - 1) * cell) break;
+                if (ring > columns && ring > rows) break;
+                for (int r = row - ring; r <= row + ring; r++) {
+                    if (r < 0 || r >= rows) continue;
+                    boolean edgeRow = r == row - ring || r == row + ring;
+                    for (int col = column - ring; col <= column + ring; col += edgeRow ? 1 : 2 * ring) {
+                        if (col >= 0 && col < columns) {
+                            int id = r * columns + col;
+                            for (int m = cellStart[id]; m < cellStart[id + 1]; m++) {
+                                int j = members[m];
+                                if (j == i) continue;
+                                double d = calculateDistance(from, cities.get(j));
+                                if (size == k && d >= nearest[k - 1]) continue;
+                                int pos = size < k ? size++ : k - 1;
+                                while (pos > 0 && nearest[pos - 1] > d) {
+                                    nearest[pos] = nearest[pos - 1];
+                                    list[pos] = list[pos - 1];
+                                    pos--;
+                                }
+                                nearest[pos] = d;
+                                list[pos] = j;
+                            }
+                        }
+                        if (ring == 0) break;
+                    }
+                }
+            }
+        }
+        return lists;
     }
 }
\ No newline at end of file
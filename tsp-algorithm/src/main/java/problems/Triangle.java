@@ -0,0 +1,31 @@
+package problems;
+
+/**
+ * Index arithmetic of a packed symmetric matrix: the lower triangle with the diagonal, row by row, so
+ * the pair {@code {i, j}} is stored at {@code max * (max + 1) / 2 + min}. The index depends only on the
+ * pair, so both directions read the same value and the minimum and maximum need no branch.
+ */
+final class Triangle {
+
+    private Triangle() {
+    }
+
+    static long index(int from, int to) {
+        long high = Math.max(from, to);
+        return high * (high + 1) / 2 + Math.min(from, to);
+    }
+
+    /**
+     * {@link #index} in {@code int} arithmetic, for arrays: {@code high * (high + 1)} may overflow into
+     * the sign bit but stays below {@code 2^32} for every triangle that fits in an array, so the
+     * unsigned shift halves it exactly.
+     */
+    static int arrayIndex(int from, int to) {
+        int high = Math.max(from, to);
+        return (high * (high + 1) >>> 1) + Math.min(from, to);
+    }
+
+    static long size(int n) {
+        return (long) n * (n + 1) / 2;
+    }
+}
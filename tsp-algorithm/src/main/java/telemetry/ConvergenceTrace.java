@@ -0,0 +1,99 @@
+package telemetry;
+
+/**
+ * Fixed-capacity ring buffer of per-generation samples held in primitive arrays.
+ * <p>
+ * Recording a sample is a handful of array stores and never allocates. When the buffer is full the
+ * oldest samples are overwritten, so it keeps the last {@code capacity} generations.
+ */
+public class ConvergenceTrace {
+
+    private final int[] generations;
+    private final int[] evaluations;
+    private final long[] elapsedNanos;
+    private final double[] best;
+    private final double[] mean;
+    private final double[] diversity;
+    private int next; //index of the slot written next
+    private long recorded; //all samples since the last clear
+
+    public ConvergenceTrace(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        generations = new int[capacity];
+        evaluations = new int[capacity];
+        elapsedNanos = new long[capacity];
+        best = new double[capacity];
+        mean = new double[capacity];
+        diversity = new double[capacity];
+    }
+
+    public void record(int generation, int evaluations, long elapsedNanos, double best, double mean, double diversity) {
+        int i = next;
+        this.generations[i] = generation;
+        this.evaluations[i] = evaluations;
+        this.elapsedNanos[i] = elapsedNanos;
+        this.best[i] = best;
+        this.mean[i] = mean;
+        this.diversity[i] = diversity;
+        next = i + 1 == generations.length ? 0 : i + 1;
+        recorded++;
+    }
+
+    public void clear() {
+        next = 0;
+        recorded = 0;
+    }
+
+    public int capacity() {
+        return generations.length;
+    }
+
+    /**
+     * Returns the number of retained samples.
+     */
+    public int size() {
+        return (int) Math.min(recorded, generations.length);
+    }
+
+    /**
+     * Returns the number of samples overwritten because the buffer was full.
+     */
+    public long getDropped() {
+        return recorded - size();
+    }
+
+    // i = 0 je najstarejši ohranjeni vzorec
+    private int slot(int i) {
+        if (i < 0 || i >= size()) throw new IndexOutOfBoundsException("Sample " + i + " of " + size());
+        int start = recorded > generations.length ? next : 0;
+        int slot = start + i;
+        return slot >= generations.length ? slot - generations.length : slot;
+    }
+
+    public int getGeneration(int i) {
+        return generations[slot(i)];
+    }
+
+    public int getEvaluations(int i) {
+        return evaluations[slot(i)];
+    }
+
+    /**
+     * Returns the wall time of all generations of the run up to and including the sampled one.
+     */
+    public long getElapsedNanos(int i) {
+        return elapsedNanos[slot(i)];
+    }
+
+    public double getBest(int i) {
+        return best[slot(i)];
+    }
+
+    public double getMean(int i) {
+        return mean[slot(i)];
+    }
+
+    public double getDiversity(int i) {
+        return diversity[slot(i)];
+    }
+}
@@ -0,0 +1,199 @@
+package telemetry;
+
+import algorithms.StagnationResponse;
+
+import java.util.Arrays;
+
+/**
+ * {@link TelemetrySink} that keeps counters, a generation latency histogram, per-operator success
+ * rates and a {@link ConvergenceTrace} of the last generations.
+ * <p>
+ * Counters accumulate over consecutive runs until {@link #clear()}; the trace covers the current
+ * (or last) run only. One instance serves one solver thread.
+ */
+public class SolverMetrics implements TelemetrySink {
+
+    public static final int DEFAULT_TRACE_CAPACITY = 4096;
+
+    private final Histogram generationNanos = new Histogram();
+    private final ConvergenceTrace trace;
+
+    private long runs;
+    private long generations;
+    private long evaluations;
+    private long runNanos;
+    private long offspring;
+    private long improvedOffspring;
+    private long restarts;
+    private long stagnations;
+    private double lastBest = Double.NaN;
+
+    private long runElapsedNanos; //čas trenutnega zagona, za sled
+
+    private String[] crossoverNames = new String[0], mutationNames = new String[0];
+    private long[] crossoverApplied = new long[0], crossoverImproved = new long[0];
+    private long[] mutationApplied = new long[0], mutationImproved = new long[0];
+
+    public SolverMetrics() {
+        this(DEFAULT_TRACE_CAPACITY);
+    }
+
+    public SolverMetrics(int traceCapacity) {
+        trace = new ConvergenceTrace(traceCapacity);
+    }
+
+    @Override
+    public void onRunStart(int cities, String[] crossoverNames, String[] mutationNames) {
+        runs++;
+        trace.clear();
+        runElapsedNanos = 0;
+        if (!Arrays.equals(this.crossoverNames, crossoverNames)) {
+            this.crossoverNames = crossoverNames.clone();
+            crossoverApplied = new long[crossoverNames.length];
+            crossoverImproved = new long[crossoverNames.length];
+        }
+        if (!Arrays.equals(this.mutationNames, mutationNames)) {
+            this.mutationNames = mutationNames.clone();
+            mutationApplied = new long[mutationNames.length];
+            mutationImproved = new long[mutationNames.length];
+        }
+    }
+
+    @Override
+    public void onGeneration(int generation, int evaluations, long nanos, double best, double mean, double diversity) {
+        generations++;
+        generationNanos.record(nanos);
+        runElapsedNanos += nanos;
+        trace.record(generation, evaluations, runElapsedNanos, best, mean, diversity);
+    }
+
+    @Override
+    public void onOffspring(int crossover, int mutation, boolean improved) {
+        offspring++;
+        if (improved) improvedOffspring++;
+        if (crossover >= 0) {
+            crossoverApplied[crossover]++;
+            if (improved) crossoverImproved[crossover]++;
+        }
+        if (mutation >= 0) {
+            mutationApplied[mutation]++;
+            if (improved) mutationImproved[mutation]++;
+        }
+    }
+
+    @Override
+    public void onRestart(int generation, double diversity) {
+        restarts++;
+    }
+
+    @Override
+    public void onStagnation(int generation, StagnationResponse response) {
+        stagnations++;
+    }
+
+    @Override
+    public void onRunEnd(double best, int evaluations, long nanos) {
+        this.evaluations += evaluations;
+        runNanos += nanos;
+        lastBest = best;
+    }
+
+    /**
+     * Resets all counters, the histogram and the trace.
+     */
+    public void clear() {
+        generationNanos.clear();
+        trace.clear();
+        runs = generations = evaluations = runNanos = offspring = improvedOffspring = restarts = stagnations = 0;
+        lastBest = Double.NaN;
+        Arrays.fill(crossoverApplied, 0);
+        Arrays.fill(crossoverImproved, 0);
+        Arrays.fill(mutationApplied, 0);
+        Arrays.fill(mutationImproved, 0);
+    }
+
+    public long getRuns() {
+        return runs;
+    }
+
+    public long getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Returns the evaluations of all finished runs.
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public long getRunNanos() {
+        return runNanos;
+    }
+
+    public double getEvaluationsPerSecond() {
+        return runNanos > 0 ? evaluations * 1e9 / runNanos : 0;
+    }
+
+    public long getOffspring() {
+        return offspring;
+    }
+
+    public long getImprovedOffspring() {
+        return improvedOffspring;
+    }
+
+    public long getRestarts() {
+        return restarts;
+    }
+
+    public long getStagnations() {
+        return stagnations;
+    }
+
+    /**
+     * Returns the best distance of the last finished run.
+     */
+    public double getLastBest() {
+        return lastBest;
+    }
+
+    public Histogram getGenerationNanos() {
+        return generationNanos;
+    }
+
+    public ConvergenceTrace getTrace() {
+        return trace;
+    }
+
+    public String[] getCrossoverNames() {
+        return crossoverNames.clone();
+    }
+
+    public String[] getMutationNames() {
+        return mutationNames.clone();
+    }
+
+    public long getCrossoverApplied(int operator) {
+        return crossoverApplied[operator];
+    }
+
+    /**
+     * Returns the share of the operator's offspring that beat their reference parent.
+     */
+    public double getCrossoverSuccessRate(int operator) {
+        return rate(crossoverImproved[operator], crossoverApplied[operator]);
+    }
+
+    public long getMutationApplied(int operator) {
+        return mutationApplied[operator];
+    }
+
+    public double getMutationSuccessRate(int operator) {
+        return rate(mutationImproved[operator], mutationApplied[operator]);
+    }
+
+    private static double rate(long improved, long applied) {
+        return applied > 0 ? (double) improved / applied : 0;
+    }
+}
@@ -0,0 +1,83 @@
+package telemetry;
+
+import algorithms.StagnationResponse;
+
+/**
+ * Receives run, generation and offspring events from a solver.
+ * <p>
+ * Callbacks come from the solver thread, one run at a time. They sit on the hot path, so
+ * implementations must not block or allocate per call. Only the
+ * run, generation and offspring callbacks are mandatory; solvers without a population report just
+ * the run and local search callbacks. A solver without a sink skips every call.
+ */
+public interface TelemetrySink {
+
+    /**
+     * Called once after the initial population is evaluated.
+     *
+     * @param crossoverNames names of the crossover operators, indexed as in {@link #onOffspring}.
+     * @param mutationNames  names of the mutation operators, indexed as in {@link #onOffspring}.
+     */
+    void onRunStart(int cities, String[] crossoverNames, String[] mutationNames);
+
+    /**
+     * Called before every generation; the generation ends with {@link #onGeneration}.
+     */
+    default void onGenerationStart(int generation) {
+    }
+
+    /**
+     * Called after every generation.
+     *
+     * @param evaluations evaluations spent so far in the run.
+     * @param nanos       wall time of this generation.
+     */
+    void onGeneration(int generation, int evaluations, long nanos, double best, double mean, double diversity);
+
+    /**
+     * Called for every evaluated offspring.
+     *
+     * @param crossover index of the crossover that produced it, {@code -1} if the parent was copied.
+     * @param mutation  index of the (last) mutation applied to it, {@code -1} if none.
+     * @param improved  whether it is shorter than its reference parent.
+     */
+    void onOffspring(int crossover, int mutation, boolean improved);
+
+    /**
+     * Called before a generation's offspring are evaluated as a batch.
+     */
+    default void onEvaluationStart() {
+    }
+
+    default void onEvaluationEnd(int evaluated) {
+    }
+
+    /**
+     * Called before a local search pass over a tour.
+     */
+    default void onLocalSearchStart() {
+    }
+
+    /**
+     * Called after a local search pass.
+     *
+     * @param moves number of improving moves applied.
+     * @param gain  decrease of the tour length.
+     */
+    default void onLocalSearchEnd(int moves, double gain) {
+    }
+
+    /**
+     * Called when the population collapsed and part of it was replaced.
+     */
+    default void onRestart(int generation, double diversity) {
+    }
+
+    /**
+     * Called when the solver reacts to stagnation.
+     */
+    default void onStagnation(int generation, StagnationResponse response) {
+    }
+
+    void onRunEnd(double best, int evaluations, long nanos);
+}
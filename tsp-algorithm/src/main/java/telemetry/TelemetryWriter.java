@@ -0,0 +1,127 @@
+package telemetry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Writes {@link SolverMetrics} as CSV (one metric per row) or JSON, and a {@link ConvergenceTrace}
+ * as CSV (one generation per row). The {@link Writer} variants let the app log to any stream.
+ */
+public class TelemetryWriter {
+
+    private TelemetryWriter() {
+    }
+
+    public static void writeTraceCsv(Path file, ConvergenceTrace trace) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeTraceCsv(writer, trace);
+        }
+    }
+
+    public static void writeTraceCsv(Writer writer, ConvergenceTrace trace) throws IOException {
+        writer.write("generation,evaluations,elapsed_ms,best,mean,diversity\n");
+        for (int i = 0; i < trace.size(); i++) {
+            writer.write(String.format(Locale.US, "%d,%d,%.3f,%.6f,%.6f,%.6f\n",
+                    trace.getGeneration(i), trace.getEvaluations(i), trace.getElapsedNanos(i) / 1e6,
+                    trace.getBest(i), trace.getMean(i), trace.getDiversity(i)));
+        }
+    }
+
+    public static void writeMetricsCsv(Path file, SolverMetrics metrics) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeMetricsCsv(writer, metrics);
+        }
+    }
+
+    public static void writeMetricsCsv(Writer writer, SolverMetrics metrics) throws IOException {
+        Histogram latency = metrics.getGenerationNanos();
+        writer.write("metric,value\n");
+        row(writer, "runs", metrics.getRuns());
+        row(writer, "generations", metrics.getGenerations());
+        row(writer, "evaluations", metrics.getEvaluations());
+        row(writer, "run_ms", metrics.getRunNanos() / 1e6);
+        row(writer, "evals_per_sec", metrics.getEvaluationsPerSecond());
+        row(writer, "offspring", metrics.getOffspring());
+        row(writer, "improved_offspring", metrics.getImprovedOffspring());
+        row(writer, "restarts", metrics.getRestarts());
+        row(writer, "stagnations", metrics.getStagnations());
+        row(writer, "last_best", metrics.getLastBest());
+        row(writer, "generation_ms_mean", latency.getMean() / 1e6);
+        row(writer, "generation_ms_p50", latency.getQuantile(0.5) / 1e6);
+        row(writer, "generation_ms_p90", latency.getQuantile(0.9) / 1e6);
+        row(writer, "generation_ms_p99", latency.getQuantile(0.99) / 1e6);
+        row(writer, "generation_ms_max", latency.getMax() / 1e6);
+        String[] crossovers = metrics.getCrossoverNames();
+        for (int i = 0; i < crossovers.length; i++) {
+            row(writer, "crossover_" + crossovers[i] + "_applied", metrics.getCrossoverApplied(i));
+            row(writer, "crossover_" + crossovers[i] + "_success", metrics.getCrossoverSuccessRate(i));
+        }
+        String[] mutations = metrics.getMutationNames();
+        for (int i = 0; i < mutations.length; i++) {
+            row(writer, "mutation_" + mutations[i] + "_applied", metrics.getMutationApplied(i));
+            row(writer, "mutation_" + mutations[i] + "_success", metrics.getMutationSuccessRate(i));
+        }
+    }
+
+    public static void writeMetricsJson(Path file, SolverMetrics metrics) throws IOException {
+        Files.write(file, toJson(metrics).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String toJson(SolverMetrics metrics) {
+        Histogram latency = metrics.getGenerationNanos();
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"runs\": ").append(metrics.getRuns()).append(",\n")
+                .append("  \"generations\": ").append(metrics.getGenerations()).append(",\n")
+                .append("  \"evaluations\": ").append(metrics.getEvaluations()).append(",\n")
+                .append("  \"runMillis\": ").append(json(metrics.getRunNanos() / 1e6)).append(",\n")
+                .append("  \"evaluationsPerSecond\": ").append(json(metrics.getEvaluationsPerSecond())).append(",\n")
+                .append("  \"offspring\": ").append(metrics.getOffspring()).append(",\n")
+                .append("  \"improvedOffspring\": ").append(metrics.getImprovedOffspring()).append(",\n")
+                .append("  \"restarts\": ").append(metrics.getRestarts()).append(",\n")
+                .append("  \"stagnations\": ").append(metrics.getStagnations()).append(",\n")
+                .append("  \"lastBest\": ").append(json(metrics.getLastBest())).append(",\n")
+                .append("  \"generationMillis\": {")
+                .append("\"count\": ").append(latency.getCount()).append(", ")
+                .append("\"mean\": ").append(json(latency.getMean() / 1e6)).append(", ")
+                .append("\"p50\": ").append(json(latency.getQuantile(0.5) / 1e6)).append(", ")
+                .append("\"p90\": ").append(json(latency.getQuantile(0.9) / 1e6)).append(", ")
+                .append("\"p99\": ").append(json(latency.getQuantile(0.99) / 1e6)).append(", ")
+                .append("\"max\": ").append(json(latency.getMax() / 1e6)).append("},\n");
+        json.append("  \"crossovers\": [");
+        String[] crossovers = metrics.getCrossoverNames();
+        for (int i = 0; i < crossovers.length; i++) {
+            operator(json, crossovers[i], metrics.getCrossoverApplied(i), metrics.getCrossoverSuccessRate(i));
+            if (i + 1 < crossovers.length) json.append(", ");
+        }
+        json.append("],\n  \"mutations\": [");
+        String[] mutations = metrics.getMutationNames();
+        for (int i = 0; i < mutations.length; i++) {
+            operator(json, mutations[i], metrics.getMutationApplied(i), metrics.getMutationSuccessRate(i));
+            if (i + 1 < mutations.length) json.append(", ");
+        }
+        json.append("]\n}\n");
+        return json.toString();
+    }
+
+    private static void operator(StringBuilder json, String name, long applied, double successRate) {
+        json.append("{\"name\": \"").append(name).append("\", \"applied\": ").append(applied)
+                .append(", \"successRate\": ").append(json(successRate)).append("}");
+    }
+
+    private static void row(Writer writer, String metric, long value) throws IOException {
+        writer.write(metric + "," + value + "\n");
+    }
+
+    private static void row(Writer writer, String metric, double value) throws IOException {
+        writer.write(metric + "," + (Double.isNaN(value) ? "" : String.format(Locale.US, "%.6f", value)) + "\n");
+    }
+
+    private static String json(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.format(Locale.US, "%.6f", value);
+    }
+}
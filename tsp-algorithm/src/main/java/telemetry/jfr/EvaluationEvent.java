@@ -0,0 +1,19 @@
+package telemetry.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tsp.Evaluation")
+@Label("Offspring Evaluation")
+@Category({"TSP", "Genetic Algorithm"})
+@StackTrace(false)
+@Description("Evaluation of the changed offspring of one generation")
+class EvaluationEvent extends Event {
+
+    @Label("Evaluated")
+    int evaluated;
+}
@@ -0,0 +1,42 @@
+package telemetry.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tsp.Generation")
+@Label("GA Generation")
+@Category({"TSP", "Genetic Algorithm"})
+@StackTrace(false)
+@Description("One generation: selection, variation, evaluation and replacement")
+class GenerationEvent extends Event {
+
+    @Label("Generation")
+    int generation;
+
+    @Label("Evaluations")
+    @Description("Evaluations spent in the run so far")
+    int evaluations;
+
+    @Label("Best")
+    double best;
+
+    @Label("Mean")
+    double mean;
+
+    @Label("Diversity")
+    @Description("Normalized edge entropy of the population")
+    double diversity;
+
+    @Label("Crossovers")
+    int crossovers;
+
+    @Label("Mutations")
+    int mutations;
+
+    @Label("Improved Offspring")
+    int improved;
+}
@@ -0,0 +1,172 @@
+package telemetry.jfr;
+
+import algorithms.StagnationResponse;
+import jdk.jfr.EventType;
+import telemetry.TelemetrySink;
+
+/**
+ * {@link TelemetrySink} that emits Java Flight Recorder events: {@code tsp.Run}, {@code tsp.Generation}
+ * (with population statistics and operator counts), {@code tsp.Evaluation}, {@code tsp.LocalSearch} and
+ * {@code tsp.Population}. Events are only written while a recording is running, e.g.
+ * {@code -XX:StartFlightRecording=filename=run.jfr,settings=profile}, and show up next to the GC and
+ * allocation events of the same recording.
+ * <p>
+ * An event object is created only while a recording has its type enabled, so without a recording the
+ * sink allocates nothing. With one, JFR needs a new object per event: one per run, generation,
+ * evaluation batch, local search pass and restart, but never per offspring.
+ * <p>
+ * The solvers never reference {@code jdk.jfr}; only this package does, so the library still runs on
+ * Android as long as this sink is not installed. Other events are forwarded to an optional delegate.
+ */
+public class JfrTelemetry implements TelemetrySink {
+
+    // tipi dogodkov za hitro preverjanje, ali jih kakšno snemanje sploh zajema
+    private static final EventType RUN = EventType.getEventType(RunEvent.class);
+    private static final EventType GENERATION = EventType.getEventType(GenerationEvent.class);
+    private static final EventType EVALUATION = EventType.getEventType(EvaluationEvent.class);
+    private static final EventType LOCAL_SEARCH = EventType.getEventType(LocalSearchEvent.class);
+    private static final EventType POPULATION = EventType.getEventType(PopulationEvent.class);
+
+    private final TelemetrySink delegate;
+
+    private RunEvent run;
+    private GenerationEvent generation;
+    private EvaluationEvent evaluation;
+    private LocalSearchEvent localSearch;
+    private int crossovers, mutations, improved; //v trenutni generaciji
+
+    public JfrTelemetry() {
+        this(null);
+    }
+
+    public JfrTelemetry(TelemetrySink delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onRunStart(int cities, String[] crossoverNames, String[] mutationNames) {
+        run = null;
+        if (RUN.isEnabled()) {
+            run = new RunEvent();
+            run.begin();
+            run.cities = cities;
+        }
+        if (delegate != null) delegate.onRunStart(cities, crossoverNames, mutationNames);
+    }
+
+    @Override
+    public void onGenerationStart(int generation) {
+        this.generation = null;
+        if (GENERATION.isEnabled()) {
+            this.generation = new GenerationEvent();
+            this.generation.begin();
+        }
+        crossovers = mutations = improved = 0;
+        if (delegate != null) delegate.onGenerationStart(generation);
+    }
+
+    @Override
+    public void onGeneration(int generation, int evaluations, long nanos, double best, double mean, double diversity) {
+        GenerationEvent event = this.generation;
+        if (event != null && event.shouldCommit()) {
+            event.generation = generation;
+            event.evaluations = evaluations;
+            event.best = best;
+            event.mean = mean;
+            event.diversity = diversity;
+            event.crossovers = crossovers;
+            event.mutations = mutations;
+            event.improved = improved;
+            event.commit();
+        }
+        this.generation = null;
+        if (delegate != null) delegate.onGeneration(generation, evaluations, nanos, best, mean, diversity);
+    }
+
+    @Override
+    public void onOffspring(int crossover, int mutation, boolean improved) {
+        if (crossover >= 0) crossovers++;
+        if (mutation >= 0) mutations++;
+        if (improved) this.improved++;
+        if (delegate != null) delegate.onOffspring(crossover, mutation, improved);
+    }
+
+    @Override
+    public void onEvaluationStart() {
+        evaluation = null;
+        if (EVALUATION.isEnabled()) {
+            evaluation = new EvaluationEvent();
+            evaluation.begin();
+        }
+        if (delegate != null) delegate.onEvaluationStart();
+    }
+
+    @Override
+    public void onEvaluationEnd(int evaluated) {
+        EvaluationEvent event = evaluation;
+        if (event != null && event.shouldCommit()) {
+            event.evaluated = evaluated;
+            event.commit();
+        }
+        evaluation = null;
+        if (delegate != null) delegate.onEvaluationEnd(evaluated);
+    }
+
+    @Override
+    public void onLocalSearchStart() {
+        localSearch = null;
+        if (LOCAL_SEARCH.isEnabled()) {
+            localSearch = new LocalSearchEvent();
+            localSearch.begin();
+        }
+        if (delegate != null) delegate.onLocalSearchStart();
+    }
+
+    @Override
+    public void onLocalSearchEnd(int moves, double gain) {
+        LocalSearchEvent event = localSearch;
+        if (event != null && event.shouldCommit()) {
+            event.moves = moves;
+            event.gain = gain;
+            event.commit();
+        }
+        localSearch = null;
+        if (delegate != null) delegate.onLocalSearchEnd(moves, gain);
+    }
+
+    @Override
+    public void onRestart(int generation, double diversity) {
+        PopulationEvent event = POPULATION.isEnabled() ? new PopulationEvent() : null;
+        if (event != null && event.shouldCommit()) {
+            event.generation = generation;
+            event.action = "RESTART";
+            event.diversity = diversity;
+            event.commit();
+        }
+        if (delegate != null) delegate.onRestart(generation, diversity);
+    }
+
+    @Override
+    public void onStagnation(int generation, StagnationResponse response) {
+        PopulationEvent event = POPULATION.isEnabled() ? new PopulationEvent() : null;
+        if (event != null && event.shouldCommit()) {
+            event.generation = generation;
+            event.action = response.name();
+            event.diversity = Double.NaN;
+            event.commit();
+        }
+        if (delegate != null) delegate.onStagnation(generation, response);
+    }
+
+    @Override
+    public void onRunEnd(double best, int evaluations, long nanos) {
+        RunEvent event = run;
+        if (event != null && event.shouldCommit()) {
+            event.evaluations = evaluations;
+            event.best = best;
+            event.commit();
+        }
+        run = null;
+        if (delegate != null) delegate.onRunEnd(best, evaluations, nanos);
+    }
+}
@@ -0,0 +1,23 @@
+package telemetry.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tsp.LocalSearch")
+@Label("Local Search")
+@Category({"TSP", "Local Search"})
+@StackTrace(false)
+@Description("One 2-opt/Or-opt pass until no active city improves")
+class LocalSearchEvent extends Event {
+
+    @Label("Moves")
+    int moves;
+
+    @Label("Gain")
+    @Description("Decrease of the tour length")
+    double gain;
+}
@@ -0,0 +1,25 @@
+package telemetry.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tsp.Population")
+@Label("Population Intervention")
+@Category({"TSP", "Genetic Algorithm"})
+@StackTrace(false)
+@Description("Partial restart after a diversity collapse, or a reaction to stagnation")
+class PopulationEvent extends Event {
+
+    @Label("Generation")
+    int generation;
+
+    @Label("Action")
+    String action;
+
+    @Label("Diversity")
+    double diversity;
+}
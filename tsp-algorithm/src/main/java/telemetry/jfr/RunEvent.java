@@ -0,0 +1,23 @@
+package telemetry.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tsp.Run")
+@Label("Solver Run")
+@Category("TSP")
+@StackTrace(false)
+class RunEvent extends Event {
+
+    @Label("Cities")
+    int cities;
+
+    @Label("Evaluations")
+    int evaluations;
+
+    @Label("Best")
+    double best;
+}
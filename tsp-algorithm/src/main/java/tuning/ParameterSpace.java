@@ -0,0 +1,89 @@
+package tuning;
+
+import algorithms.GAConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Continuous ranges of the tuned GA parameters. Population sizes are sampled on a log scale,
+ * rates uniformly.
+ */
+public class ParameterSpace {
+
+    final int minPopSize, maxPopSize;
+    final double minCrossoverRate, maxCrossoverRate;
+    final double minMutationRate, maxMutationRate;
+    final boolean adaptive;
+
+    public ParameterSpace(int minPopSize, int maxPopSize, double minCrossoverRate, double maxCrossoverRate,
+                          double minMutationRate, double maxMutationRate, boolean adaptive) {
+        this.minPopSize = minPopSize;
+        this.maxPopSize = maxPopSize;
+        this.minCrossoverRate = minCrossoverRate;
+        this.maxCrossoverRate = maxCrossoverRate;
+        this.minMutationRate = minMutationRate;
+        this.maxMutationRate = maxMutationRate;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Latin hypercube sample: every parameter range is split into {@code count} strata and each
+     * stratum is used exactly once.
+     */
+    public List<GAConfig> sample(int count, Random random) {
+        int[][] strata = new int[3][count];
+        for (int[] permutation : strata) {
+            for (int i = 0; i < count; i++) permutation[i] = i;
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int temp = permutation[i];
+                permutation[i] = permutation[j];
+                permutation[j] = temp;
+            }
+        }
+        List<GAConfig> configs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            configs.add(at((strata[0][i] + random.nextDouble()) / count,
+                    (strata[1][i] + random.nextDouble()) / count,
+                    (strata[2][i] + random.nextDouble()) / count));
+        }
+        return configs;
+    }
+
+    /**
+     * Samples a configuration near {@code elite}; {@code spread} is the standard deviation as a
+     * share of each range.
+     */
+    public GAConfig sampleAround(GAConfig elite, double spread, Random random) {
+        double[] position = position(elite);
+        return at(clamp(position[0] + spread * random.nextGaussian()),
+                clamp(position[1] + spread * random.nextGaussian()),
+                clamp(position[2] + spread * random.nextGaussian()));
+    }
+
+    // normirane koordinate v [0, 1]
+    private double[] position(GAConfig config) {
+        return new double[]{
+                normalize(Math.log(config.popSize), Math.log(minPopSize), Math.log(maxPopSize)),
+                normalize(config.crossoverRate, minCrossoverRate, maxCrossoverRate),
+                normalize(config.mutationRate, minMutationRate, maxMutationRate)};
+    }
+
+    private static double normalize(double x, double min, double max) {
+        return max > min ? (x - min) / (max - min) : 0;
+    }
+
+    private GAConfig at(double u, double v, double w) {
+        int popSize = (int) Math.round(minPopSize * Math.pow((double) maxPopSize / minPopSize, u));
+        return new GAConfig(popSize,
+                minCrossoverRate + v * (maxCrossoverRate - minCrossoverRate),
+                minMutationRate + w * (maxMutationRate - minMutationRate),
+                adaptive);
+    }
+
+    private static double clamp(double x) {
+        return Math.max(0, Math.min(1, x));
+    }
+}
@@ -0,0 +1,215 @@
+package tuning;
+
+import Utility.RandomUtils;
+import Utility.Statistics;
+import algorithms.GAConfig;
+import benchmark.BenchmarkRunner;
+import problems.TSP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Iterated F-race (Birattari et al.; López-Ibáñez et al. for the iterated variant) over GA configurations.
+ * <p>
+ * Candidates are run on a sequence of blocks, each an (instance, seed) pair shared by all candidates.
+ * After {@code minBlocks} blocks, and after every further batch, a Friedman test on the per-block ranks
+ * checks whether the candidates differ. If they do, every candidate whose rank sum is significantly
+ * worse than the best one (Conover's post-hoc test) is dropped. A race ends when one candidate is
+ * left or {@code maxBlocks} is reached. With more than one iteration, the survivors seed the next
+ * race together with new candidates sampled around them with a shrinking spread.
+ * <p>
+ * Runs of the alive candidates on as many blocks as fill the thread pool are executed in parallel.
+ */
+public class RaceTuner {
+
+    private final List<String> instances;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 123;
+    private int evaluationsPerCity = 10000;
+    private int minBlocks = 5;
+    private int maxBlocks = 40;
+    private double alpha = 0.05;
+    private boolean verbose = true;
+
+    public RaceTuner(List<String> instances) {
+        this.instances = instances;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setEvaluationsPerCity(int evaluationsPerCity) {
+        this.evaluationsPerCity = evaluationsPerCity;
+    }
+
+    /**
+     * Sets the number of blocks before the first test and the maximal number of blocks per race.
+     */
+    public void setBlocks(int minBlocks, int maxBlocks) {
+        this.minBlocks = minBlocks;
+        this.maxBlocks = maxBlocks;
+    }
+
+    public void setAlpha(double alpha) {
+        this.alpha = alpha;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Races the given candidates once and returns the survivors, best (lowest mean rank) first.
+     */
+    public List<GAConfig> race(List<GAConfig> candidates) throws InterruptedException {
+        return race(candidates, 0);
+    }
+
+    /**
+     * Iterated racing in a continuous parameter space: {@code iterations} races of {@code candidatesPerRace}
+     * configurations each, the first sampled by Latin hypercube, the following ones around the survivors.
+     *
+     * @return the winner of the last race.
+     */
+    public GAConfig tune(ParameterSpace space, int iterations, int candidatesPerRace) throws InterruptedException {
+        Random random = new Random(seed);
+        List<GAConfig> candidates = space.sample(candidatesPerRace, random);
+        List<GAConfig> survivors = null;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            if (iteration > 0) {
+                // preživele obdržimo, ostale nadomestimo z vzorci v njihovi okolici
+                int elites = Math.min(survivors.size(), Math.max(1, candidatesPerRace / 4));
+                candidates = new ArrayList<>(survivors.subList(0, elites));
+                double spread = 0.3 * Math.pow(0.6, iteration);
+                for (int i = elites; i < candidatesPerRace; i++) {
+                    candidates.add(space.sampleAround(candidates.get(i % elites), spread, random));
+                }
+            }
+            survivors = race(candidates, iteration);
+            if (verbose) System.out.println("Iteration " + (iteration + 1) + " winner: " + survivors.get(0));
+        }
+        return survivors.get(0);
+    }
+
+    private List<GAConfig> race(List<GAConfig> candidates, int iteration) throws InterruptedException {
+        List<double[]> results = new ArrayList<>(); //per candidate (index in candidates), per block
+        for (int i = 0; i < candidates.size(); i++) results.add(new double[maxBlocks]);
+        List<Integer> aliveIndex = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) aliveIndex.add(i);
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        int blocks = 0;
+        try {
+            while (blocks < maxBlocks && aliveIndex.size() > 1) {
+                int batch = Math.max(1, Math.min(maxBlocks - blocks, threads / aliveIndex.size()));
+                if (blocks < minBlocks) batch = Math.max(batch, Math.min(minBlocks, maxBlocks) - blocks);
+
+                List<Future<Double>> futures = new ArrayList<>();
+                for (int b = blocks; b < blocks + batch; b++) {
+                    String instance = instances.get(b % instances.size());
+                    long runSeed = BenchmarkRunner.runSeed(seed, iteration, b);
+                    for (int c : aliveIndex) {
+                        GAConfig config = candidates.get(c);
+                        futures.add(pool.submit(() -> runOnce(config, instance, runSeed)));
+                    }
+                }
+                int f = 0;
+                for (int b = blocks; b < blocks + batch; b++) {
+                    for (int c : aliveIndex) {
+                        results.get(c)[b] = futures.get(f++).get();
+                    }
+                }
+                blocks += batch;
+
+                if (blocks >= minBlocks) {
+                    eliminate(aliveIndex, results, blocks);
+                }
+                if (verbose) {
+                    System.out.printf("  race %d: %d blocks, %d of %d candidates alive%n",
+                            iteration + 1, blocks, aliveIndex.size(), candidates.size());
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tuning run failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double[] rankSums = rankSums(aliveIndex, results, blocks);
+        List<Integer> order = new ArrayList<>();
+        for (int k = 0; k < aliveIndex.size(); k++) order.add(k);
+        order.sort((a, b) -> Double.compare(rankSums[a], rankSums[b]));
+        List<GAConfig> survivors = new ArrayList<>();
+        for (int k : order) survivors.add(candidates.get(aliveIndex.get(k)));
+        return survivors;
+    }
+
+    /**
+     * Friedman test over the alive candidates followed by Conover's pairwise comparison with the best.
+     */
+    private void eliminate(List<Integer> aliveIndex, List<double[]> results, int blocks) {
+        int k = aliveIndex.size();
+        if (k < 2 || blocks < 2) return;
+        double[] rankSums = new double[k];
+        double sumOfSquaredRanks = 0; //A
+        double[] row = new double[k];
+        for (int b = 0; b < blocks; b++) {
+            for (int j = 0; j < k; j++) row[j] = results.get(aliveIndex.get(j))[b];
+            double[] ranks = Statistics.ranks(row);
+            for (int j = 0; j < k; j++) {
+                rankSums[j] += ranks[j];
+                sumOfSquaredRanks += ranks[j] * ranks[j];
+            }
+        }
+        double c = blocks * k * (k + 1) * (k + 1) / 4.0;
+        double deviation = 0, sumOfSquaredRankSums = 0;
+        int best = 0;
+        for (int j = 0; j < k; j++) {
+            deviation += Math.pow(rankSums[j] - blocks * (k + 1) / 2.0, 2);
+            sumOfSquaredRankSums += rankSums[j] * rankSums[j];
+            if (rankSums[j] < rankSums[best]) best = j;
+        }
+        if (sumOfSquaredRanks - c <= 0) return; //vsi rezultati v vseh blokih enaki
+        double t = (k - 1) * deviation / (sumOfSquaredRanks - c);
+        if (Statistics.chiSquaredSurvival(t, k - 1) >= alpha) return;
+
+        int df = (blocks - 1) * (k - 1);
+        double variance = 2 * (blocks * sumOfSquaredRanks - sumOfSquaredRankSums) / df;
+        double threshold = Statistics.studentQuantile(1 - alpha / 2, df) * Math.sqrt(Math.max(0, variance));
+        List<Integer> survivors = new ArrayList<>();
+        for (int j = 0; j < k; j++) {
+            if (rankSums[j] - rankSums[best] <= threshold) survivors.add(aliveIndex.get(j));
+        }
+        aliveIndex.retainAll(survivors);
+    }
+
+    private double[] rankSums(List<Integer> aliveIndex, List<double[]> results, int blocks) {
+        int k = aliveIndex.size();
+        double[] rankSums = new double[k];
+        double[] row = new double[k];
+        for (int b = 0; b < blocks; b++) {
+            for (int j = 0; j < k; j++) row[j] = results.get(aliveIndex.get(j))[b];
+            double[] ranks = Statistics.ranks(row);
+            for (int j = 0; j < k; j++) rankSums[j] += ranks[j];
+        }
+        return rankSums;
+    }
+
+    private double runOnce(GAConfig config, String instance, long runSeed) {
+        RandomUtils.setSeed(runSeed);
+        TSP problem = new TSP(instance, 0);
+        problem.setMaxEvaluations(evaluationsPerCity * problem.getNumberOfCities());
+        return config.createSolver().execute(problem).getDistance();
+    }
+}